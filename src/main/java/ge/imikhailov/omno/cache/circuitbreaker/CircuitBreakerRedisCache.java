@@ -1,16 +1,36 @@
 package ge.imikhailov.omno.cache.circuitbreaker;
 
+import ge.imikhailov.omno.cache.multilevel.BulkCache;
+import ge.imikhailov.omno.cache.multilevel.CachedEntry;
+import ge.imikhailov.omno.cache.multilevel.VersionedCache;
 import io.github.resilience4j.circuitbreaker.CircuitBreaker;
-import lombok.RequiredArgsConstructor;
+import org.jspecify.annotations.Nullable;
 import org.springframework.cache.Cache;
+import org.springframework.data.redis.cache.RedisCacheWriter;
 
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
 
-@RequiredArgsConstructor
-public class CircuitBreakerRedisCache implements Cache {
+public class CircuitBreakerRedisCache implements Cache, BulkCache, VersionedCache {
 
     private final Cache redisCache;
     private final CircuitBreaker circuitBreaker;
+    // Multi-key access to the same keyspace; when absent, bulk calls degrade to per-key calls
+    private final @Nullable BulkCache bulkOperations;
+
+    public CircuitBreakerRedisCache(Cache redisCache, CircuitBreaker circuitBreaker) {
+        this(redisCache, circuitBreaker, null);
+    }
+
+    public CircuitBreakerRedisCache(Cache redisCache, CircuitBreaker circuitBreaker, @Nullable BulkCache bulkOperations) {
+        this.redisCache = redisCache;
+        this.circuitBreaker = circuitBreaker;
+        this.bulkOperations = bulkOperations;
+    }
 
     @Override
     public String getName() {
@@ -43,6 +63,21 @@ public class CircuitBreakerRedisCache implements Cache {
                 .get();
     }
 
+    @Override
+    public @Nullable CompletableFuture<?> retrieve(Object key) {
+        // RedisCache only supports retrieve() on drivers with async commands (Lettuce)
+        if (redisCache.getNativeCache() instanceof RedisCacheWriter writer && !writer.supportsAsyncRetrieve()) {
+            throw new UnsupportedOperationException("Async retrieve not supported by the Redis driver");
+        }
+        return circuitBreaker
+                .decorateCompletionStage(() -> {
+                    final CompletableFuture<?> future = redisCache.retrieve(key);
+                    return future != null ? future : CompletableFuture.completedFuture(null);
+                })
+                .get()
+                .toCompletableFuture();
+    }
+
     @Override
     public void put(Object key, Object value) {
         CircuitBreaker
@@ -50,6 +85,69 @@ public class CircuitBreakerRedisCache implements Cache {
                 .run();
     }
 
+    @Override
+    public Map<Object, Object> getAll(Collection<?> keys) {
+        if (bulkOperations != null) {
+            return CircuitBreaker
+                    .decorateSupplier(circuitBreaker, () -> bulkOperations.getAll(keys))
+                    .get();
+        }
+        final Map<Object, Object> result = new HashMap<>();
+        for (Object key : keys) {
+            final ValueWrapper wrapper = get(key);
+            if (wrapper != null && wrapper.get() != null) {
+                result.put(key, wrapper.get());
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public void putAll(Map<?, ?> entries) {
+        if (bulkOperations != null) {
+            CircuitBreaker
+                    .decorateRunnable(circuitBreaker, () -> bulkOperations.putAll(entries))
+                    .run();
+            return;
+        }
+        entries.forEach((key, value) -> {
+            if (value != null) put(key, value);
+        });
+    }
+
+    @Override
+    public boolean putIfNewer(Object key, CachedEntry entry) {
+        if (bulkOperations instanceof VersionedCache versioned) {
+            return CircuitBreaker
+                    .decorateSupplier(circuitBreaker, () -> versioned.putIfNewer(key, entry))
+                    .get();
+        }
+        put(key, entry);
+        return true;
+    }
+
+    @Override
+    public Set<Object> putAllIfNewer(Map<?, CachedEntry> entries) {
+        if (bulkOperations instanceof VersionedCache versioned) {
+            return CircuitBreaker
+                    .decorateSupplier(circuitBreaker, () -> versioned.putAllIfNewer(entries))
+                    .get();
+        }
+        putAll(entries);
+        return Set.of();
+    }
+
+    @Override
+    public void evictVersion(Object key, long version) {
+        if (bulkOperations instanceof VersionedCache versioned) {
+            CircuitBreaker
+                    .decorateRunnable(circuitBreaker, () -> versioned.evictVersion(key, version))
+                    .run();
+            return;
+        }
+        evict(key);
+    }
+
     @Override
     public void evict(Object key) {
         CircuitBreaker
@@ -1,24 +1,49 @@
 package ge.imikhailov.omno.cache.circuitbreaker;
 
+import ge.imikhailov.omno.cache.redis.RedisBulkOperations;
 import io.github.resilience4j.circuitbreaker.CircuitBreaker;
-import lombok.RequiredArgsConstructor;
+import org.jspecify.annotations.Nullable;
 import org.springframework.cache.Cache;
 import org.springframework.cache.CacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheDecorator;
+import org.springframework.data.redis.cache.RedisCache;
 import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
 
 import java.util.Collection;
 
-@RequiredArgsConstructor
 public class CircuitBreakerRedisCacheManager implements CacheManager {
 
     private final RedisCacheManager delegate;
     private final CircuitBreaker circuitBreaker;
+    // Enables MGET / pipelined SET for multi-key operations when present
+    private final @Nullable RedisConnectionFactory connectionFactory;
 
+    public CircuitBreakerRedisCacheManager(RedisCacheManager delegate, CircuitBreaker circuitBreaker) {
+        this(delegate, circuitBreaker, null);
+    }
+
+    public CircuitBreakerRedisCacheManager(RedisCacheManager delegate,
+                                           CircuitBreaker circuitBreaker,
+                                           @Nullable RedisConnectionFactory connectionFactory) {
+        this.delegate = delegate;
+        this.circuitBreaker = circuitBreaker;
+        this.connectionFactory = connectionFactory;
+    }
 
     @Override
     public Cache getCache(String name) {
         final Cache cache = delegate.getCache(name);
-        return new CircuitBreakerRedisCache(cache, circuitBreaker);
+        return new CircuitBreakerRedisCache(cache, circuitBreaker, bulkOperations(cache));
+    }
+
+    private @Nullable RedisBulkOperations bulkOperations(@Nullable Cache cache) {
+        if (connectionFactory == null) {
+            return null;
+        }
+        // RedisCacheManager decorates caches for transaction awareness; bulk calls need the raw cache config
+        final Cache target = cache instanceof TransactionAwareCacheDecorator decorator ? decorator.getTargetCache() : cache;
+        return target instanceof RedisCache redisCache ? new RedisBulkOperations(redisCache, connectionFactory) : null;
     }
 
     @Override
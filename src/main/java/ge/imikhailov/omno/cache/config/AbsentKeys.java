@@ -0,0 +1,23 @@
+package ge.imikhailov.omno.cache.config;
+
+import ge.imikhailov.omno.cache.multilevel.NegativeCaching;
+
+import java.time.Duration;
+import java.util.function.Function;
+
+/**
+ * What "key not found" means for one cache. Declared as a bean by the code that owns the cache, so that
+ * {@code cache.specs.<name>.negative-ttl} can enable negative caching without the cache layer knowing its exceptions.
+ *
+ * @param cacheName        cache the mapping applies to
+ * @param absentType       loader exception meaning "this key does not exist"
+ * @param exceptionFactory recreates that exception for a key served from a tombstone
+ */
+public record AbsentKeys(String cacheName,
+                         Class<? extends RuntimeException> absentType,
+                         Function<Object, ? extends RuntimeException> exceptionFactory) {
+
+    NegativeCaching negativeCaching(final Duration ttl) {
+        return new NegativeCaching(ttl, absentType, exceptionFactory);
+    }
+}
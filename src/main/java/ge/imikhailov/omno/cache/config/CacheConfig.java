@@ -2,16 +2,37 @@ package ge.imikhailov.omno.cache.config;
 
 import com.github.benmanes.caffeine.cache.Caffeine;
 import ge.imikhailov.omno.cache.circuitbreaker.CircuitBreakerRedisCacheManager;
+import ge.imikhailov.omno.cache.multilevel.BoundedRefreshExecutor;
+import ge.imikhailov.omno.cache.multilevel.DistributedSingleFlight;
+import ge.imikhailov.omno.cache.multilevel.HedgePolicy;
+import ge.imikhailov.omno.cache.multilevel.L2BypassPolicy;
+import ge.imikhailov.omno.cache.multilevel.LoadLease;
+import ge.imikhailov.omno.cache.multilevel.MissBatchingPolicy;
 import ge.imikhailov.omno.cache.multilevel.MultiLevelCacheManager;
+import ge.imikhailov.omno.cache.multilevel.MultiLevelCacheOptions;
+import ge.imikhailov.omno.cache.multilevel.RefreshPolicy;
+import ge.imikhailov.omno.cache.multilevel.WriteBehindPolicy;
+import ge.imikhailov.omno.cache.offheap.OffHeapCacheManager;
+import ge.imikhailov.omno.cache.primitive.LongKeyCache;
+import ge.imikhailov.omno.cache.primitive.LongKeyCacheManager;
 import ge.imikhailov.omno.cache.pubsub.CacheInvalidationPublisher;
+import ge.imikhailov.omno.cache.redis.CompressingRedisSerializer;
+import ge.imikhailov.omno.cache.redis.PriceEntryRedisSerializer;
+import ge.imikhailov.omno.cache.redis.RedisLoadLease;
+import ge.imikhailov.omno.cache.snapshot.L1Snapshot;
 import ge.imikhailov.omno.metrics.CacheMetricsFactory;
 import io.github.resilience4j.circuitbreaker.CircuitBreaker;
 import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import jakarta.annotation.PreDestroy;
+import org.jspecify.annotations.Nullable;
 import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.support.CompositeCacheManager;
 import org.springframework.cache.support.NoOpCacheManager;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -23,74 +44,252 @@ import org.springframework.data.redis.serializer.RedisSerializationContext;
 import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
 import java.time.Duration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.TimeUnit;
 
 @Configuration
+@EnableConfigurationProperties({L2CompressionProperties.class, CacheSpecProperties.class})
 public class CacheConfig {
 
+    // Refresh executors of caches with their own concurrency limit; closed with the context
+    private final List<BoundedRefreshExecutor> cacheRefreshExecutors = new CopyOnWriteArrayList<>();
+
     @Value("${cache.enabled:true}")
     private boolean cacheEnabled;
 
     @Value("${cache.l1.maximum-size:10000}")
     private long l1MaximumSize;
 
+    // Byte budget per cache (estimated retained heap); replaces the entry count when set
+    @Value("${cache.l1.maximum-weight:0B}")
+    private DataSize l1MaximumWeight;
+
     @Value("${cache.l1.ttl:10m}")
     private Duration l1Ttl;
 
+    @Value("${cache.l1.ttl-jitter:0.0}")
+    private double l1TtlJitter;
+
     @Value("${cache.l2.ttl:1h}")
     private Duration l2Ttl;
 
+    @Value("${cache.l2.ttl-jitter:0.0}")
+    private double l2TtlJitter;
+
     @Value("${cache.refresh.soft-ttl-ratio:0.8}")
     private double softTtlRatio;
 
+    @Value("${cache.refresh.mode:ratio}")
+    private String refreshMode;
+
+    @Value("${cache.refresh.xfetch-beta:1.0}")
+    private double xfetchBeta;
+
+    // Bound refresh loads by the JDBC pool they run on: more concurrent loads would only queue inside Hikari.
+    // Loads are read-only transactions, so with a read replica that is the replica pool (see DataSourceConfig)
+    @Value("${cache.refresh.executor.max-concurrency:}")
+    private @Nullable Integer refreshMaxConcurrency;
+
+    @Value("${db.replica.enabled:false}")
+    private boolean replicaEnabled;
+
+    @Value("${db.replica.hikari.maximum-pool-size:10}")
+    private int replicaPoolSize;
+
+    @Value("${spring.datasource.hikari.maximum-pool-size:10}")
+    private int primaryPoolSize;
+
+    @Value("${cache.refresh.executor.queue-capacity:1000}")
+    private int refreshQueueCapacity;
+
+    // binary = compact PriceEntryRedisSerializer format, json = keep writing JSON (both are always readable).
+    // Defaults to json so that a rollout never writes entries that replicas still on older code cannot read
+    @Value("${cache.l2.codec:json}")
+    private String l2Codec;
+
     @Value("${cache.l2.prefix:}")
     private String l2Prefix;
 
+    @Value("${cache.l2.write-behind.enabled:false}")
+    private boolean l2WriteBehindEnabled;
+
+    @Value("${cache.l2.write-behind.capacity:10000}")
+    private int l2WriteBehindCapacity;
+
+    @Value("${cache.l2.write-behind.batch-size:64}")
+    private int l2WriteBehindBatchSize;
+
+    // Coalesce concurrent misses of different keys into one bulk load (PriceService.getPrice)
+    @Value("${cache.miss-batching.enabled:false}")
+    private boolean missBatchingEnabled;
+
+    @Value("${cache.miss-batching.window:2ms}")
+    private Duration missBatchingWindow;
+
+    @Value("${cache.miss-batching.max-size:64}")
+    private int missBatchingMaxSize;
+
+    @Value("${cache.l2.bypass.enabled:false}")
+    private boolean l2BypassEnabled;
+
+    @Value("${cache.l2.bypass.alpha:0.1}")
+    private double l2BypassAlpha;
+
+    @Value("${cache.l2.bypass.max-ratio:0.9}")
+    private double l2BypassMaxRatio;
+
+    @Value("${cache.l2.hedge.enabled:false}")
+    private boolean l2HedgeEnabled;
+
+    @Value("${cache.l2.hedge.percentile:0.95}")
+    private double l2HedgePercentile;
+
+    @Value("${cache.l2.hedge.min-delay:2ms}")
+    private Duration l2HedgeMinDelay;
+
+    // Beyond the Redis client timeout the lookup fails anyway
+    @Value("${cache.l2.hedge.max-delay:${spring.data.redis.timeout:50ms}}")
+    private Duration l2HedgeMaxDelay;
+
+    @Value("${cache.l1.snapshot.path:${java.io.tmpdir}/omno-l1.snapshot}")
+    private Path l1SnapshotPath;
+
+    @Value("${cache.l1.snapshot.interval:5m}")
+    private Duration l1SnapshotInterval;
+
+    @Value("${cache.l1.snapshot.max-entries:${cache.l1.maximum-size:10000}}")
+    private int l1SnapshotMaxEntries;
+
+    @Value("${cache.offheap.capacity:256MB}")
+    private DataSize offHeapCapacity;
+
+    @Value("${cache.offheap.segments:16}")
+    private int offHeapSegments;
+
+    @Value("${cache.offheap.ttl:30m}")
+    private Duration offHeapTtl;
+
+    @Value("${cache.single-flight.distributed.lease-ttl:5s}")
+    private Duration leaseTtl;
+
+    @Value("${cache.single-flight.distributed.max-wait:${cache.single-flight.distributed.lease-ttl:5s}}")
+    private Duration leaseMaxWait;
+
+    @Value("${cache.single-flight.distributed.poll-interval:25ms}")
+    private Duration leasePollInterval;
+
     @Bean
     @ConditionalOnProperty(prefix = "cache.l1", name = "enabled", havingValue = "true", matchIfMissing = true)
     public Caffeine<Object, Object> caffeineConfig() {
-        return Caffeine.newBuilder()
-                .maximumSize(l1MaximumSize)
-                .expireAfterWrite(l1Ttl.toMillis(), TimeUnit.MILLISECONDS)
-                .recordStats();
+        return l1Builder(l1MaximumSize, l1MaximumWeight, l1Ttl, null);
     }
 
     @Bean
     @ConditionalOnProperty(prefix = "cache.l1", name = "enabled", havingValue = "true", matchIfMissing = true)
-    public CaffeineCacheManager caffeineCacheManager(final Caffeine<Object, Object> caffeine) {
+    public CaffeineCacheManager caffeineCacheManager(final Caffeine<Object, Object> caffeine, final CacheSpecProperties cacheSpecs) {
         final CaffeineCacheManager manager = new CaffeineCacheManager();
         manager.setCaffeine(caffeine);
+        cacheSpecs.specs().forEach((name, spec) -> {
+            if (!spec.longKeyL1() && (spec.l1MaximumSize() != null || spec.l1MaximumWeight() != null || spec.l1Ttl() != null
+                    || spec.negativeCaching())) {
+                manager.registerCustomCache(name, l1Builder(
+                        spec.l1MaximumSize() != null ? spec.l1MaximumSize() : l1MaximumSize,
+                        spec.l1MaximumWeight() != null ? spec.l1MaximumWeight() : l1MaximumWeight,
+                        l1Ttl(spec), negativeTtl(spec)).build());
+            }
+        });
         return manager;
     }
 
+    @Bean
+    @ConditionalOnProperty(prefix = "cache.l1", name = "enabled", havingValue = "true", matchIfMissing = true)
+    public LongKeyCacheManager longKeyCacheManager(final CacheSpecProperties cacheSpecs) {
+        final Map<String, LongKeyCache> caches = new HashMap<>();
+        cacheSpecs.specs().forEach((name, spec) -> {
+            if (spec.longKeyL1()) {
+                caches.put(name, new LongKeyCache(name, spec.l1MaximumSize() != null ? spec.l1MaximumSize() : l1MaximumSize, l1Ttl(spec)));
+            }
+        });
+        return new LongKeyCacheManager(caches);
+    }
+
+    private Caffeine<Object, Object> l1Builder(final long maximumSize, final DataSize maximumWeight, final Duration ttl,
+                                               final @Nullable Duration negativeTtl) {
+        final Caffeine<Object, Object> builder = Caffeine.newBuilder().recordStats();
+        if (maximumWeight.toBytes() > 0) {
+            builder.maximumWeight(maximumWeight.toBytes()).weigher(L1Weigher.INSTANCE);
+        } else {
+            builder.maximumSize(maximumSize);
+        }
+        if (l1TtlJitter > 0.0d || negativeTtl != null) {
+            return builder.expireAfter(TtlJitter.caffeineExpiry(ttl, l1TtlJitter, negativeTtl));
+        }
+        return builder.expireAfterWrite(ttl.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
     @Bean
     @ConditionalOnProperty(prefix = "cache.l2", name = "enabled", havingValue = "true", matchIfMissing = true)
-    public RedisCacheManager redisCacheManager(final RedisConnectionFactory connectionFactory) {
+    public RedisCacheManager redisCacheManager(final RedisConnectionFactory connectionFactory,
+                                               final L2CompressionProperties compression,
+                                               final CacheSpecProperties cacheSpecs,
+                                               final CacheMetricsFactory cacheMetricsFactory) {
 
         RedisCacheConfiguration config = RedisCacheConfiguration
                 .defaultCacheConfig()
-                .entryTtl(l2Ttl)
+                .entryTtl(TtlJitter.redisTtl(l2Ttl, l2TtlJitter))
                 .disableCachingNullValues()
-                .serializeKeysWith(RedisSerializationContext.SerializationPair.fromSerializer(new StringRedisSerializer()))
-                .serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(RedisSerializer.json()));
+                .serializeKeysWith(RedisSerializationContext.SerializationPair.fromSerializer(new StringRedisSerializer()));
 
         if (l2Prefix != null && !l2Prefix.isBlank()) {
             config = config.prefixCacheNameWith(l2Prefix);
         }
 
-        return RedisCacheManager
+        final RedisCacheManager.RedisCacheManagerBuilder builder = RedisCacheManager
                 .builder(connectionFactory)
-                .cacheDefaults(config)
+                .cacheDefaults(config.serializeValuesWith(valueSerializer("default", compression, cacheMetricsFactory)));
+        // Caches with their own TTL or compression threshold get their own configuration (and metrics tag)
+        final Set<String> customized = new HashSet<>(compression.thresholds().keySet());
+        cacheSpecs.specs().forEach((name, spec) -> {
+            if (spec.l2Ttl() != null || spec.negativeCaching()) customized.add(name);
+        });
+        for (String cacheName : customized) {
+            final CacheSpecProperties.Spec spec = cacheSpecs.specs().get(cacheName);
+            final RedisCacheConfiguration cacheConfig = spec != null
+                    ? config.entryTtl(TtlJitter.redisTtl(spec.l2Ttl() != null ? spec.l2Ttl() : l2Ttl, l2TtlJitter, negativeTtl(spec)))
+                    : config;
+            builder.withCacheConfiguration(cacheName, cacheConfig.serializeValuesWith(valueSerializer(cacheName, compression, cacheMetricsFactory)));
+        }
+        return builder
                 .transactionAware()
                 .build();
     }
 
+    private RedisSerializationContext.SerializationPair<Object> valueSerializer(final String cacheName,
+                                                                               final L2CompressionProperties compression,
+                                                                               final CacheMetricsFactory cacheMetricsFactory) {
+        RedisSerializer<Object> serializer = new PriceEntryRedisSerializer(RedisSerializer.json(), "binary".equalsIgnoreCase(l2Codec));
+        if (compression.enabled()) {
+            serializer = new CompressingRedisSerializer(serializer, compression.thresholdBytes(cacheName), compression.level(),
+                    cacheMetricsFactory.createCompressionMetrics(cacheName));
+        }
+        return RedisSerializationContext.SerializationPair.fromSerializer(serializer);
+    }
+
     @Bean
     @ConditionalOnProperty(prefix = "cache.l2", name = "enabled", havingValue = "true", matchIfMissing = true)
     public CircuitBreakerRedisCacheManager circuitBreakerRedisCache(final RedisCacheManager redisCacheManager,
-                                                                    final CircuitBreaker cacheL2CircuitBreaker) {
-        return new CircuitBreakerRedisCacheManager(redisCacheManager, cacheL2CircuitBreaker);
+                                                                    final CircuitBreaker cacheL2CircuitBreaker,
+                                                                    final RedisConnectionFactory connectionFactory) {
+        return new CircuitBreakerRedisCacheManager(redisCacheManager, cacheL2CircuitBreaker, connectionFactory);
     }
 
     @Bean
@@ -100,11 +299,51 @@ public class CacheConfig {
         return registry.circuitBreaker("cacheL2");
     }
 
+    @Bean
+    @ConditionalOnProperty(prefix = "cache.l1.snapshot", name = "enabled", havingValue = "true")
+    @ConditionalOnBean(CaffeineCacheManager.class)
+    public L1Snapshot l1Snapshot(final CaffeineCacheManager caffeineCacheManager,
+                                 final ObjectProvider<LongKeyCacheManager> longKeyCacheManager,
+                                 final CacheSpecProperties cacheSpecs) {
+        final LongKeyCacheManager longKeyL1 = longKeyCacheManager.getIfAvailable();
+        final CacheManager local = longKeyL1 != null ? new CompositeCacheManager(longKeyL1, caffeineCacheManager) : caffeineCacheManager;
+        return new L1Snapshot(local, new PriceEntryRedisSerializer(RedisSerializer.json()),
+                l1SnapshotPath, l1SnapshotMaxEntries, name -> softTtl(cacheSpecs.specs().get(name)), l1SnapshotInterval);
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "cache.offheap", name = "enabled", havingValue = "true")
+    public OffHeapCacheManager offHeapCacheManager() {
+        // Same compact format as L2; values are serialized into direct memory outside the GC-traced heap
+        return new OffHeapCacheManager(new PriceEntryRedisSerializer(RedisSerializer.json()),
+                offHeapCapacity.toBytes(), offHeapSegments, offHeapTtl);
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "cache.single-flight.distributed", name = "enabled", havingValue = "true")
+    public LoadLease cacheLoadLease(final RedisConnectionFactory connectionFactory) {
+        return new RedisLoadLease(connectionFactory, l2Prefix, leaseTtl);
+    }
+
+    @Bean(destroyMethod = "close")
+    public BoundedRefreshExecutor cacheRefreshExecutor(final CacheMetricsFactory cacheMetricsFactory) {
+        final int maxConcurrency = refreshMaxConcurrency != null ? refreshMaxConcurrency
+                : replicaEnabled ? replicaPoolSize : primaryPoolSize;
+        return new BoundedRefreshExecutor("default", maxConcurrency, refreshQueueCapacity, cacheMetricsFactory);
+    }
+
     @Bean
     @Primary
     public CacheManager primaryCacheManager(final ObjectProvider<CaffeineCacheManager> caffeineCacheManager,
+                                            final ObjectProvider<LongKeyCacheManager> longKeyCacheManager,
                                             final ObjectProvider<CircuitBreakerRedisCacheManager> circuitBreakerRedisCacheManager,
+                                            final ObjectProvider<OffHeapCacheManager> offHeapCacheManager,
                                             final ObjectProvider<CacheInvalidationPublisher> publisherProvider,
+                                            final ObjectProvider<LoadLease> loadLease,
+                                            final ObjectProvider<AbsentKeys> absentKeys,
+                                            final ObjectProvider<ValueVersions> valueVersions,
+                                            final BoundedRefreshExecutor cacheRefreshExecutor,
+                                            final CacheSpecProperties cacheSpecs,
                                             final CacheMetricsFactory cacheMetricsFactory) {
         if (!cacheEnabled) {
             return new NoOpCacheManager();
@@ -114,13 +353,90 @@ public class CacheConfig {
         final CircuitBreakerRedisCacheManager l2 = circuitBreakerRedisCacheManager.getIfAvailable();
 
         if (l1 != null && l2 != null) {
-            // Soft TTL for stale-while-revalidate: refresh slightly before L1 TTL expires.
-            final double ratio = Math.max(0.0d, Math.min(softTtlRatio, 1.0d));
-            final Duration softTtl = l1Ttl.isZero() ? Duration.ZERO : Duration.ofMillis(Math.max(1L, (long) (l1Ttl.toMillis() * ratio)));
-            return new MultiLevelCacheManager(l1, l2, publisherProvider.getIfAvailable(), softTtl, cacheMetricsFactory);
+            // Caches configured with l1-type: long use the primitive-keyed L1, every other name Caffeine
+            final LongKeyCacheManager longKeyL1 = longKeyCacheManager.getIfAvailable();
+            final CacheManager local = longKeyL1 != null && !longKeyL1.getCacheNames().isEmpty()
+                    ? new CompositeCacheManager(longKeyL1, l1)
+                    : l1;
+            final LoadLease lease = loadLease.getIfAvailable();
+            final MultiLevelCacheOptions options = MultiLevelCacheOptions.builder()
+                    .refreshPolicy(refreshPolicy(softTtl()))
+                    .refreshExecutor(cacheRefreshExecutor)
+                    .distributedSingleFlight(lease != null ? new DistributedSingleFlight(lease, leaseMaxWait, leasePollInterval) : null)
+                    .writeBehind(l2WriteBehindEnabled ? new WriteBehindPolicy(l2WriteBehindCapacity, l2WriteBehindBatchSize) : null)
+                    .missBatching(missBatchingEnabled ? new MissBatchingPolicy(missBatchingWindow, missBatchingMaxSize) : null)
+                    .l2Bypass(l2BypassEnabled ? new L2BypassPolicy(l2BypassAlpha, l2BypassMaxRatio) : null)
+                    .hedge(l2HedgeEnabled ? new HedgePolicy(l2HedgePercentile, l2HedgeMinDelay, l2HedgeMaxDelay) : null)
+                    .build();
+            final Map<String, AbsentKeys> absent = new HashMap<>();
+            absentKeys.orderedStream().forEach(a -> absent.put(a.cacheName(), a));
+            final Map<String, MultiLevelCacheOptions> cacheOptions = new HashMap<>();
+            cacheSpecs.specs().forEach((name, spec) -> cacheOptions.put(name, cacheOptions(name, spec, absent.get(name), options, cacheMetricsFactory)));
+            valueVersions.orderedStream().forEach(v -> cacheOptions.compute(v.cacheName(),
+                    (name, o) -> (o != null ? o : options).toBuilder().version(v.version()).build()));
+            // Closed with the context (inferred close()): flushes write-behind queues and pending miss batches
+            return new MultiLevelCacheManager(local, offHeapCacheManager.getIfAvailable(), l2, publisherProvider.getIfAvailable(),
+                    options, cacheOptions, cacheMetricsFactory);
         }
         if (l1 != null) return l1;
         if (l2 != null) return l2;
         return new NoOpCacheManager();
     }
+
+    private MultiLevelCacheOptions cacheOptions(final String name,
+                                                final CacheSpecProperties.Spec spec,
+                                                final @Nullable AbsentKeys absentKeys,
+                                                final MultiLevelCacheOptions defaults,
+                                                final CacheMetricsFactory cacheMetricsFactory) {
+        final MultiLevelCacheOptions.MultiLevelCacheOptionsBuilder builder = defaults.toBuilder()
+                .refreshPolicy(refreshPolicy(softTtl(spec)));
+        if (spec.refreshMaxConcurrency() != null) {
+            final BoundedRefreshExecutor executor = new BoundedRefreshExecutor(name, spec.refreshMaxConcurrency(),
+                    spec.refreshQueueCapacity() != null ? spec.refreshQueueCapacity() : refreshQueueCapacity, cacheMetricsFactory);
+            cacheRefreshExecutors.add(executor);
+            builder.refreshExecutor(executor);
+        }
+        if (spec.negativeCaching()) {
+            if (absentKeys == null) {
+                throw new IllegalStateException("cache.specs." + name + ".negative-ttl is set, but no AbsentKeys bean is declared for cache '" + name + "'");
+            }
+            builder.negativeCaching(absentKeys.negativeCaching(spec.negativeTtl()));
+        }
+        return builder.build();
+    }
+
+    @PreDestroy
+    void closeCacheRefreshExecutors() {
+        cacheRefreshExecutors.forEach(BoundedRefreshExecutor::close);
+    }
+
+    private RefreshPolicy refreshPolicy(final Duration softTtl) {
+        return "xfetch".equalsIgnoreCase(refreshMode)
+                ? RefreshPolicy.xfetch(softTtl, xfetchBeta)
+                : RefreshPolicy.fixed(softTtl);
+    }
+
+    private Duration l1Ttl(final CacheSpecProperties.Spec spec) {
+        return spec.l1Ttl() != null ? spec.l1Ttl() : l1Ttl;
+    }
+
+    private Duration softTtl() {
+        return softTtl(l1Ttl, softTtlRatio);
+    }
+
+    private Duration softTtl(final CacheSpecProperties.@Nullable Spec spec) {
+        return spec != null
+                ? softTtl(l1Ttl(spec), spec.softTtlRatio() != null ? spec.softTtlRatio() : softTtlRatio)
+                : softTtl();
+    }
+
+    // Soft TTL for stale-while-revalidate: refresh slightly before L1 TTL expires.
+    private static Duration softTtl(final Duration ttl, final double softTtlRatio) {
+        final double ratio = Math.max(0.0d, Math.min(softTtlRatio, 1.0d));
+        return ttl.isZero() ? Duration.ZERO : Duration.ofMillis(Math.max(1L, (long) (ttl.toMillis() * ratio)));
+    }
+
+    private static @Nullable Duration negativeTtl(final CacheSpecProperties.Spec spec) {
+        return spec.negativeCaching() ? spec.negativeTtl() : null;
+    }
 }
@@ -0,0 +1,59 @@
+package ge.imikhailov.omno.cache.config;
+
+import org.jspecify.annotations.Nullable;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Per-cache sizing, keyed by cache name ({@code cache.specs.<name>.*}). Every field is optional and falls back
+ * to the global {@code cache.l1.*}, {@code cache.l2.*} and {@code cache.refresh.*} settings.
+ *
+ * @param specs overrides by cache name
+ */
+@ConfigurationProperties("cache")
+public record CacheSpecProperties(Map<String, Spec> specs) {
+
+    public CacheSpecProperties {
+        specs = specs == null ? Map.of() : Map.copyOf(specs);
+    }
+
+    /**
+     * @param l1MaximumSize         maximum number of L1 entries
+     * @param l1Ttl                 L1 time-to-live; the soft TTL is derived from it
+     * @param l2Ttl                 Redis time-to-live
+     * @param softTtlRatio          refresh once an entry is this fraction of {@code l1Ttl} old
+     * @param refreshMaxConcurrency gives the cache its own refresh executor with this many concurrent loads
+     * @param refreshQueueCapacity  queue capacity of that executor
+     * @param l1Type                L1 implementation; {@code long} for caches keyed by numeric ids
+     * @param l1MaximumWeight       L1 byte budget (estimated retained heap, Caffeine only); replaces {@code l1MaximumSize}
+     * @param negativeTtl           lifetime of "not found" tombstones; needs a {@link AbsentKeys} bean for the cache,
+     *                              unset or zero disables negative caching
+     */
+    public record Spec(@Nullable Long l1MaximumSize,
+                       @Nullable Duration l1Ttl,
+                       @Nullable Duration l2Ttl,
+                       @Nullable Double softTtlRatio,
+                       @Nullable Integer refreshMaxConcurrency,
+                       @Nullable Integer refreshQueueCapacity,
+                       @Nullable L1Type l1Type,
+                       @Nullable DataSize l1MaximumWeight,
+                       @Nullable Duration negativeTtl) {
+
+        public boolean longKeyL1() {
+            return l1Type == L1Type.LONG;
+        }
+
+        public boolean negativeCaching() {
+            return negativeTtl != null && !negativeTtl.isZero() && !negativeTtl.isNegative();
+        }
+    }
+
+    public enum L1Type {
+        CAFFEINE,
+        // Primitive long-keyed map (LongKeyCache); keys must be integral numbers
+        LONG
+    }
+}
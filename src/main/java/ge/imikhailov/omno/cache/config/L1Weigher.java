@@ -0,0 +1,43 @@
+package ge.imikhailov.omno.cache.config;
+
+import com.github.benmanes.caffeine.cache.Weigher;
+import ge.imikhailov.omno.cache.multilevel.CachedEntry;
+import ge.imikhailov.omno.dto.PriceDto;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Estimated retained heap of an L1 entry in bytes, for a byte-budgeted Caffeine cache
+ * ({@code maximumWeight}). Sizes assume a 64-bit JVM with compressed oops (12-byte headers, 4-byte references,
+ * 8-byte alignment) and cover the cache node, the boxed key, the {@link CachedEntry} and its value:
+ * a {@link PriceDto} reports its own compact size, other values are charged a flat {@value #OTHER_VALUE} bytes.
+ */
+public final class L1Weigher implements Weigher<Object, Object> {
+
+    // Caffeine node with expiry and weight (key/value refs, access/write times, queue links) plus a boxed Long key
+    static final int NODE_AND_KEY = 64 + 16;
+    static final int CACHED_ENTRY = 40;
+    static final int OTHER_VALUE = 64;
+
+    public static final L1Weigher INSTANCE = new L1Weigher();
+
+    private L1Weigher() {
+    }
+
+    @Override
+    public int weigh(final Object key, final Object value) {
+        return (int) Math.min(Integer.MAX_VALUE, NODE_AND_KEY + weigh(value));
+    }
+
+    /**
+     * Estimated size of the value alone (without node and key).
+     */
+    public static long weigh(final @Nullable Object value) {
+        if (value instanceof CachedEntry e) {
+            return CACHED_ENTRY + (e.isAbsent() ? 0 : weigh(e.getValue()));
+        }
+        if (value instanceof PriceDto dto) {
+            return dto.retainedBytes();
+        }
+        return value == null ? 0 : OTHER_VALUE;
+    }
+}
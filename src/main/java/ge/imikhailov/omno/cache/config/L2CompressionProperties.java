@@ -0,0 +1,31 @@
+package ge.imikhailov.omno.cache.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.util.unit.DataSize;
+
+import java.util.Map;
+
+/**
+ * Opt-in deflate compression of L2 values.
+ *
+ * @param enabled    compress at all
+ * @param threshold  default minimum serialized size to compress
+ * @param level      deflate level (1 = fastest, 9 = smallest)
+ * @param thresholds per-cache overrides of {@code threshold}, keyed by cache name
+ */
+@ConfigurationProperties("cache.l2.compression")
+public record L2CompressionProperties(
+        @DefaultValue("false") boolean enabled,
+        @DefaultValue("1KB") DataSize threshold,
+        @DefaultValue("1") int level,
+        Map<String, DataSize> thresholds
+) {
+    public L2CompressionProperties {
+        thresholds = thresholds == null ? Map.of() : Map.copyOf(thresholds);
+    }
+
+    public int thresholdBytes(final String cacheName) {
+        return (int) thresholds.getOrDefault(cacheName, threshold).toBytes();
+    }
+}
@@ -0,0 +1,78 @@
+package ge.imikhailov.omno.cache.config;
+
+import com.github.benmanes.caffeine.cache.Expiry;
+import ge.imikhailov.omno.cache.multilevel.CachedEntry;
+import org.jspecify.annotations.Nullable;
+import org.springframework.data.redis.cache.RedisCacheWriter;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Randomizes per-entry TTLs so that keys written in the same instant (seed, CLEAR_ALL, restart)
+ * do not all expire in the same instant on every replica.
+ * <p>
+ * Jitter only shortens the TTL: with {@code fraction = 0.1} an entry lives uniformly between
+ * 90% and 100% of the configured TTL, so the configured value stays an upper bound for staleness.
+ * <p>
+ * Tombstones ({@link CachedEntry#isAbsent()}) get the negative-caching TTL instead, without jitter.
+ */
+public final class TtlJitter {
+
+    private TtlJitter() {
+    }
+
+    static long jitteredNanos(final Duration ttl, final double fraction) {
+        final long nanos = ttl.toNanos();
+        final double f = Math.max(0.0d, Math.min(fraction, 1.0d));
+        if (nanos <= 0 || f == 0.0d) {
+            return nanos;
+        }
+        final long spread = (long) (nanos * f);
+        return nanos - ThreadLocalRandom.current().nextLong(spread + 1);
+    }
+
+    static long entryNanos(final Object value, final Duration ttl, final double fraction, final @Nullable Duration negativeTtl) {
+        if (negativeTtl != null && value instanceof CachedEntry e && e.isAbsent()) {
+            return negativeTtl.toNanos();
+        }
+        return jitteredNanos(ttl, fraction);
+    }
+
+    /**
+     * Caffeine expiry equivalent to {@code expireAfterWrite(ttl)} with a jittered duration per write.
+     */
+    public static Expiry<Object, Object> caffeineExpiry(final Duration ttl, final double fraction) {
+        return caffeineExpiry(ttl, fraction, null);
+    }
+
+    public static Expiry<Object, Object> caffeineExpiry(final Duration ttl, final double fraction, final @Nullable Duration negativeTtl) {
+        return new Expiry<>() {
+            @Override
+            public long expireAfterCreate(Object key, Object value, long currentTime) {
+                return entryNanos(value, ttl, fraction, negativeTtl);
+            }
+
+            @Override
+            public long expireAfterUpdate(Object key, Object value, long currentTime, long currentDuration) {
+                return entryNanos(value, ttl, fraction, negativeTtl);
+            }
+
+            @Override
+            public long expireAfterRead(Object key, Object value, long currentTime, long currentDuration) {
+                return currentDuration;
+            }
+        };
+    }
+
+    /**
+     * Redis cache TTL function with a jittered duration per write.
+     */
+    public static RedisCacheWriter.TtlFunction redisTtl(final Duration ttl, final double fraction) {
+        return redisTtl(ttl, fraction, null);
+    }
+
+    public static RedisCacheWriter.TtlFunction redisTtl(final Duration ttl, final double fraction, final @Nullable Duration negativeTtl) {
+        return (key, value) -> Duration.ofNanos(entryNanos(value, ttl, fraction, negativeTtl));
+    }
+}
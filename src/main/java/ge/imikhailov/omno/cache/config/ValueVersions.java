@@ -0,0 +1,13 @@
+package ge.imikhailov.omno.cache.config;
+
+import java.util.function.ToLongFunction;
+
+/**
+ * How to read the version of one cache's values. Declared as a bean by the code that owns the cache, so that
+ * versioned writes order entries without the cache layer knowing their types.
+ *
+ * @param cacheName cache the function applies to
+ * @param version   version of a cached value, {@code 0} when unknown
+ */
+public record ValueVersions(String cacheName, ToLongFunction<Object> version) {
+}
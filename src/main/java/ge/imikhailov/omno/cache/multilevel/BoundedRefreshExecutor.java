@@ -0,0 +1,129 @@
+package ge.imikhailov.omno.cache.multilevel;
+
+import ge.imikhailov.omno.metrics.CacheMetricsFactory;
+import ge.imikhailov.omno.metrics.RefreshExecutorMetrics;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Refresh executor for blocking loaders (JPA) running on virtual threads.
+ * <ul>
+ *     <li>At most {@code maxConcurrency} loads run at once; size it to the JDBC pool so loads wait here
+ *     (measured) instead of inside Hikari (opaque), and never starve the pool for other callers.</li>
+ *     <li>Queued tasks wait in two FIFO queues; {@link Priority#FOREGROUND} tasks always start before
+ *     {@link Priority#BACKGROUND} ones.</li>
+ *     <li>Each queue holds at most {@code queueCapacity} tasks; beyond that {@link #execute} rejects. A rejected
+ *     background refresh just means the stale value is served a little longer.</li>
+ * </ul>
+ * Queue depth, wait time and rejections are exported through {@link CacheMetricsFactory}.
+ */
+@Slf4j
+public class BoundedRefreshExecutor implements RefreshExecutor, AutoCloseable {
+
+    private final String name;
+    private final int maxConcurrency;
+    private final int queueCapacity;
+    private final ThreadFactory threadFactory;
+    private final RefreshExecutorMetrics metrics;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final ArrayDeque<Task> foreground = new ArrayDeque<>();
+    private final ArrayDeque<Task> background = new ArrayDeque<>();
+    private int running;
+    private boolean shutdown;
+
+    private record Task(Runnable runnable, Priority priority, long enqueuedNanos) {
+    }
+
+    public BoundedRefreshExecutor(String name, int maxConcurrency, int queueCapacity, CacheMetricsFactory cacheMetricsFactory) {
+        if (maxConcurrency < 1) throw new IllegalArgumentException("maxConcurrency must be >= 1");
+        if (queueCapacity < 0) throw new IllegalArgumentException("queueCapacity must be >= 0");
+        this.name = name;
+        this.maxConcurrency = maxConcurrency;
+        this.queueCapacity = queueCapacity;
+        this.threadFactory = Thread.ofVirtual().name("cache-refresh-" + name + "-", 0).factory();
+        this.metrics = cacheMetricsFactory.createRefreshExecutorMetrics(name,
+                () -> queued(Priority.FOREGROUND), () -> queued(Priority.BACKGROUND), this::running);
+    }
+
+    @Override
+    public void execute(Runnable runnable, Priority priority) {
+        final Task task = new Task(runnable, priority, System.nanoTime());
+        lock.lock();
+        try {
+            if (shutdown) {
+                throw new RejectedExecutionException("Refresh executor " + name + " is shut down");
+            }
+            if (running < maxConcurrency) {
+                running++;
+            } else {
+                final ArrayDeque<Task> queue = priority == Priority.FOREGROUND ? foreground : background;
+                if (queue.size() >= queueCapacity) {
+                    metrics.rejectedIncrement(priority);
+                    throw new RejectedExecutionException("Refresh queue full (" + priority + ", capacity " + queueCapacity + ") for " + name);
+                }
+                queue.addLast(task);
+                return;
+            }
+        } finally {
+            lock.unlock();
+        }
+        threadFactory.newThread(() -> drain(task)).start();
+    }
+
+    // A worker runs its first task, then keeps taking queued tasks (foreground first) until both queues are empty
+    private void drain(Task first) {
+        Task task = first;
+        while (task != null) {
+            metrics.recordWait(task.priority(), System.nanoTime() - task.enqueuedNanos());
+            try {
+                task.runnable().run();
+            } catch (Throwable t) {
+                log.warn("Cache refresh task failed on executor {}", name, t);
+            }
+            lock.lock();
+            try {
+                task = foreground.pollFirst();
+                if (task == null) task = background.pollFirst();
+                if (task == null) running--;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    int queued(Priority priority) {
+        lock.lock();
+        try {
+            return priority == Priority.FOREGROUND ? foreground.size() : background.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int running() {
+        lock.lock();
+        try {
+            return running;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Stops accepting tasks. Queued tasks are still drained by the running workers.
+     */
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            shutdown = true;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package ge.imikhailov.omno.cache.multilevel;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Optional multi-key contract for cache levels that can serve several keys in one round trip
+ * (e.g., Redis MGET / pipelined SET). {@link MultiLevelCache} falls back to per-key calls
+ * when a level does not implement it.
+ */
+public interface BulkCache {
+
+    /**
+     * Look up several keys at once.
+     *
+     * @return stored values for the keys that are present; absent keys are simply not in the map
+     */
+    Map<Object, Object> getAll(Collection<?> keys);
+
+    /**
+     * Store several entries at once. Null values are skipped.
+     */
+    void putAll(Map<?, ?> entries);
+}
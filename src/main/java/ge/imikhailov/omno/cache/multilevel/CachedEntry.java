@@ -1,17 +1,49 @@
 package ge.imikhailov.omno.cache.multilevel;
 
-import lombok.AllArgsConstructor;
-import lombok.Data;
-import lombok.NoArgsConstructor;
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Value;
+import org.springframework.cache.Cache;
 
 /**
  * Wrapper stored in caches to support soft TTL and stale-while-revalidate.
  * Serialized to Redis via JSON serializer.
+ * <p>
+ * An entry with {@code absent = true} is a tombstone: the loader reported that the key does not exist.
+ * {@code version} comes from the cache's version function ({@link MultiLevelCacheOptions#getVersion()}, {@code 0} when
+ * unknown) and orders concurrent writes.
+ * <p>
+ * Also a {@link Cache.ValueWrapper} of its value, so L1 hits can hand the stored entry out as is; it is immutable,
+ * since every reader of the key shares that instance.
  */
-@Data
-@NoArgsConstructor
-@AllArgsConstructor
-public class CachedEntry {
-    private Object value;
-    private long writeTimeMs;
+@Value
+public class CachedEntry implements Cache.ValueWrapper {
+    Object value;
+    long writeTimeMs;
+    boolean absent;
+    long version;
+
+    @JsonCreator
+    public CachedEntry(@JsonProperty("value") Object value,
+                       @JsonProperty("writeTimeMs") long writeTimeMs,
+                       @JsonProperty("absent") boolean absent,
+                       @JsonProperty("version") long version) {
+        this.value = value;
+        this.writeTimeMs = writeTimeMs;
+        this.absent = absent;
+        this.version = version;
+    }
+
+    public CachedEntry(Object value, long writeTimeMs) {
+        this(value, writeTimeMs, false, 0L);
+    }
+
+    @Override
+    public Object get() {
+        return value;
+    }
+
+    public static CachedEntry tombstone(long writeTimeMs) {
+        return new CachedEntry(null, writeTimeMs, true, 0L);
+    }
 }
@@ -0,0 +1,30 @@
+package ge.imikhailov.omno.cache.multilevel;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Wall clock in milliseconds, refreshed by a daemon thread about once per millisecond.
+ * Reads are a single volatile load, which keeps {@code System.currentTimeMillis()} off the L1 hit path;
+ * the value may lag by a tick, which is irrelevant next to soft TTLs measured in seconds.
+ */
+final class CoarseClock {
+
+    private static volatile long nowMs = System.currentTimeMillis();
+
+    static {
+        Thread.ofPlatform().daemon().name("omno-coarse-clock").start(() -> {
+            while (true) {
+                nowMs = System.currentTimeMillis();
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+            }
+        });
+    }
+
+    private CoarseClock() {
+    }
+
+    static long millis() {
+        return nowMs;
+    }
+}
@@ -0,0 +1,15 @@
+package ge.imikhailov.omno.cache.multilevel;
+
+import java.time.Duration;
+
+/**
+ * Cross-replica single-flight settings: a foreground load first takes a {@link LoadLease}; replicas that do not
+ * get it poll L2 for the holder's result and load locally themselves once the lease is gone or {@code maxWait}
+ * has passed. Background refreshes that lose the race keep serving the stale value.
+ *
+ * @param lease        lease store shared by all replicas (Redis)
+ * @param maxWait      upper bound on waiting for another replica; should not exceed the lease TTL
+ * @param pollInterval delay between L2 lookups while waiting
+ */
+public record DistributedSingleFlight(LoadLease lease, Duration maxWait, Duration pollInterval) {
+}
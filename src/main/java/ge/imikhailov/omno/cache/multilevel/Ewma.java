@@ -0,0 +1,36 @@
+package ge.imikhailov.omno.cache.multilevel;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Exponentially weighted moving average of latency samples, so it follows recent behaviour rather than the
+ * whole process lifetime. Lock-free (CAS on the double's bits).
+ */
+final class Ewma {
+
+    private static final long UNSET = Double.doubleToRawLongBits(-1.0d);
+
+    private final double alpha;
+    private final AtomicLong average = new AtomicLong(UNSET);
+
+    Ewma(final double alpha) {
+        this.alpha = Math.max(0.001d, Math.min(alpha, 1.0d));
+    }
+
+    void record(final long nanos) {
+        long prev;
+        long next;
+        do {
+            prev = average.get();
+            final double current = Double.longBitsToDouble(prev);
+            next = Double.doubleToRawLongBits(current < 0.0d ? nanos : current + alpha * (nanos - current));
+        } while (!average.compareAndSet(prev, next));
+    }
+
+    /**
+     * @return the average in nanos, or {@code -1} before the first sample
+     */
+    double nanos() {
+        return Double.longBitsToDouble(average.get());
+    }
+}
@@ -0,0 +1,21 @@
+package ge.imikhailov.omno.cache.multilevel;
+
+import java.time.Duration;
+
+/**
+ * Hedged L2 reads: when L2 has not answered after the {@code percentile} of its recent latency
+ * (clamped to {@code [minDelay, maxDelay]}), the database load starts as well and the first result wins.
+ * Until enough latencies are recorded the delay is {@code maxDelay}.
+ *
+ * @param percentile e.g. {@code 0.95} hedges roughly the slowest 5% of lookups
+ * @param minDelay   floor, so a very fast L2 does not turn every hiccup into a database hit
+ * @param maxDelay   ceiling; the Redis client timeout is a natural choice
+ */
+public record HedgePolicy(double percentile, Duration minDelay, Duration maxDelay) {
+
+    long delayNanos(final LatencyWindow window) {
+        final long observed = window.percentileNanos();
+        if (observed < 0) return maxDelay.toNanos();
+        return Math.max(minDelay.toNanos(), Math.min(observed, maxDelay.toNanos()));
+    }
+}
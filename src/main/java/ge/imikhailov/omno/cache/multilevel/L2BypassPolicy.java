@@ -0,0 +1,13 @@
+package ge.imikhailov.omno.cache.multilevel;
+
+/**
+ * Latency-adaptive L2 bypass: {@link MultiLevelCache} keeps an EWMA of L2 lookup latency and of loader
+ * (database) latency, and while L2 is the slower of the two sends a fraction {@code 1 - db/l2} of L2 reads
+ * straight to the loader. The remaining reads keep measuring L2, so routing returns to normal by itself
+ * once Redis recovers.
+ *
+ * @param alpha    EWMA weight of the newest sample, {@code (0, 1]}
+ * @param maxRatio upper bound on the bypassed fraction; must stay below 1 so L2 latency keeps being sampled
+ */
+public record L2BypassPolicy(double alpha, double maxRatio) {
+}
@@ -0,0 +1,50 @@
+package ge.imikhailov.omno.cache.multilevel;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Degraded-mode tracking for L2: the first failed operation (error or open breaker) enters it,
+ * the next successful one leaves it. Accumulates the time spent degraded.
+ */
+final class L2Health {
+
+    private static final long HEALTHY = 0L;
+
+    // System.nanoTime() when the current degraded period started, HEALTHY otherwise
+    private final AtomicLong degradedSince = new AtomicLong(HEALTHY);
+    private final AtomicLong degradedNanos = new AtomicLong();
+
+    boolean isDegraded() {
+        return degradedSince.get() != HEALTHY;
+    }
+
+    /**
+     * @return {@code true} if this failure started a degraded period
+     */
+    boolean failure() {
+        // A nanoTime of exactly 0 would read as healthy; nudge it
+        final long now = System.nanoTime() | 1L;
+        return degradedSince.get() == HEALTHY && degradedSince.compareAndSet(HEALTHY, now);
+    }
+
+    /**
+     * @return {@code true} if this success ended a degraded period
+     */
+    boolean success() {
+        final long since = degradedSince.get();
+        if (since == HEALTHY || !degradedSince.compareAndSet(since, HEALTHY)) {
+            return false;
+        }
+        degradedNanos.addAndGet(System.nanoTime() - since);
+        return true;
+    }
+
+    /**
+     * Total time spent degraded, including the ongoing period.
+     */
+    double degradedSeconds() {
+        final long since = degradedSince.get();
+        final long ongoing = since == HEALTHY ? 0L : System.nanoTime() - since;
+        return (degradedNanos.get() + ongoing) / 1e9d;
+    }
+}
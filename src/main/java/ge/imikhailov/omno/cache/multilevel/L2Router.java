@@ -0,0 +1,42 @@
+package ge.imikhailov.omno.cache.multilevel;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Routing state for {@link L2BypassPolicy}: moving averages of L2 read and loader latency.
+ */
+final class L2Router {
+
+    private final double maxRatio;
+    private final Ewma l2Nanos;
+    private final Ewma loadNanos;
+
+    L2Router(final L2BypassPolicy policy) {
+        this.maxRatio = Math.max(0.0d, Math.min(policy.maxRatio(), 0.99d));
+        this.l2Nanos = new Ewma(policy.alpha());
+        this.loadNanos = new Ewma(policy.alpha());
+    }
+
+    void recordL2(final long nanos) {
+        l2Nanos.record(nanos);
+    }
+
+    void recordLoad(final long nanos) {
+        loadNanos.record(nanos);
+    }
+
+    /**
+     * Fraction of L2 reads currently sent to the loader; 0 until both latencies have been observed.
+     */
+    double bypassRatio() {
+        final double l2 = l2Nanos.nanos();
+        final double load = loadNanos.nanos();
+        if (l2 <= 0.0d || load < 0.0d || l2 <= load) return 0.0d;
+        return Math.min(maxRatio, 1.0d - load / l2);
+    }
+
+    boolean shouldBypass() {
+        final double ratio = bypassRatio();
+        return ratio > 0.0d && ThreadLocalRandom.current().nextDouble() < ratio;
+    }
+}
@@ -0,0 +1,103 @@
+package ge.imikhailov.omno.cache.multilevel;
+
+import ge.imikhailov.omno.metrics.CacheMetricsFactory;
+import ge.imikhailov.omno.metrics.WriteBehindMetrics;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Bounded queue plus a single daemon worker that hands batches of pending L2 writes to {@code flush}.
+ * Several writes of one key within a batch collapse into the newest version. {@link #close()} lets the worker
+ * drain what is queued and stop.
+ */
+@Slf4j
+final class L2WriteBehind implements AutoCloseable {
+
+    private static final long POLL_MILLIS = 100;
+    private static final long CLOSE_TIMEOUT_MILLIS = 5_000;
+
+    private record Pending(Object key, CachedEntry entry) {
+    }
+
+    private final BlockingQueue<Pending> queue;
+    private final int batchSize;
+    private final Consumer<Map<Object, CachedEntry>> flush;
+    private final WriteBehindMetrics metrics;
+    private final Thread worker;
+    private volatile boolean closed;
+
+    L2WriteBehind(final String cacheName,
+                  final WriteBehindPolicy policy,
+                  final Consumer<Map<Object, CachedEntry>> flush,
+                  final CacheMetricsFactory cacheMetricsFactory) {
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, policy.capacity()));
+        this.batchSize = Math.max(1, policy.batchSize());
+        this.flush = flush;
+        this.metrics = cacheMetricsFactory.createWriteBehindMetrics(cacheName, queue::size);
+        this.worker = new Thread(this::run, "omno-l2-write-behind-" + cacheName);
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    void enqueue(final Object key, final CachedEntry entry) {
+        if (closed || !queue.offer(new Pending(key, entry))) {
+            metrics.droppedIncrement();
+        }
+    }
+
+    private void run() {
+        final List<Pending> drained = new ArrayList<>(batchSize);
+        while (!Thread.currentThread().isInterrupted()) {
+            final Pending first;
+            try {
+                first = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (first == null) {
+                if (closed) {
+                    return;
+                }
+                continue;
+            }
+            drained.add(first);
+            queue.drainTo(drained, batchSize - 1);
+            final Map<Object, CachedEntry> batch = new LinkedHashMap<>();
+            for (Pending p : drained) {
+                batch.merge(p.key(), p.entry(), (a, b) -> b.getVersion() >= a.getVersion() ? b : a);
+            }
+            drained.clear();
+            metrics.recordBatch(batch.size());
+            try {
+                flush.accept(batch);
+            } catch (RuntimeException e) {
+                log.warn("L2 write-behind flush of {} entries failed", batch.size(), e);
+            }
+        }
+    }
+
+    /**
+     * Stops accepting writes and waits (bounded) for the worker to flush the queue.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        try {
+            worker.join(CLOSE_TIMEOUT_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (worker.isAlive()) {
+            log.warn("L2 write-behind still had {} entries to flush after {} ms", queue.size(), CLOSE_TIMEOUT_MILLIS);
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package ge.imikhailov.omno.cache.multilevel;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Ring buffer of the most recent latencies with a percentile that is recomputed every
+ * {@link #RECOMPUTE_EVERY} samples, so reading it on the hot path is a volatile load.
+ * Samples are written without locking; a torn or overwritten slot only blurs the estimate.
+ */
+final class LatencyWindow {
+
+    private static final int SIZE = 1024;
+    private static final int RECOMPUTE_EVERY = 64;
+
+    private final long[] samples = new long[SIZE];
+    private final AtomicLong count = new AtomicLong();
+    private final double percentile;
+    private volatile long percentileNanos = -1L;
+
+    LatencyWindow(final double percentile) {
+        this.percentile = Math.max(0.0d, Math.min(percentile, 1.0d));
+    }
+
+    void record(final long nanos) {
+        final long n = count.getAndIncrement();
+        samples[(int) (n % SIZE)] = nanos;
+        if ((n + 1) % RECOMPUTE_EVERY == 0) {
+            final int filled = (int) Math.min(n + 1, SIZE);
+            final long[] copy = Arrays.copyOf(samples, filled);
+            Arrays.sort(copy);
+            final int rank = Math.max(0, (int) Math.ceil(percentile * filled) - 1);
+            percentileNanos = copy[Math.min(rank, filled - 1)];
+        }
+    }
+
+    /**
+     * @return the configured percentile in nanos, or {@code -1} before the first {@link #RECOMPUTE_EVERY} samples
+     */
+    long percentileNanos() {
+        return percentileNanos;
+    }
+}
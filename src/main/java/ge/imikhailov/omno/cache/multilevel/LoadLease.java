@@ -0,0 +1,19 @@
+package ge.imikhailov.omno.cache.multilevel;
+
+/**
+ * Short-lived, cross-process claim on loading one key, used for distributed single-flight:
+ * the holder loads and writes L2, everybody else waits for that value.
+ * Leases must expire on their own so a crashed holder cannot block a key.
+ */
+public interface LoadLease {
+
+    /**
+     * @return {@code true} if this process now holds the lease for the key
+     */
+    boolean tryAcquire(String cacheName, Object key);
+
+    /**
+     * Gives the lease up early; a no-op if it already expired or is held by someone else.
+     */
+    void release(String cacheName, Object key);
+}
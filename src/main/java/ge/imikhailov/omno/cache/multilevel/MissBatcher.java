@@ -0,0 +1,125 @@
+package ge.imikhailov.omno.cache.multilevel;
+
+import ge.imikhailov.omno.cache.multilevel.RefreshExecutor.Priority;
+import ge.imikhailov.omno.metrics.MissBatchMetrics;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Collects keys whose loads were claimed by their callers and dispatches them as one bulk load once the window
+ * has passed or the batch is full. A batch is loaded with the bulk loader of the call that opened it, and at
+ * foreground priority if any of its keys was a foreground load.
+ */
+final class MissBatcher implements AutoCloseable {
+
+    interface Dispatcher {
+        void dispatch(Map<Object, CompletableFuture<Object>> owned, Function<Set<Object>, Map<Object, Object>> bulkLoader, Priority priority);
+    }
+
+    private static final class Batch {
+        final Map<Object, CompletableFuture<Object>> owned = new LinkedHashMap<>();
+        final Function<Set<Object>, Map<Object, Object>> bulkLoader;
+        final long openedNanos = System.nanoTime();
+        Priority priority = Priority.BACKGROUND;
+
+        Batch(final Function<Set<Object>, Map<Object, Object>> bulkLoader) {
+            this.bulkLoader = bulkLoader;
+        }
+    }
+
+    private final long windowNanos;
+    private final int maxBatchSize;
+    private final Dispatcher dispatcher;
+    private final MissBatchMetrics metrics;
+    // Only hands batches over to the refresh executor
+    private final ScheduledExecutorService timer;
+    private Batch open;
+
+    MissBatcher(final String cacheName, final MissBatchingPolicy policy, final Dispatcher dispatcher, final MissBatchMetrics metrics) {
+        this.windowNanos = Math.max(0L, policy.window().toNanos());
+        this.maxBatchSize = Math.max(1, policy.maxBatchSize());
+        this.dispatcher = dispatcher;
+        this.metrics = metrics;
+        this.timer = Executors.newSingleThreadScheduledExecutor(r -> {
+            final Thread t = new Thread(r, "omno-miss-batcher-" + cacheName);
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    void add(final Map<Object, CompletableFuture<Object>> owned,
+             final Function<Set<Object>, Map<Object, Object>> bulkLoader,
+             final Priority priority) {
+        final List<Batch> full = new ArrayList<>(1);
+        Batch opened = null;
+        synchronized (this) {
+            for (Map.Entry<Object, CompletableFuture<Object>> e : owned.entrySet()) {
+                if (open == null) {
+                    open = new Batch(bulkLoader);
+                    opened = open;
+                }
+                open.owned.put(e.getKey(), e.getValue());
+                if (priority == Priority.FOREGROUND) open.priority = Priority.FOREGROUND;
+                if (open.owned.size() >= maxBatchSize) {
+                    full.add(open);
+                    open = null;
+                }
+            }
+            if (opened != open) {
+                // Whatever this call opened is already full
+                opened = null;
+            }
+        }
+        full.forEach(this::dispatch);
+        if (opened != null) {
+            final Batch scheduled = opened;
+            try {
+                timer.schedule(() -> flush(scheduled), windowNanos, TimeUnit.NANOSECONDS);
+            } catch (RejectedExecutionException closed) {
+                flush(scheduled);
+            }
+        }
+    }
+
+    private void flush(final Batch batch) {
+        synchronized (this) {
+            if (open != batch) {
+                // Already dispatched because it filled up
+                return;
+            }
+            open = null;
+        }
+        dispatch(batch);
+    }
+
+    private void dispatch(final Batch batch) {
+        metrics.recordBatch(batch.owned.size(), System.nanoTime() - batch.openedNanos);
+        dispatcher.dispatch(batch.owned, batch.bulkLoader, batch.priority);
+    }
+
+    /**
+     * Dispatches the open batch without waiting for its window and stops the timer; later batches go out at once.
+     */
+    @Override
+    public void close() {
+        final Batch pending;
+        synchronized (this) {
+            pending = open;
+            open = null;
+        }
+        timer.shutdownNow();
+        if (pending != null) {
+            dispatch(pending);
+        }
+    }
+}
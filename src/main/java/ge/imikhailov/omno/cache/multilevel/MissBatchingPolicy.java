@@ -0,0 +1,13 @@
+package ge.imikhailov.omno.cache.multilevel;
+
+import java.time.Duration;
+
+/**
+ * Micro-batching of loads: loads for different keys that start within {@code window} of the first one are
+ * handed to the bulk loader together, so concurrent misses cost one IN query instead of one query each.
+ *
+ * @param window       longest time the first key of a batch waits for others
+ * @param maxBatchSize a batch with this many keys is loaded right away
+ */
+public record MissBatchingPolicy(Duration window, int maxBatchSize) {
+}
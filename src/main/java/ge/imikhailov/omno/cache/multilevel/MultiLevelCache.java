@@ -1,47 +1,441 @@
 package ge.imikhailov.omno.cache.multilevel;
 
+import com.github.benmanes.caffeine.cache.Policy;
+import ge.imikhailov.omno.cache.multilevel.RefreshExecutor.Priority;
 import ge.imikhailov.omno.cache.pubsub.CacheInvalidationPublisher;
 import ge.imikhailov.omno.metrics.CacheMetrics;
 import ge.imikhailov.omno.metrics.CacheMetricsFactory;
+import ge.imikhailov.omno.metrics.HedgeMetrics;
+import ge.imikhailov.omno.metrics.L2BypassMetrics;
+import ge.imikhailov.omno.metrics.L2HealthMetrics;
+import lombok.extern.slf4j.Slf4j;
 import org.jspecify.annotations.Nullable;
 import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.cache.support.NullValue;
 import org.springframework.cache.support.SimpleValueWrapper;
 
 import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
 
-public class MultiLevelCache implements Cache {
+@Slf4j
+public class MultiLevelCache implements Cache, AutoCloseable {
+
+    // Replicas waiting for a peer's lease sleep here, outside the bounded refresh executor
+    private static final ThreadFactory LEASE_WAITERS = Thread.ofVirtual().name("omno-lease-wait-", 0).factory();
+    // Weight of the newest loader time in the XFetch estimate: roughly the last 20 loads count
+    private static final double RECOMPUTE_ALPHA = 0.1d;
 
     private final String name;
     private final Cache l1;
+    // Native L1 store read directly on hits (Spring's Cache.get allocates a wrapper per call); null if not applicable
+    private final com.github.benmanes.caffeine.cache.@Nullable Cache<Object, Object> l1Caffeine;
+    private final @Nullable ConcurrentMap<Object, Object> l1Map;
+    // Optional off-heap tier between L1 and L2 (same CachedEntry values, serialized outside the heap)
+    private final @Nullable Cache offHeap;
     private final Cache l2;
-    private final Duration softTtl;
+    private final RefreshPolicy refreshPolicy;
+    // Recent single-key loader time for probabilistic policies (XFetch); null when the policy ignores it
+    private final @Nullable Ewma recomputeTime;
+    private final RefreshExecutor refreshExecutor;
+    private final ToLongFunction<Object> versionOf;
+    private final @Nullable NegativeCaching negativeCaching;
+    private final long negativeTtlMs;
+    private final @Nullable DistributedSingleFlight distributedSingleFlight;
     private final @Nullable CacheInvalidationPublisher publisher;
     private final CacheMetrics cacheMetrics;
+    // Hedged L2 reads; all three are null when hedging is off
+    private final @Nullable HedgePolicy hedge;
+    private final @Nullable LatencyWindow l2Latency;
+    private final @Nullable HedgeMetrics hedgeMetrics;
+    // Latency-adaptive L2 bypass; both null when off
+    private final @Nullable L2Router l2Router;
+    private final @Nullable L2BypassMetrics l2BypassMetrics;
+    // L2 failures (errors, open breaker) degrade to L1 + loader instead of failing the read
+    private final L2Health l2Health = new L2Health();
+    private final L2HealthMetrics l2HealthMetrics;
+    // Loaded entries reach L2 asynchronously when set
+    private final @Nullable L2WriteBehind writeBehind;
+    // Bulk loads of concurrent misses are coalesced when set
+    private final @Nullable MissBatcher missBatcher;
     // Tracks in-flight loads per key to provide single-flight behavior and avoid duplicate DB hits
     private final ConcurrentHashMap<Object, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
     // Tracks how many loads are currently executing; exposed as a gauge (avoids NaN export issues)
     private final AtomicInteger inFlightGauge = new AtomicInteger();
 
     public MultiLevelCache(String name, Cache l1, Cache l2, Duration softTtl, @Nullable CacheInvalidationPublisher publisher, CacheMetricsFactory cacheMetricsFactory) {
+        this(name, l1, l2, MultiLevelCacheOptions.withSoftTtl(softTtl), publisher, cacheMetricsFactory);
+    }
+
+    public MultiLevelCache(String name, Cache l1, Cache l2, MultiLevelCacheOptions options, @Nullable CacheInvalidationPublisher publisher, CacheMetricsFactory cacheMetricsFactory) {
+        this(name, l1, null, l2, options, publisher, cacheMetricsFactory);
+    }
+
+    public MultiLevelCache(String name, Cache l1, @Nullable Cache offHeap, Cache l2, MultiLevelCacheOptions options, @Nullable CacheInvalidationPublisher publisher, CacheMetricsFactory cacheMetricsFactory) {
         this.name = name;
         this.l1 = l1;
+        this.l1Caffeine = l1.getNativeCache() instanceof com.github.benmanes.caffeine.cache.Cache<?, ?> caffeine ? castCaffeine(caffeine) : null;
+        this.l1Map = l1Caffeine == null && !(l1 instanceof ConcurrentMapCache c && c.isStoreByValue()) ? nativeMap(l1) : null;
+        this.offHeap = offHeap;
         this.l2 = l2;
-        this.softTtl = softTtl;
+        this.refreshPolicy = options.getRefreshPolicy();
+        this.recomputeTime = refreshPolicy.usesRecomputeTime() ? new Ewma(RECOMPUTE_ALPHA) : null;
+        this.refreshExecutor = options.getRefreshExecutor();
+        this.versionOf = options.getVersion();
+        this.negativeCaching = options.getNegativeCaching();
+        this.negativeTtlMs = negativeCaching != null ? negativeCaching.ttl().toMillis() : 0L;
+        this.distributedSingleFlight = options.getDistributedSingleFlight();
         this.publisher = publisher;
         this.cacheMetrics = cacheMetricsFactory.createCacheMetric(name, inFlightGauge);
+        this.hedge = options.getHedge();
+        if (hedge != null) {
+            final LatencyWindow window = new LatencyWindow(hedge.percentile());
+            this.l2Latency = window;
+            this.hedgeMetrics = cacheMetricsFactory.createHedgeMetrics(name, () -> hedge.delayNanos(window) / 1_000_000.0d);
+        } else {
+            this.l2Latency = null;
+            this.hedgeMetrics = null;
+        }
+        this.writeBehind = options.getWriteBehind() != null
+                ? new L2WriteBehind(name, options.getWriteBehind(), this::flushWriteBehind, cacheMetricsFactory)
+                : null;
+        this.missBatcher = options.getMissBatching() != null
+                ? new MissBatcher(name, options.getMissBatching(), this::submitBulkLoad, cacheMetricsFactory.createMissBatchMetrics(name))
+                : null;
+        this.l2HealthMetrics = cacheMetricsFactory.createL2HealthMetrics(name, l2Health,
+                h -> h.isDegraded() ? 1.0d : 0.0d, L2Health::degradedSeconds);
+        registerL1SizeGauges(cacheMetricsFactory);
+        if (options.getL2Bypass() != null) {
+            final L2Router router = new L2Router(options.getL2Bypass());
+            this.l2Router = router;
+            this.l2BypassMetrics = cacheMetricsFactory.createL2BypassMetrics(name, router::bypassRatio);
+        } else {
+            this.l2Router = null;
+            this.l2BypassMetrics = null;
+        }
     }
 
 
+    private void registerL1SizeGauges(CacheMetricsFactory cacheMetricsFactory) {
+        if (l1Caffeine != null) {
+            final Policy.Eviction<Object, Object> weighted = l1Caffeine.policy().eviction()
+                    .filter(Policy.Eviction::isWeighted)
+                    .orElse(null);
+            cacheMetricsFactory.registerL1SizeGauges(name, l1Caffeine::estimatedSize,
+                    weighted != null ? () -> weighted.weightedSize().orElse(0L) : null);
+        } else if (l1Map != null) {
+            cacheMetricsFactory.registerL1SizeGauges(name, l1Map::size, null);
+        }
+    }
+
     private boolean isStale(@Nullable CachedEntry e) {
         if (e == null) return true;
-        if (softTtl.isZero() || softTtl.isNegative()) return false;
-        long age = System.currentTimeMillis() - e.getWriteTimeMs();
-        return age >= softTtl.toMillis();
+        long age = CoarseClock.millis() - e.getWriteTimeMs();
+        return refreshPolicy.isStale(age, recomputeTime != null ? Math.max(0.0d, recomputeTime.nanos()) / 1_000_000.0d : 0.0d);
+    }
+
+    /**
+     * Drops tombstones that outlived the negative TTL (or any tombstone when negative caching is off),
+     * so callers treat them as plain misses.
+     */
+    private @Nullable CachedEntry live(@Nullable CachedEntry e) {
+        if (e == null || !e.isAbsent()) return e;
+        if (negativeCaching == null) return null;
+        long age = CoarseClock.millis() - e.getWriteTimeMs();
+        return age < negativeTtlMs ? e : null;
+    }
+
+    private RuntimeException tombstoneHit(Object key) {
+        cacheMetrics.tombstoneHitIncrement();
+        return negativeCaching.exceptionFactory().apply(key);
+    }
+
+    private void putTombstone(Object key, boolean syncL2) {
+        final CachedEntry tombstone = CachedEntry.tombstone(System.currentTimeMillis());
+        putLocal(key, tombstone);
+        if (writeBehind != null && !syncL2) {
+            writeBehind.enqueue(key, tombstone);
+        } else {
+            l2Fill(() -> l2.put(key, tombstone));
+        }
+    }
+
+    /**
+     * Stores a freshly loaded entry. With write-behind, the local tiers are updated right away and L2 later
+     * (so the waiting caller does not pay for the Redis round trip); otherwise this is {@link #putIfNewer}.
+     *
+     * @param syncL2 bypass write-behind, e.g. while holding a lease that peers release their wait on
+     * @return {@code false} if a newer version is already cached locally
+     */
+    private boolean storeLoaded(Object key, CachedEntry e, boolean syncL2) {
+        if (writeBehind == null || syncL2) {
+            return putIfNewer(key, e, true);
+        }
+        if (e.getVersion() == 0L) {
+            putLocal(key, e);
+        } else if (!putLocalIfNewer(key, e)) {
+            return false;
+        }
+        writeBehind.enqueue(key, e);
+        return true;
+    }
+
+    /**
+     * Write-behind worker: one pipelined batch of plain SETs and one of versioned compare-and-sets.
+     * Entries L2 rejects as older than what it holds are also dropped locally.
+     */
+    private void flushWriteBehind(Map<Object, CachedEntry> batch) {
+        final Map<Object, Object> plain = new HashMap<>();
+        final Map<Object, CachedEntry> versioned = new HashMap<>();
+        batch.forEach((key, e) -> {
+            if (e.getVersion() != 0L) versioned.put(key, e);
+            else plain.put(key, e);
+        });
+        try {
+            if (!plain.isEmpty()) {
+                if (l2 instanceof BulkCache bulk) bulk.putAll(plain);
+                else plain.forEach(l2::put);
+            }
+            final Set<Object> discarded = versioned.isEmpty() ? Set.of() : l2PutAllIfNewerUnguarded(versioned);
+            l2Success();
+            for (Object key : discarded) {
+                cacheMetrics.discardedWriteIncrement();
+                evictLocal(key, versioned.get(key));
+            }
+        } catch (RuntimeException e) {
+            l2Failure(e);
+        }
+    }
+
+    private void evictLocal(Object key, CachedEntry expected) {
+        final ConcurrentMap<Object, Object> map = nativeMap(l1);
+        if (map != null) {
+            map.remove(key, expected);
+        } else {
+            l1.evict(key);
+        }
+        if (offHeap != null) offHeap.evict(key);
+    }
+
+    /**
+     * Off-heap lookup after an L1 miss. Live entries (including tombstones) are copied back into L1.
+     *
+     * @param fresh treat stale entries as a miss so the caller goes on to L2 / the loader
+     */
+    private @Nullable CachedEntry offHeapGet(Object key, boolean fresh) {
+        if (offHeap == null) return null;
+        final ValueWrapper v = offHeap.get(key);
+        final CachedEntry e = v != null ? live(toEntry(v.get())) : null;
+        if (e == null || (fresh && !e.isAbsent() && isStale(e))) {
+            cacheMetrics.offHeapMissIncrement();
+            return null;
+        }
+        if (!e.isAbsent()) cacheMetrics.offHeapHitIncrement();
+        l1.put(key, e);
+        return e;
+    }
+
+    /**
+     * Raw L1 store value ({@link NullValue#INSTANCE} for a cached {@code null}), read from the native store
+     * when possible so that hits allocate nothing.
+     */
+    private @Nullable Object l1Lookup(Object key) {
+        if (l1Caffeine != null) return l1Caffeine.getIfPresent(key);
+        if (l1Map != null) return l1Map.get(key);
+        final ValueWrapper v1 = l1.get(key);
+        if (v1 == null) return null;
+        return v1.get() != null ? v1.get() : NullValue.INSTANCE;
+    }
+
+    private @Nullable CachedEntry l1Entry(Object key) {
+        final Object raw = l1Lookup(key);
+        return raw != NullValue.INSTANCE ? live(toEntry(raw)) : null;
+    }
+
+    private void putLocal(Object key, @Nullable Object value) {
+        l1.put(key, value);
+        if (offHeap != null) offHeap.put(key, value);
+    }
+
+    /**
+     * Writes a loaded or put entry to every level unless a newer version of the key is already known.
+     * Versioned entries go through the L2 compare-and-set first (it remembers versions across evictions)
+     * and reach L1 only if L2 accepted them.
+     *
+     * @param fill a loaded entry rather than an explicit put (see {@link #l2Fill})
+     * @return {@code false} if the write was discarded
+     */
+    private boolean putIfNewer(Object key, CachedEntry e, boolean fill) {
+        if (e.getVersion() == 0L) {
+            putLocal(key, e);
+            final Runnable write = () -> l2.put(key, e);
+            if (fill) l2Fill(write);
+            else l2Write(write);
+            return true;
+        }
+        if (l2Health.isDegraded()) {
+            // Nothing to compare against; L1 still keeps the newest version it has seen
+            final Runnable write = () -> l2PutIfNewer(key, e);
+            if (fill) l2Fill(write);
+            else l2Write(write);
+            return putLocalIfNewer(key, e);
+        }
+        boolean accepted;
+        try {
+            accepted = l2PutIfNewer(key, e);
+            l2Success();
+        } catch (RuntimeException ex) {
+            l2Failure(ex);
+            accepted = true;
+        }
+        return accepted && putLocalIfNewer(key, e);
+    }
+
+    private boolean l2PutIfNewer(Object key, CachedEntry e) {
+        if (l2 instanceof VersionedCache versioned) {
+            return versioned.putIfNewer(key, e);
+        }
+        // Best effort (not atomic) for levels without compare-and-set
+        final boolean accepted = !isNewer(l2.get(key), e);
+        if (accepted) l2.put(key, e);
+        return accepted;
+    }
+
+    /**
+     * L2 read that reports failures (including an open circuit breaker) as a miss.
+     */
+    private @Nullable ValueWrapper l2Get(Object key) {
+        try {
+            final ValueWrapper v2 = l2.get(key);
+            l2Success();
+            return v2;
+        } catch (RuntimeException e) {
+            l2Failure(e);
+            return null;
+        }
+    }
+
+    /**
+     * L2 write of a loaded entry that never fails the caller. Skipped while L2 is degraded: the entry stays in the
+     * local tiers, and L2 reads keep probing for recovery, after which later loads fill it again.
+     */
+    private void l2Fill(Runnable write) {
+        if (l2Health.isDegraded()) {
+            l2HealthMetrics.skippedWriteIncrement();
+            return;
+        }
+        l2Guarded(write).run();
+    }
+
+    /**
+     * L2 write of an explicit put, eviction or clear that never fails the caller. These must still reach L2
+     * while it is degraded, so they are handed to the refresh executor as background tasks (bounded, and without
+     * adding Redis latency to the caller); a rejected one is skipped.
+     */
+    private void l2Write(Runnable write) {
+        final Runnable guarded = l2Guarded(write);
+        if (!l2Health.isDegraded()) {
+            guarded.run();
+            return;
+        }
+        try {
+            refreshExecutor.execute(guarded, Priority.BACKGROUND);
+        } catch (RejectedExecutionException rejected) {
+            l2HealthMetrics.skippedWriteIncrement();
+            log.debug("Skipped L2 write for cache '{}' while degraded: {}", name, rejected.getMessage());
+        }
+    }
+
+    // Its outcome updates the health state
+    private Runnable l2Guarded(Runnable write) {
+        return () -> {
+            try {
+                write.run();
+                l2Success();
+            } catch (RuntimeException e) {
+                l2Failure(e);
+            }
+        };
+    }
+
+    private void l2Success() {
+        if (l2Health.success()) {
+            log.info("L2 for cache '{}' recovered after degraded mode", name);
+        }
+    }
+
+    private void l2Failure(RuntimeException e) {
+        l2HealthMetrics.errorIncrement();
+        if (l2Health.failure()) {
+            log.warn("L2 for cache '{}' failed, serving from L1 and the loader until it recovers", name, e);
+        }
+    }
+
+    private boolean putLocalIfNewer(Object key, CachedEntry e) {
+        final ConcurrentMap<Object, Object> map = nativeMap(l1);
+        final boolean accepted;
+        if (map != null) {
+            final boolean[] newerKept = {false};
+            map.compute(key, (k, current) -> {
+                if (current instanceof CachedEntry c && c.getVersion() > e.getVersion()) {
+                    newerKept[0] = true;
+                    return current;
+                }
+                return e;
+            });
+            accepted = !newerKept[0];
+        } else {
+            accepted = !isNewer(l1.get(key), e);
+            if (accepted) l1.put(key, e);
+        }
+        if (accepted && offHeap != null) offHeap.put(key, e);
+        return accepted;
+    }
+
+    private static boolean isNewer(@Nullable ValueWrapper current, CachedEntry e) {
+        return current != null && current.get() instanceof CachedEntry c && c.getVersion() > e.getVersion();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static @Nullable ConcurrentMap<Object, Object> nativeMap(Cache cache) {
+        final Object nativeCache = cache.getNativeCache();
+        if (nativeCache instanceof com.github.benmanes.caffeine.cache.Cache<?, ?> caffeine) {
+            return (ConcurrentMap<Object, Object>) caffeine.asMap();
+        }
+        if (nativeCache instanceof ConcurrentMap<?, ?> map) {
+            return (ConcurrentMap<Object, Object>) map;
+        }
+        return null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static com.github.benmanes.caffeine.cache.Cache<Object, Object> castCaffeine(com.github.benmanes.caffeine.cache.Cache<?, ?> cache) {
+        return (com.github.benmanes.caffeine.cache.Cache<Object, Object>) cache;
+    }
+
+    private CachedEntry entry(Object value, long writeTimeMs) {
+        return new CachedEntry(value, writeTimeMs, false, versionOf.applyAsLong(value));
     }
 
     private static @Nullable CachedEntry toEntry(@Nullable Object v) {
@@ -69,22 +463,49 @@ public class MultiLevelCache implements Cache {
         return this;
     }
 
+    /**
+     * Tombstoned keys read as a miss ({@code null}) here; only {@link #get(Object, Callable)} turns them into
+     * the loader's "not found" exception.
+     */
     @Override
     public @Nullable ValueWrapper get(Object key) {
-        final ValueWrapper v1 = l1.get(key);
-        if (v1 != null) {
+        final Object r1 = l1Lookup(key);
+        final CachedEntry e1 = r1 != NullValue.INSTANCE ? live(toEntry(r1)) : null;
+        if (e1 != null && e1.isAbsent()) {
+            cacheMetrics.tombstoneHitIncrement();
+            return null;
+        }
+        if (e1 != null) {
             cacheMetrics.l1HitIncrement();
-            final Object unwrapped = unwrap(v1.get());
-            return new SimpleValueWrapper(unwrapped);
+            // The entry is its own value wrapper
+            return e1;
+        }
+        if (r1 == NullValue.INSTANCE) {
+            cacheMetrics.l1HitIncrement();
+            return new SimpleValueWrapper(null);
         }
         cacheMetrics.l1MissIncrement();
-        final ValueWrapper v2 = l2.get(key);
-        if (v2 != null) {
+        final CachedEntry eo = offHeapGet(key, false);
+        if (eo != null) {
+            if (eo.isAbsent()) {
+                cacheMetrics.tombstoneHitIncrement();
+                return null;
+            }
+            return new SimpleValueWrapper(eo.getValue());
+        }
+        final ValueWrapper v2 = l2Get(key);
+        final CachedEntry e2 = v2 != null ? live(toEntry(v2.get())) : null;
+        if (e2 != null && e2.isAbsent()) {
+            cacheMetrics.tombstoneHitIncrement();
+            putLocal(key, e2);
+            return null;
+        }
+        if (v2 != null && (e2 != null || v2.get() == null)) {
             cacheMetrics.l2HitIncrement();
             final Object value = v2.get();
-            // backfill L1 if we found value in L2
+            // backfill the local tiers if we found value in L2
             if (value != null) {
-                l1.put(key, value);
+                putLocal(key, value);
             }
             final Object unwrapped = unwrap(value);
             return new SimpleValueWrapper(unwrapped);
@@ -95,22 +516,42 @@ public class MultiLevelCache implements Cache {
 
     @Override
     public <T> @Nullable T get(Object key, @Nullable Class<T> type) {
-        final ValueWrapper v1 = l1.get(key);
-        if (v1 != null) {
+        final Object r1 = l1Lookup(key);
+        final CachedEntry e1 = r1 != NullValue.INSTANCE ? live(toEntry(r1)) : null;
+        if (e1 != null && e1.isAbsent()) {
+            cacheMetrics.tombstoneHitIncrement();
+            return null;
+        }
+        if (e1 != null || r1 == NullValue.INSTANCE) {
             cacheMetrics.l1HitIncrement();
-            final T unwrapped = unwrap(v1.get());
+            final T unwrapped = unwrap(e1);
             if (unwrapped == null || type == null || type.isInstance(unwrapped)) {
                 return unwrapped;
             }
             return null;
         }
         cacheMetrics.l1MissIncrement();
-        final ValueWrapper v2 = l2.get(key);
-        if (v2 != null) {
+        final CachedEntry eo = offHeapGet(key, false);
+        if (eo != null) {
+            if (eo.isAbsent()) {
+                cacheMetrics.tombstoneHitIncrement();
+                return null;
+            }
+            final T unwrapped = unwrap(eo);
+            return unwrapped == null || type == null || type.isInstance(unwrapped) ? unwrapped : null;
+        }
+        final ValueWrapper v2 = l2Get(key);
+        final CachedEntry e2 = v2 != null ? live(toEntry(v2.get())) : null;
+        if (e2 != null && e2.isAbsent()) {
+            cacheMetrics.tombstoneHitIncrement();
+            putLocal(key, e2);
+            return null;
+        }
+        if (v2 != null && (e2 != null || v2.get() == null)) {
             cacheMetrics.l2HitIncrement();
             final Object raw = v2.get();
             if (raw != null) {
-                l1.put(key, raw);
+                putLocal(key, raw);
             }
             final T unwrapped = unwrap(raw);
             if (unwrapped == null || type == null || type.isInstance(unwrapped)) {
@@ -125,32 +566,63 @@ public class MultiLevelCache implements Cache {
     public <T> @Nullable T get(Object key, Callable<T> loader) {
         try {
             // Try L1
-            final ValueWrapper v1 = l1.get(key);
-            final CachedEntry e1 = toEntry(v1 != null ? v1.get() : null);
+            final CachedEntry e1 = l1Entry(key);
+            if (e1 != null && e1.isAbsent()) {
+                throw tombstoneHit(key);
+            }
             if (!isStale(e1)) {
                 if (e1 != null) cacheMetrics.l1HitIncrement();
                 else cacheMetrics.l1MissIncrement();
                 return unwrap(e1);
             }
+            if (e1 != null && l2Health.isDegraded()) {
+                // Without L2 every stale read would hit the database; serve the local copy and refresh it once
+                cacheMetrics.l1HitIncrement();
+                triggerRefreshAsync(key, loader, Priority.BACKGROUND);
+                return unwrap(e1);
+            }
             if (e1 != null) {
                 // Stale in L1 counts as miss in terms of freshness
                 cacheMetrics.l1MissIncrement();
             }
-            // Try L2
-            final ValueWrapper v2 = l2.get(key);
+            // Try off-heap
+            final CachedEntry eo = offHeapGet(key, true);
+            if (eo != null) {
+                if (eo.isAbsent()) {
+                    throw tombstoneHit(key);
+                }
+                return unwrap(eo);
+            }
+            if (l2Router != null && l2Router.shouldBypass()) {
+                // L2 is currently slower than the database: skip the lookup for this share of reads
+                l2BypassMetrics.bypassedIncrement();
+                return (T) triggerRefreshAsync(key, loader, Priority.FOREGROUND).get();
+            }
+            // Try L2 (racing the database if it is slow to answer)
+            final L2Lookup lookup = hedge != null ? l2GetHedged(key, loader) : new L2Lookup(timedL2Get(key), null);
+            if (lookup.hedgedLoad() != null) {
+                cacheMetrics.l2MissIncrement();
+                return (T) lookup.hedgedLoad().get();
+            }
+            final ValueWrapper v2 = lookup.value();
             if (v2 == null) {
                 cacheMetrics.l2MissIncrement();
-                return (T) triggerRefreshAsync(key, loader).get();
+                return (T) triggerRefreshAsync(key, loader, Priority.FOREGROUND).get();
             }
-            final CachedEntry e2 = toEntry(v2.get());
+            final CachedEntry e2 = live(toEntry(v2.get()));
             if (e2 == null) {
                 cacheMetrics.l2MissIncrement();
-                return (T) triggerRefreshAsync(key, loader).get();
+                return (T) triggerRefreshAsync(key, loader, Priority.FOREGROUND).get();
+            }
+            if (e2.isAbsent()) {
+                putLocal(key, e2);
+                throw tombstoneHit(key);
             }
             cacheMetrics.l2HitIncrement();
-            l1.put(key, e2);
+            putLocal(key, e2);
             if (isStale(e2)) {
-                return unwrap(triggerRefreshAsync(key, loader));
+                // Serve the stale value while the refresh runs in the background
+                triggerRefreshAsync(key, loader, Priority.BACKGROUND);
             }
             return unwrap(e2);
         } catch (InterruptedException ie) {
@@ -165,57 +637,644 @@ public class MultiLevelCache implements Cache {
         }
     }
 
-    private <T> CompletableFuture<Object> triggerRefreshAsync(Object key, Callable<T> loader) {
-        // Try to become the refresher; if a load is already in-flight, do nothing
-        final CompletableFuture<Object> newFuture = new CompletableFuture<>();
-        final CompletableFuture<Object> existing = inFlight.putIfAbsent(key, newFuture);
-        if (existing != null) {
-            cacheMetrics.duplicateSuppressedIncrement();
-            return existing;
+    private @Nullable ValueWrapper timedL2Get(Object key) {
+        if (l2Router == null) return l2Get(key);
+        final long start = System.nanoTime();
+        final ValueWrapper v2 = l2Get(key);
+        l2Router.recordL2(System.nanoTime() - start);
+        return v2;
+    }
+
+    /**
+     * L2 answer, or the database load that was started as a hedge and should be used instead.
+     */
+    private record L2Lookup(@Nullable ValueWrapper value, @Nullable CompletableFuture<Object> hedgedLoad) {
+    }
+
+    private <T> L2Lookup l2GetHedged(Object key, Callable<T> loader) throws InterruptedException, ExecutionException {
+        final CompletableFuture<ValueWrapper> pending = l2Retrieve(key);
+        try {
+            return new L2Lookup(pending.get(hedge.delayNanos(l2Latency), TimeUnit.NANOSECONDS), null);
+        } catch (ExecutionException failed) {
+            // Already reported by l2Retrieve; a failed L2 is a miss
+            return new L2Lookup(null, null);
+        } catch (TimeoutException slow) {
+            hedgeMetrics.startedIncrement();
+            final CompletableFuture<Object> load = triggerRefreshAsync(key, loader, Priority.FOREGROUND);
+            // The L2 value if it arrives while the load runs, null once the load is done
+            final CompletableFuture<@Nullable ValueWrapper> l2First = new CompletableFuture<>();
+            final AtomicBoolean loadBeatL2 = new AtomicBoolean();
+            pending.thenAccept(v -> {
+                if (v != null) l2First.complete(v);
+            });
+            load.whenComplete((v, ex) -> {
+                loadBeatL2.set(ex == null && !pending.isDone());
+                l2First.complete(null);
+            });
+            final ValueWrapper fromL2 = l2First.get();
+            if (fromL2 != null) {
+                hedgeMetrics.l2WinIncrement();
+                return new L2Lookup(fromL2, null);
+            }
+            if (loadBeatL2.get()) {
+                hedgeMetrics.dbWinIncrement();
+            } else if (pending.isDone()) {
+                // L2 had nothing to race with: the load answers by default
+                if (pending.isCompletedExceptionally()) hedgeMetrics.l2ErrorIncrement();
+                else hedgeMetrics.l2MissIncrement();
+            }
+            return new L2Lookup(null, load);
+        }
+    }
+
+    /**
+     * Non-blocking L2 lookup through {@link Cache#retrieve(Object)} (Lettuce async commands for Redis);
+     * levels without async support are read synchronously. Latencies of completed lookups feed the hedge delay.
+     */
+    private CompletableFuture<ValueWrapper> l2Retrieve(Object key) {
+        final long start = System.nanoTime();
+        CompletableFuture<?> future;
+        try {
+            future = retrieveOrGet(key);
+        } catch (RuntimeException e) {
+            future = CompletableFuture.failedFuture(e);
+        }
+        if (future == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return future.whenComplete((v, ex) -> {
+            if (ex == null) {
+                l2Success();
+            } else {
+                l2Failure(ex instanceof RuntimeException re ? re : new CompletionException(ex));
+            }
+        }).thenApply(v -> {
+            final long elapsed = System.nanoTime() - start;
+            if (l2Latency != null) l2Latency.record(elapsed);
+            if (l2Router != null) l2Router.recordL2(elapsed);
+            if (v == null || v instanceof ValueWrapper) return (ValueWrapper) v;
+            return new SimpleValueWrapper(v);
+        });
+    }
+
+    private @Nullable CompletableFuture<?> retrieveOrGet(Object key) {
+        try {
+            return l2.retrieve(key);
+        } catch (UnsupportedOperationException notAsync) {
+            return CompletableFuture.completedFuture(l2.get(key));
+        }
+    }
+
+    /**
+     * Whether loads started through {@link #getBatched} are coalesced across callers.
+     */
+    public boolean isBatchingMisses() {
+        return missBatcher != null;
+    }
+
+    /**
+     * Single-key read that loads through {@code bulkLoader}: with miss batching on, a miss joins the keys other
+     * callers are loading within the batching window and all of them are loaded with one call. L1 hits are served
+     * as in {@link #get(Object, Callable)}; misses go through the {@link #getAll} path (no hedging or cross-replica
+     * lease). A batch is loaded with the bulk loader of the call that opened it, so every caller of a cache must pass
+     * an equivalent one.
+     *
+     * @return the value, or {@code null} if the key was not found (or is tombstoned)
+     */
+    public <K, V> @Nullable V getBatched(K key, Function<Set<K>, Map<K, V>> bulkLoader) {
+        final CachedEntry e1 = l1Entry(key);
+        if (e1 != null && e1.isAbsent()) {
+            cacheMetrics.tombstoneHitIncrement();
+            return null;
+        }
+        if (e1 != null && !isStale(e1)) {
+            cacheMetrics.l1HitIncrement();
+            return unwrap(e1);
+        }
+        return getAll(List.of(key), bulkLoader, true).get(key);
+    }
+
+    /**
+     * Multi-key variant of {@link #get(Object, Callable)}: L1 is checked per key, the remaining keys go to L2 in one
+     * bulk lookup, and whatever is still missing is loaded with a single call to {@code bulkLoader}.
+     * Loaded values are written back to both levels in bulk. Keys already being loaded by another caller are joined
+     * (single-flight), stale entries are served while being refreshed in the background.
+     *
+     * The caller's keys are loaded on their own, without waiting for miss batching.
+     *
+     * @param bulkLoader loads the given keys; keys absent from the returned map are treated as not found and not cached
+     * @return found values in the iteration order of {@code keys}; absent keys are omitted
+     */
+    public <K, V> Map<K, V> getAll(Collection<K> keys, Function<Set<K>, Map<K, V>> bulkLoader) {
+        return getAll(keys, bulkLoader, false);
+    }
+
+    private <K, V> Map<K, V> getAll(Collection<K> keys, Function<Set<K>, Map<K, V>> bulkLoader, boolean batchMisses) {
+        final Set<K> distinct = new LinkedHashSet<>(keys);
+        final Map<K, Object> found = new HashMap<>();
+        final Set<K> l1Misses = new LinkedHashSet<>();
+        for (K key : distinct) {
+            final CachedEntry e1 = l1Entry(key);
+            if (e1 != null && e1.isAbsent()) {
+                cacheMetrics.tombstoneHitIncrement();
+            } else if (e1 != null && !isStale(e1)) {
+                cacheMetrics.l1HitIncrement();
+                found.put(key, e1.getValue());
+            } else {
+                // Stale in L1 counts as miss in terms of freshness
+                cacheMetrics.l1MissIncrement();
+                final CachedEntry eo = offHeapGet(key, true);
+                if (eo == null) {
+                    l1Misses.add(key);
+                } else if (eo.isAbsent()) {
+                    cacheMetrics.tombstoneHitIncrement();
+                } else {
+                    found.put(key, eo.getValue());
+                }
+            }
+        }
+
+        final Set<K> toLoad = new LinkedHashSet<>();
+        final Set<K> toRefresh = new LinkedHashSet<>();
+        if (!l1Misses.isEmpty()) {
+            final Map<Object, Object> fromL2 = l2GetAll(l1Misses);
+            for (K key : l1Misses) {
+                final CachedEntry e2 = live(toEntry(fromL2.get(key)));
+                if (e2 == null) {
+                    cacheMetrics.l2MissIncrement();
+                    toLoad.add(key);
+                    continue;
+                }
+                if (e2.isAbsent()) {
+                    cacheMetrics.tombstoneHitIncrement();
+                    putLocal(key, e2);
+                    continue;
+                }
+                cacheMetrics.l2HitIncrement();
+                putLocal(key, e2);
+                found.put(key, e2.getValue());
+                if (isStale(e2)) {
+                    toRefresh.add(key);
+                }
+            }
+        }
+
+        if (!toRefresh.isEmpty()) {
+            triggerBulkRefreshAsync(toRefresh, bulkLoader, Priority.BACKGROUND, batchMisses);
+        }
+        if (!toLoad.isEmpty()) {
+            final Map<K, CompletableFuture<Object>> pending = triggerBulkRefreshAsync(toLoad, bulkLoader, Priority.FOREGROUND, batchMisses);
+            for (Map.Entry<K, CompletableFuture<Object>> e : pending.entrySet()) {
+                final Object value = await(e.getKey(), e.getValue());
+                if (value != null) {
+                    found.put(e.getKey(), value);
+                }
+            }
         }
-        inFlightGauge.incrementAndGet();
 
-        CompletableFuture.runAsync(() -> {
+        final Map<K, V> result = new LinkedHashMap<>();
+        for (K key : distinct) {
+            @SuppressWarnings("unchecked") final V value = (V) found.get(key);
+            if (value != null) {
+                result.put(key, value);
+            }
+        }
+        return result;
+    }
+
+    private Map<Object, Object> l2GetAll(Collection<?> keys) {
+        if (l2 instanceof BulkCache bulk) {
+            try {
+                final Map<Object, Object> found = bulk.getAll(keys);
+                l2Success();
+                return found;
+            } catch (RuntimeException e) {
+                l2Failure(e);
+                return Map.of();
+            }
+        }
+        final Map<Object, Object> result = new HashMap<>();
+        for (Object key : keys) {
+            final ValueWrapper v2 = l2Get(key);
+            if (v2 != null && v2.get() != null) {
+                result.put(key, v2.get());
+            }
+        }
+        return result;
+    }
+
+    private void l2PutAll(Map<Object, Object> entries) {
+        if (entries.isEmpty()) return;
+        l2Fill(() -> {
+            if (l2 instanceof BulkCache bulk) {
+                bulk.putAll(entries);
+            } else {
+                entries.forEach(l2::put);
+            }
+        });
+    }
+
+    /**
+     * @return keys whose entries were discarded because L2 already holds a newer version
+     */
+    private Set<Object> l2PutAllIfNewer(Map<Object, CachedEntry> entries) {
+        if (l2Health.isDegraded()) {
+            l2Fill(() -> l2PutAllIfNewerUnguarded(entries));
+            return Set.of();
+        }
+        try {
+            final Set<Object> discarded = l2PutAllIfNewerUnguarded(entries);
+            l2Success();
+            return discarded;
+        } catch (RuntimeException e) {
+            l2Failure(e);
+            return Set.of();
+        }
+    }
+
+    private Set<Object> l2PutAllIfNewerUnguarded(Map<Object, CachedEntry> entries) {
+        if (l2 instanceof VersionedCache versioned) {
+            return versioned.putAllIfNewer(entries);
+        }
+        final Set<Object> discarded = new HashSet<>();
+        entries.forEach((key, e) -> {
+            if (isNewer(l2.get(key), e)) {
+                discarded.add(key);
+            } else {
+                l2.put(key, e);
+            }
+        });
+        return discarded;
+    }
+
+    private @Nullable Object await(Object key, CompletableFuture<Object> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new ValueRetrievalException(key, null, ie);
+        } catch (ExecutionException ee) {
+            Throwable cause = ee.getCause() != null ? ee.getCause() : ee;
+            if (cause instanceof RuntimeException re) {
+                throw re;
+            }
+            throw new ValueRetrievalException(key, null, cause);
+        }
+    }
+
+    private <K, V> Map<K, CompletableFuture<Object>> triggerBulkRefreshAsync(Set<K> keys, Function<Set<K>, Map<K, V>> bulkLoader,
+                                                                             Priority priority, boolean batchMisses) {
+        // Claim every key that nobody is loading yet; join the in-flight loads for the rest
+        final Map<K, CompletableFuture<Object>> futures = new LinkedHashMap<>();
+        final Map<K, CompletableFuture<Object>> owned = new LinkedHashMap<>();
+        for (K key : keys) {
+            final CompletableFuture<Object> newFuture = new CompletableFuture<>();
+            final CompletableFuture<Object> existing = inFlight.putIfAbsent(key, newFuture);
+            if (existing != null) {
+                cacheMetrics.duplicateSuppressedIncrement();
+                futures.put(key, existing);
+            } else {
+                owned.put(key, newFuture);
+                futures.put(key, newFuture);
+            }
+        }
+        if (owned.isEmpty()) {
+            return futures;
+        }
+        inFlightGauge.addAndGet(owned.size());
+        if (batchMisses && missBatcher != null) {
+            missBatcher.add(castOwned(owned), castBulkLoader(bulkLoader), priority);
+        } else {
+            submitBulkLoad(owned, bulkLoader, priority);
+        }
+        return futures;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <K> Map<Object, CompletableFuture<Object>> castOwned(Map<K, CompletableFuture<Object>> owned) {
+        return (Map<Object, CompletableFuture<Object>>) (Map<?, ?>) owned;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <K, V> Function<Set<Object>, Map<Object, Object>> castBulkLoader(Function<Set<K>, Map<K, V>> bulkLoader) {
+        return (Function<Set<Object>, Map<Object, Object>>) (Function<?, ?>) bulkLoader;
+    }
+
+    /**
+     * Loads keys already claimed in {@link #inFlight} with one {@code bulkLoader} call, stores the results
+     * and completes (and unregisters) their futures.
+     */
+    private <K, V> void submitBulkLoad(Map<K, CompletableFuture<Object>> owned, Function<Set<K>, Map<K, V>> bulkLoader, Priority priority) {
+        final Runnable load = () -> {
+            Map<K, V> loaded = Map.of();
+            Exception failure = null;
             try {
                 cacheMetrics.refreshStartedIncrement();
-                final T value = cacheMetrics.callInTimer(() -> {
-                    T v = loader.call();
-                    if (v != null) {
-                        CachedEntry e = new CachedEntry(v, System.currentTimeMillis());
-                        l1.put(key, e);
-                        l2.put(key, e);
+                loaded = cacheMetrics.callInTimer(() -> {
+                    Map<K, V> values = bulkLoader.apply(owned.keySet());
+                    final long now = System.currentTimeMillis();
+                    final Map<Object, Object> entries = new HashMap<>();
+                    final Map<Object, CachedEntry> versionedEntries = new HashMap<>();
+                    for (K key : owned.keySet()) {
+                        final V v = values.get(key);
+                        if (v != null) {
+                            CachedEntry e = entry(v, now);
+                            if (e.getVersion() != 0L) {
+                                versionedEntries.put(key, e);
+                            } else {
+                                putLocal(key, e);
+                                entries.put(key, e);
+                            }
+                        } else if (negativeCaching != null) {
+                            CachedEntry tombstone = CachedEntry.tombstone(now);
+                            putLocal(key, tombstone);
+                            entries.put(key, tombstone);
+                            cacheMetrics.tombstoneMissIncrement();
+                        }
+                    }
+                    if (writeBehind != null) {
+                        entries.forEach((key, e) -> writeBehind.enqueue(key, (CachedEntry) e));
+                        versionedEntries.forEach((key, e) -> {
+                            if (!storeLoaded(key, e, false)) cacheMetrics.discardedWriteIncrement();
+                        });
+                        return values;
                     }
-                    return v;
+                    l2PutAll(entries);
+                    if (!versionedEntries.isEmpty()) {
+                        // Loads that lost against a newer write are dropped from every level
+                        final Set<Object> discarded = l2PutAllIfNewer(versionedEntries);
+                        versionedEntries.forEach((key, e) -> {
+                            if (discarded.contains(key) || !putLocalIfNewer(key, e)) {
+                                cacheMetrics.discardedWriteIncrement();
+                            }
+                        });
+                    }
+                    return values;
                 });
                 cacheMetrics.refreshSuccessIncrement();
-                newFuture.complete(value);
             } catch (Exception ex) {
                 cacheMetrics.refreshFailureIncrement();
-                newFuture.completeExceptionally(ex);
+                failure = ex;
             } finally {
-                inFlight.remove(key, newFuture);
-                inFlightGauge.decrementAndGet();
+                // As in settle(): unregister first, so a waiter's next lookup cannot join this finished load
+                owned.forEach(inFlight::remove);
+                inFlightGauge.addAndGet(-owned.size());
             }
-        });
+            for (Map.Entry<K, CompletableFuture<Object>> e : owned.entrySet()) {
+                if (failure != null) e.getValue().completeExceptionally(failure);
+                else e.getValue().complete(loaded.get(e.getKey()));
+            }
+        };
+        try {
+            refreshExecutor.execute(load, priority);
+        } catch (RejectedExecutionException rejected) {
+            owned.forEach((key, future) -> {
+                inFlight.remove(key, future);
+                future.completeExceptionally(rejected);
+            });
+            inFlightGauge.addAndGet(-owned.size());
+        }
+    }
+
+    private <T> CompletableFuture<Object> triggerRefreshAsync(Object key, Callable<T> loader, Priority priority) {
+        // Try to become the refresher; if a load is already in-flight, do nothing
+        final CompletableFuture<Object> newFuture = new CompletableFuture<>();
+        final CompletableFuture<Object> existing = inFlight.putIfAbsent(key, newFuture);
+        if (existing != null) {
+            cacheMetrics.duplicateSuppressedIncrement();
+            return existing;
+        }
+        inFlightGauge.incrementAndGet();
+
+        if (distributedSingleFlight == null) {
+            submitLoad(key, newFuture, () -> load(key, loader, false), priority);
+        } else if (l2Health.isDegraded()) {
+            // The lease lives in the same Redis as L2: do not add its timeouts to every miss while it is down
+            cacheMetrics.leaseFallbackIncrement();
+            submitLoad(key, newFuture, () -> load(key, loader, false), priority);
+        } else {
+            // Lease checks and polling wait on their own virtual thread; only the database load takes a refresh permit
+            LEASE_WAITERS.newThread(() -> leasedLoad(key, loader, priority, distributedSingleFlight, newFuture)).start();
+        }
         return newFuture;
     }
 
+    /**
+     * Runs {@code attempt} on the refresh executor and settles the in-flight future with its outcome.
+     *
+     * @return {@code false} if the executor rejected the task (the future is then already failed)
+     */
+    private boolean submitLoad(Object key, CompletableFuture<Object> future, Callable<?> attempt, Priority priority) {
+        try {
+            refreshExecutor.execute(() -> settle(key, future, attempt, null), priority);
+            return true;
+        } catch (RejectedExecutionException rejected) {
+            rejectLoad(key, future, rejected);
+            return false;
+        }
+    }
+
+    private void rejectLoad(Object key, CompletableFuture<Object> future, RejectedExecutionException rejected) {
+        inFlight.remove(key, future);
+        inFlightGauge.decrementAndGet();
+        future.completeExceptionally(rejected);
+    }
+
+    /**
+     * @param heldLease lease of {@code key} taken for this attempt: a tombstone goes straight to L2
+     *                  (see {@link #storeLoaded}) and the lease is released before the waiters wake up
+     */
+    private void settle(Object key, CompletableFuture<Object> future, Callable<?> attempt,
+                        @Nullable DistributedSingleFlight heldLease) {
+        Object value = null;
+        Exception failure = null;
+        try {
+            cacheMetrics.refreshStartedIncrement();
+            value = attempt.call();
+            cacheMetrics.refreshSuccessIncrement();
+        } catch (Exception ex) {
+            if (negativeCaching != null && negativeCaching.isAbsence(ex)) {
+                // Not a failure: the key does not exist. Remember that for a short while.
+                cacheMetrics.tombstoneMissIncrement();
+                putTombstone(key, heldLease != null);
+            } else {
+                cacheMetrics.refreshFailureIncrement();
+            }
+            failure = ex;
+        } finally {
+            if (heldLease != null) releaseQuietly(heldLease, key);
+            // Unregister before waking the waiters, so whatever they do next cannot join this finished load
+            inFlight.remove(key, future);
+            inFlightGauge.decrementAndGet();
+        }
+        if (failure != null) {
+            future.completeExceptionally(failure);
+        } else {
+            future.complete(value);
+        }
+    }
+
+    private <T> @Nullable T load(Object key, Callable<T> loader, boolean syncL2) throws Exception {
+        return cacheMetrics.callInTimer(() -> {
+            final long start = System.nanoTime();
+            T v = loader.call();
+            // Only the loader itself, not the L2 write below; bulk loads are kept out of these single-key estimates
+            final long loadNanos = System.nanoTime() - start;
+            if (l2Router != null) l2Router.recordLoad(loadNanos);
+            if (recomputeTime != null) recomputeTime.record(loadNanos);
+            if (v != null && !storeLoaded(key, entry(v, System.currentTimeMillis()), syncL2)) {
+                // A newer version was written while we were loading; our result is dropped
+                cacheMetrics.discardedWriteIncrement();
+            }
+            return v;
+        });
+    }
+
+    /**
+     * {@link #load} guarded by a cross-replica lease: only the holder hits the database, the others
+     * poll L2 until a value newer than the one they started from shows up (or L2 degrades). Runs outside the refresh
+     * executor, so replicas waiting for a peer do not hold back loads of other keys.
+     */
+    private <T> void leasedLoad(Object key, Callable<T> loader, Priority priority, DistributedSingleFlight sf,
+                                CompletableFuture<Object> future) {
+        final CachedEntry before = l2Entry(key);
+        final boolean acquired;
+        try {
+            acquired = sf.lease().tryAcquire(name, key);
+        } catch (RuntimeException leaseStoreDown) {
+            l2Failure(leaseStoreDown);
+            cacheMetrics.leaseFallbackIncrement();
+            submitLoad(key, future, () -> load(key, loader, false), priority);
+            return;
+        }
+        if (acquired) {
+            cacheMetrics.leaseAcquiredIncrement();
+            submitLeasedLoad(key, loader, priority, sf, future);
+            return;
+        }
+        if (priority == Priority.BACKGROUND && before != null && !before.isAbsent()) {
+            // Another replica is refreshing this key; callers keep getting the stale value meanwhile
+            cacheMetrics.leaseSkippedIncrement();
+            settle(key, future, before::getValue, null);
+            return;
+        }
+        final long deadline = System.nanoTime() + sf.maxWait().toNanos();
+        final long pollMillis = Math.max(1L, sf.pollInterval().toMillis());
+        try {
+            while (System.nanoTime() < deadline && !l2Health.isDegraded()) {
+                Thread.sleep(pollMillis);
+                final CachedEntry e = l2Entry(key);
+                if (e != null && (before == null || e.getWriteTimeMs() != before.getWriteTimeMs())) {
+                    cacheMetrics.leaseWaitedIncrement();
+                    settle(key, future, () -> {
+                        putLocal(key, e);
+                        if (e.isAbsent()) {
+                            throw negativeCaching.exceptionFactory().apply(key);
+                        }
+                        return e.getValue();
+                    }, null);
+                    return;
+                }
+                if (tryAcquireQuietly(sf, key)) {
+                    // The holder's lease expired (or it failed) without writing a value
+                    cacheMetrics.leaseFallbackIncrement();
+                    submitLeasedLoad(key, loader, priority, sf, future);
+                    return;
+                }
+            }
+        } catch (InterruptedException interrupted) {
+            Thread.currentThread().interrupt();
+            settle(key, future, () -> {
+                throw interrupted;
+            }, null);
+            return;
+        }
+        cacheMetrics.leaseFallbackIncrement();
+        submitLoad(key, future, () -> load(key, loader, false), priority);
+    }
+
+    /**
+     * Loads while holding the lease. Peers poll L2 until the lease is gone, so the value (or tombstone) is written
+     * to L2 before the release rather than through write-behind.
+     */
+    private <T> void submitLeasedLoad(Object key, Callable<T> loader, Priority priority, DistributedSingleFlight sf,
+                                      CompletableFuture<Object> future) {
+        try {
+            refreshExecutor.execute(() -> settle(key, future, () -> load(key, loader, true), sf), priority);
+        } catch (RejectedExecutionException rejected) {
+            releaseQuietly(sf, key);
+            rejectLoad(key, future, rejected);
+        }
+    }
+
+    private void releaseQuietly(DistributedSingleFlight sf, Object key) {
+        try {
+            sf.lease().release(name, key);
+        } catch (RuntimeException ignored) {
+            // The lease expires on its own
+        }
+    }
+
+    private boolean tryAcquireQuietly(DistributedSingleFlight sf, Object key) {
+        try {
+            return sf.lease().tryAcquire(name, key);
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+
+    private @Nullable CachedEntry l2Entry(Object key) {
+        final ValueWrapper v2 = l2Get(key);
+        return v2 != null ? live(toEntry(v2.get())) : null;
+    }
+
     @Override
     public void put(Object key, @Nullable Object value) {
         if (value == null) {
-            l1.put(key, null);
-            l2.put(key, null);
+            putLocal(key, null);
+            l2Write(() -> l2.put(key, null));
             return;
         }
-        CachedEntry e = new CachedEntry(value, System.currentTimeMillis());
-        l1.put(key, e);
-        l2.put(key, e);
+        CachedEntry e = entry(value, System.currentTimeMillis());
+        if (!putIfNewer(key, e, false)) {
+            cacheMetrics.discardedWriteIncrement();
+            return;
+        }
+        if (publisher != null) {
+            // Peers drop older versions and pick the new value up from L2; unversioned values cannot be
+            // ordered across hosts, so peers drop them outright
+            if (e.getVersion() > 0) {
+                publisher.publishUpdate(name, key, e.getVersion());
+            } else {
+                publisher.publishEvict(name, key);
+            }
+        }
     }
 
     @Override
     public void evict(Object key) {
         l1.evict(key);
-        l2.evict(key);
+        if (offHeap != null) offHeap.evict(key);
+        l2Write(() -> l2.evict(key));
+        cacheMetrics.evictionIncrement();
+        if (publisher != null) {
+            publisher.publishEvict(name, key);
+        }
+    }
+
+    /**
+     * Evicts the key and makes L2 discard later writes of versions older than {@code version}, such as a load
+     * that read the data before the change being evicted for. Plain {@link #evict} for unversioned data or an L2
+     * without compare-and-set.
+     */
+    public void evict(Object key, long version) {
+        if (version == 0L || !(l2 instanceof VersionedCache versioned)) {
+            evict(key);
+            return;
+        }
+        l1.evict(key);
+        if (offHeap != null) offHeap.evict(key);
+        l2Write(() -> versioned.evictVersion(key, version));
         cacheMetrics.evictionIncrement();
         if (publisher != null) {
             publisher.publishEvict(name, key);
@@ -225,10 +1284,20 @@ public class MultiLevelCache implements Cache {
     @Override
     public void clear() {
         l1.clear();
-        l2.clear();
+        if (offHeap != null) offHeap.clear();
+        l2Write(l2::clear);
         cacheMetrics.clearIncrement();
         if (publisher != null) {
             publisher.publishClear(name);
         }
     }
+
+    /**
+     * Dispatches pending miss batches and flushes queued L2 writes, then stops their threads.
+     */
+    @Override
+    public void close() {
+        if (missBatcher != null) missBatcher.close();
+        if (writeBehind != null) writeBehind.close();
+    }
 }
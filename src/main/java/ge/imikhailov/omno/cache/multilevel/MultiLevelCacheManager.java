@@ -2,7 +2,6 @@ package ge.imikhailov.omno.cache.multilevel;
 
 import ge.imikhailov.omno.cache.pubsub.CacheInvalidationPublisher;
 import ge.imikhailov.omno.metrics.CacheMetricsFactory;
-import lombok.RequiredArgsConstructor;
 import org.jspecify.annotations.Nullable;
 import org.springframework.cache.Cache;
 import org.springframework.cache.CacheManager;
@@ -10,16 +9,70 @@ import org.springframework.cache.CacheManager;
 import java.time.Duration;
 import java.util.Collection;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
-@RequiredArgsConstructor
-public class MultiLevelCacheManager implements CacheManager {
+public class MultiLevelCacheManager implements CacheManager, AutoCloseable {
 
     private final CacheManager l1;
+    private final @Nullable CacheManager offHeap;
     private final CacheManager l2;
     private final @Nullable CacheInvalidationPublisher publisher;
-    private final Duration softTtl;
+    private final MultiLevelCacheOptions options;
+    // Per-name overrides of options (soft TTL, refresh executor, ...)
+    private final Map<String, MultiLevelCacheOptions> cacheOptions;
     private final CacheMetricsFactory cacheMetricsFactory;
+    // One composite per name: single-flight, L2 health and latency tracking are per instance state
+    private final ConcurrentMap<String, MultiLevelCache> caches = new ConcurrentHashMap<>();
+
+    public MultiLevelCacheManager(CacheManager l1,
+                                  CacheManager l2,
+                                  @Nullable CacheInvalidationPublisher publisher,
+                                  Duration softTtl,
+                                  CacheMetricsFactory cacheMetricsFactory) {
+        this(l1, l2, publisher, MultiLevelCacheOptions.withSoftTtl(softTtl), cacheMetricsFactory);
+    }
+
+    public MultiLevelCacheManager(CacheManager l1,
+                                  CacheManager l2,
+                                  @Nullable CacheInvalidationPublisher publisher,
+                                  MultiLevelCacheOptions options,
+                                  CacheMetricsFactory cacheMetricsFactory) {
+        this(l1, null, l2, publisher, options, cacheMetricsFactory);
+    }
+
+    /**
+     * @param offHeap optional tier inserted between {@code l1} and {@code l2}
+     */
+    public MultiLevelCacheManager(CacheManager l1,
+                                  @Nullable CacheManager offHeap,
+                                  CacheManager l2,
+                                  @Nullable CacheInvalidationPublisher publisher,
+                                  MultiLevelCacheOptions options,
+                                  CacheMetricsFactory cacheMetricsFactory) {
+        this(l1, offHeap, l2, publisher, options, Map.of(), cacheMetricsFactory);
+    }
+
+    /**
+     * @param cacheOptions options for specific cache names; other names use {@code options}
+     */
+    public MultiLevelCacheManager(CacheManager l1,
+                                  @Nullable CacheManager offHeap,
+                                  CacheManager l2,
+                                  @Nullable CacheInvalidationPublisher publisher,
+                                  MultiLevelCacheOptions options,
+                                  Map<String, MultiLevelCacheOptions> cacheOptions,
+                                  CacheMetricsFactory cacheMetricsFactory) {
+        this.l1 = l1;
+        this.offHeap = offHeap;
+        this.l2 = l2;
+        this.publisher = publisher;
+        this.options = options;
+        this.cacheOptions = Map.copyOf(cacheOptions);
+        this.cacheMetricsFactory = cacheMetricsFactory;
+    }
 
     @Override
     public @Nullable Cache getCache(final String name) {
@@ -27,7 +80,10 @@ public class MultiLevelCacheManager implements CacheManager {
         final Cache c2 = l2.getCache(name);
 
         if (c1 != null && c2 != null) {
-            return new MultiLevelCache(name, c1, c2, softTtl, publisher, cacheMetricsFactory);
+            return caches.computeIfAbsent(name, n -> {
+                final Cache offHeapCache = offHeap != null ? offHeap.getCache(n) : null;
+                return new MultiLevelCache(n, c1, offHeapCache, c2, cacheOptions.getOrDefault(n, options), publisher, cacheMetricsFactory);
+            });
         }
         // If only one level has the cache defined, return it as-is
         return c1 != null ? c1 : c2;
@@ -40,4 +96,12 @@ public class MultiLevelCacheManager implements CacheManager {
         names.addAll(l2.getCacheNames());
         return names;
     }
+
+    /**
+     * Closes every cache built so far (see {@link MultiLevelCache#close()}).
+     */
+    @Override
+    public void close() {
+        caches.values().forEach(MultiLevelCache::close);
+    }
 }
@@ -0,0 +1,51 @@
+package ge.imikhailov.omno.cache.multilevel;
+
+import lombok.Builder;
+import lombok.Getter;
+import org.jspecify.annotations.Nullable;
+
+import java.time.Duration;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.ToLongFunction;
+
+/**
+ * Tunables of a {@link MultiLevelCache}. Defaults reproduce the original behaviour
+ * (fixed soft TTL disabled, loads on the common pool).
+ */
+@Getter
+@Builder(toBuilder = true)
+public class MultiLevelCacheOptions {
+
+    @Builder.Default
+    private final RefreshPolicy refreshPolicy = RefreshPolicy.fixed(Duration.ZERO);
+
+    @Builder.Default
+    private final RefreshExecutor refreshExecutor = RefreshExecutor.of(ForkJoinPool.commonPool());
+
+    // Source version of a value (e.g. a row version column); writes older than what a level holds are dropped.
+    // 0 means unknown: such writes are never discarded
+    @Builder.Default
+    private final ToLongFunction<Object> version = value -> 0L;
+
+    // Null disables tombstones for missing keys
+    private final @Nullable NegativeCaching negativeCaching;
+
+    // Null keeps single-flight per JVM only
+    private final @Nullable DistributedSingleFlight distributedSingleFlight;
+
+    // Null waits for L2 without racing the database
+    private final @Nullable HedgePolicy hedge;
+
+    // Null always consults L2 (only the circuit breaker can take it out of the path)
+    private final @Nullable L2BypassPolicy l2Bypass;
+
+    // Null writes loaded entries to L2 before completing the load
+    private final @Nullable WriteBehindPolicy writeBehind;
+
+    // Null starts a bulk load per caller
+    private final @Nullable MissBatchingPolicy missBatching;
+
+    public static MultiLevelCacheOptions withSoftTtl(final Duration softTtl) {
+        return builder().refreshPolicy(RefreshPolicy.fixed(softTtl)).build();
+    }
+}
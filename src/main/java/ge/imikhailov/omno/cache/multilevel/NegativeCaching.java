@@ -0,0 +1,24 @@
+package ge.imikhailov.omno.cache.multilevel;
+
+import java.time.Duration;
+import java.util.function.Function;
+
+/**
+ * Negative caching settings: when a loader fails with {@code absentType}, a short-lived tombstone is stored
+ * in both levels and subsequent reads fail fast with {@code exceptionFactory.apply(key)} until it expires.
+ *
+ * @param ttl              lifetime of a tombstone; should be much shorter than the regular TTL
+ * @param absentType       loader exception meaning "this key does not exist" (matched anywhere in the cause chain)
+ * @param exceptionFactory recreates that exception for a key served from a tombstone
+ */
+public record NegativeCaching(Duration ttl,
+                              Class<? extends RuntimeException> absentType,
+                              Function<Object, ? extends RuntimeException> exceptionFactory) {
+
+    boolean isAbsence(Throwable failure) {
+        for (Throwable t = failure; t != null; t = t.getCause() == t ? null : t.getCause()) {
+            if (absentType.isInstance(t)) return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,28 @@
+package ge.imikhailov.omno.cache.multilevel;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Runs cache loads for {@link MultiLevelCache}. Implementations may bound concurrency and queueing,
+ * and may prefer {@link Priority#FOREGROUND} loads (a caller is blocked on the result) over
+ * {@link Priority#BACKGROUND} ones (stale-while-revalidate refreshes).
+ */
+public interface RefreshExecutor {
+
+    enum Priority {
+        FOREGROUND, BACKGROUND
+    }
+
+    /**
+     * @throws RejectedExecutionException if the task cannot be accepted (e.g. queue full)
+     */
+    void execute(Runnable task, Priority priority);
+
+    /**
+     * Adapts a plain {@link Executor}; priorities are ignored.
+     */
+    static RefreshExecutor of(final Executor executor) {
+        return (task, priority) -> executor.execute(task);
+    }
+}
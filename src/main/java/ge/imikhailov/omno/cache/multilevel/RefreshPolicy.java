@@ -0,0 +1,67 @@
+package ge.imikhailov.omno.cache.multilevel;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Decides when a cached entry is old enough to be refreshed (stale-while-revalidate).
+ */
+public interface RefreshPolicy {
+
+    /**
+     * @param ageMs       time since the entry was written
+     * @param recomputeMs observed time it takes the loader to recompute a value (0 when unknown)
+     * @return true if the entry should be refreshed
+     */
+    boolean isStale(long ageMs, double recomputeMs);
+
+    /**
+     * @return false if {@link #isStale} ignores {@code recomputeMs}, so callers can skip measuring it
+     */
+    default boolean usesRecomputeTime() {
+        return true;
+    }
+
+    /**
+     * Deterministic cut-off: stale once the entry is {@code softTtl} old. Zero/negative disables refresh.
+     */
+    static RefreshPolicy fixed(final Duration softTtl) {
+        return new Fixed(softTtl.toMillis());
+    }
+
+    /**
+     * Probabilistic early expiration (XFetch, Vattani et al.): an entry is stale when
+     * {@code age - recompute * beta * ln(U) >= softTtl} for a fresh uniform {@code U} in (0, 1].
+     * The chance of refreshing rises as the entry approaches {@code softTtl}, and expensive loaders start
+     * earlier, so keys written together do not all refresh in the same instant. Beyond {@code softTtl}
+     * the entry is always stale.
+     */
+    static RefreshPolicy xfetch(final Duration softTtl, final double beta) {
+        return new XFetch(softTtl.toMillis(), Math.max(0.0d, beta));
+    }
+
+    record Fixed(long softTtlMs) implements RefreshPolicy {
+        @Override
+        public boolean isStale(long ageMs, double recomputeMs) {
+            if (softTtlMs <= 0) return false;
+            return ageMs >= softTtlMs;
+        }
+
+        @Override
+        public boolean usesRecomputeTime() {
+            return false;
+        }
+    }
+
+    record XFetch(long softTtlMs, double beta) implements RefreshPolicy {
+        @Override
+        public boolean isStale(long ageMs, double recomputeMs) {
+            if (softTtlMs <= 0) return false;
+            if (ageMs >= softTtlMs) return true;
+            if (recomputeMs <= 0.0d || beta == 0.0d) return false;
+            // 1 - nextDouble() is in (0, 1], so the log is finite and <= 0
+            final double gap = -recomputeMs * beta * Math.log(1.0d - ThreadLocalRandom.current().nextDouble());
+            return ageMs + gap >= softTtlMs;
+        }
+    }
+}
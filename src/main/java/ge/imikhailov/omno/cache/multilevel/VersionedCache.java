@@ -0,0 +1,35 @@
+package ge.imikhailov.omno.cache.multilevel;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Optional compare-and-set contract for shared cache levels: a write only lands if the level has not already
+ * seen a newer version of the key (also after the key was evicted). {@link MultiLevelCache} uses it for
+ * loader results and puts of versioned values (see {@link MultiLevelCacheOptions#getVersion()}).
+ */
+public interface VersionedCache {
+
+    /**
+     * @return {@code false} if the write was discarded because a newer version is known
+     */
+    boolean putIfNewer(Object key, CachedEntry entry);
+
+    /**
+     * Removes the key and records {@code version} as seen, so that writes of older versions stay discarded
+     * (e.g. a load that read the data before the change that caused the eviction).
+     */
+    void evictVersion(Object key, long version);
+
+    /**
+     * @return keys whose writes were discarded
+     */
+    default Set<Object> putAllIfNewer(Map<?, CachedEntry> entries) {
+        final Set<Object> discarded = new HashSet<>();
+        entries.forEach((key, entry) -> {
+            if (!putIfNewer(key, entry)) discarded.add(key);
+        });
+        return discarded;
+    }
+}
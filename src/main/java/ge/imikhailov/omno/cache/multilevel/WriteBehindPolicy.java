@@ -0,0 +1,12 @@
+package ge.imikhailov.omno.cache.multilevel;
+
+/**
+ * Write-behind for L2 writes on the load path: loaded entries are queued and flushed by a background
+ * worker in pipelined batches, so a caller waiting on a miss only pays for the load itself.
+ *
+ * @param capacity  bounded buffer; writes arriving while it is full are dropped (the entry is still in L1
+ *                  and the next miss on another replica simply reloads it)
+ * @param batchSize maximum number of entries per pipelined flush
+ */
+public record WriteBehindPolicy(int capacity, int batchSize) {
+}
@@ -0,0 +1,243 @@
+package ge.imikhailov.omno.cache.offheap;
+
+import org.jspecify.annotations.Nullable;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Local cache tier that keeps serialized values outside the Java heap, so a large working set does not add
+ * to GC marking work. Only the key index (key -> offset/length/expiry) lives on heap.
+ * <p>
+ * The capacity is split into segments (by key hash), each a direct {@link ByteBuffer} used as a ring log:
+ * values are appended at the write position and the oldest records are evicted when the log wraps over them
+ * (FIFO eviction). Overwritten or evicted keys leave dead space that is reclaimed on the next lap.
+ * Entries expire after a hard {@code ttl}; soft TTL is handled by the caller on the stored {@code CachedEntry}.
+ */
+public class OffHeapCache implements Cache {
+
+    private final String name;
+    private final RedisSerializer<Object> serializer;
+    private final long ttlMs;
+    private final Segment[] segments;
+
+    public OffHeapCache(final String name,
+                        final RedisSerializer<Object> serializer,
+                        final long capacityBytes,
+                        final int segmentCount,
+                        final Duration ttl) {
+        if (segmentCount <= 0 || capacityBytes / segmentCount <= 0 || capacityBytes / segmentCount > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Invalid off-heap capacity " + capacityBytes + " for " + segmentCount + " segments");
+        }
+        this.name = name;
+        this.serializer = serializer;
+        this.ttlMs = ttl.toMillis();
+        this.segments = new Segment[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            segments[i] = new Segment((int) (capacityBytes / segmentCount));
+        }
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return this;
+    }
+
+    @Override
+    public @Nullable ValueWrapper get(final Object key) {
+        final byte[] bytes = segmentFor(key).read(key, System.currentTimeMillis());
+        if (bytes == null) {
+            return null;
+        }
+        final Object value = serializer.deserialize(bytes);
+        return value != null ? new SimpleValueWrapper(value) : null;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> @Nullable T get(final Object key, @Nullable Class<T> type) {
+        final ValueWrapper wrapper = get(key);
+        final Object value = wrapper != null ? wrapper.get() : null;
+        if (value != null && type != null && !type.isInstance(value)) {
+            throw new IllegalStateException("Cached value is not of required type [" + type.getName() + "]: " + value);
+        }
+        return (T) value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> @Nullable T get(final Object key, final Callable<T> valueLoader) {
+        final ValueWrapper wrapper = get(key);
+        if (wrapper != null) {
+            return (T) wrapper.get();
+        }
+        try {
+            final T value = valueLoader.call();
+            put(key, value);
+            return value;
+        } catch (Exception e) {
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+    }
+
+    @Override
+    public void put(final Object key, @Nullable Object value) {
+        if (value == null) {
+            evict(key);
+            return;
+        }
+        final byte[] bytes = serializer.serialize(value);
+        if (bytes == null) {
+            evict(key);
+            return;
+        }
+        segmentFor(key).write(key, bytes, System.currentTimeMillis() + ttlMs);
+    }
+
+    @Override
+    public void evict(final Object key) {
+        segmentFor(key).remove(key);
+    }
+
+    @Override
+    public void clear() {
+        for (Segment segment : segments) {
+            segment.clear();
+        }
+    }
+
+    public long size() {
+        long size = 0;
+        for (Segment segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    private Segment segmentFor(final Object key) {
+        final int h = key.hashCode();
+        return segments[Math.floorMod(h ^ (h >>> 16), segments.length)];
+    }
+
+    private static final class Slot {
+        final Object key;
+        final int offset;
+        final int length;
+        final long expiresAtMs;
+
+        Slot(final Object key, final int offset, final int length, final long expiresAtMs) {
+            this.key = key;
+            this.offset = offset;
+            this.length = length;
+            this.expiresAtMs = expiresAtMs;
+        }
+    }
+
+    private static final class Segment {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final ByteBuffer buffer;
+        private final Map<Object, Slot> index = new HashMap<>();
+        // Every record in write order, including ones already replaced or removed from the index
+        private final ArrayDeque<Slot> log = new ArrayDeque<>();
+        private int head;
+
+        Segment(final int capacity) {
+            this.buffer = ByteBuffer.allocateDirect(capacity);
+        }
+
+        byte @Nullable [] read(final Object key, final long nowMs) {
+            lock.lock();
+            try {
+                final Slot slot = index.get(key);
+                if (slot == null) {
+                    return null;
+                }
+                if (slot.expiresAtMs <= nowMs) {
+                    index.remove(key);
+                    return null;
+                }
+                final byte[] bytes = new byte[slot.length];
+                buffer.get(slot.offset, bytes);
+                return bytes;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void write(final Object key, final byte[] bytes, final long expiresAtMs) {
+            final int capacity = buffer.capacity();
+            if (bytes.length > capacity) {
+                remove(key);
+                return;
+            }
+            lock.lock();
+            try {
+                if (head + bytes.length > capacity) {
+                    // Wrap: everything between the write position and the end belongs to the previous lap
+                    while (!log.isEmpty() && log.peekFirst().offset >= head) {
+                        evictOldest();
+                    }
+                    head = 0;
+                }
+                final int end = head + bytes.length;
+                while (!log.isEmpty() && log.peekFirst().offset >= head && log.peekFirst().offset < end) {
+                    evictOldest();
+                }
+                buffer.put(head, bytes);
+                final Slot slot = new Slot(key, head, bytes.length, expiresAtMs);
+                index.put(key, slot);
+                log.addLast(slot);
+                head = end;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void remove(final Object key) {
+            lock.lock();
+            try {
+                index.remove(key);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void clear() {
+            lock.lock();
+            try {
+                index.clear();
+                log.clear();
+                head = 0;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        int size() {
+            lock.lock();
+            try {
+                return index.size();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void evictOldest() {
+            final Slot oldest = log.pollFirst();
+            index.remove(oldest.key, oldest);
+        }
+    }
+}
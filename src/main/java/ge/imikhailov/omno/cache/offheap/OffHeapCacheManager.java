@@ -0,0 +1,44 @@
+package ge.imikhailov.omno.cache.offheap;
+
+import org.jspecify.annotations.Nullable;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Creates one {@link OffHeapCache} per cache name on first use; each gets the full configured capacity.
+ */
+public class OffHeapCacheManager implements CacheManager {
+
+    private final RedisSerializer<Object> serializer;
+    private final long capacityBytes;
+    private final int segments;
+    private final Duration ttl;
+    private final ConcurrentMap<String, OffHeapCache> caches = new ConcurrentHashMap<>();
+
+    public OffHeapCacheManager(final RedisSerializer<Object> serializer,
+                               final long capacityBytes,
+                               final int segments,
+                               final Duration ttl) {
+        this.serializer = serializer;
+        this.capacityBytes = capacityBytes;
+        this.segments = segments;
+        this.ttl = ttl;
+    }
+
+    @Override
+    public @Nullable Cache getCache(final String name) {
+        return caches.computeIfAbsent(name, n -> new OffHeapCache(n, serializer, capacityBytes, segments, ttl));
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return Set.copyOf(caches.keySet());
+    }
+}
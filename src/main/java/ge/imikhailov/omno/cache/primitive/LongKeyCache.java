@@ -0,0 +1,88 @@
+package ge.imikhailov.omno.cache.primitive;
+
+import org.jspecify.annotations.Nullable;
+import org.springframework.cache.support.AbstractValueAdaptingCache;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+
+/**
+ * L1 cache for caches keyed by numeric ids (e.g. product ids), backed by a {@link LongKeyMap} instead of Caffeine:
+ * entries are stored in primitive-keyed open-addressing tables with sampled LFU eviction, so a large L1 holds
+ * no boxed keys or per-entry nodes.
+ * <p>
+ * The native cache is the {@link LongKeyMap}, which {@code MultiLevelCache} reads directly. Entries expire a fixed
+ * {@code ttl} after they were written (no TTL jitter). {@link #get(Object, Callable)} does not block other
+ * callers of the same key while loading; the multi-level cache provides single-flight on top.
+ */
+public class LongKeyCache extends AbstractValueAdaptingCache {
+
+    private final String name;
+    private final LongKeyMap map;
+
+    public LongKeyCache(final String name, final long maximumSize, final Duration ttl) {
+        super(true);
+        this.name = name;
+        this.map = new LongKeyMap(maximumSize, ttl);
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public LongKeyMap getNativeCache() {
+        return map;
+    }
+
+    @Override
+    protected @Nullable Object lookup(final Object key) {
+        return map.get(key);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> @Nullable T get(final Object key, final Callable<T> valueLoader) {
+        final Object stored = map.get(key);
+        if (stored != null) {
+            return (T) fromStoreValue(stored);
+        }
+        try {
+            final T value = valueLoader.call();
+            put(key, value);
+            return value;
+        } catch (Exception e) {
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+    }
+
+    @Override
+    public void put(final Object key, @Nullable Object value) {
+        map.put(key, toStoreValue(value));
+    }
+
+    @Override
+    public @Nullable ValueWrapper putIfAbsent(final Object key, @Nullable Object value) {
+        return toValueWrapper(map.putIfAbsent(key, toStoreValue(value)));
+    }
+
+    @Override
+    public void evict(final Object key) {
+        map.remove(key);
+    }
+
+    @Override
+    public boolean evictIfPresent(final Object key) {
+        return map.remove(key) != null;
+    }
+
+    @Override
+    public void clear() {
+        map.clear();
+    }
+
+    public long size() {
+        return map.size();
+    }
+}
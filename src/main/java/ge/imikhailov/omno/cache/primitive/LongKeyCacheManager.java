@@ -0,0 +1,31 @@
+package ge.imikhailov.omno.cache.primitive;
+
+import org.jspecify.annotations.Nullable;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Fixed set of {@link LongKeyCache}s, created up front. Returns {@code null} for any other name,
+ * so it can sit in front of the Caffeine manager in a {@code CompositeCacheManager}.
+ */
+public class LongKeyCacheManager implements CacheManager {
+
+    private final Map<String, LongKeyCache> caches;
+
+    public LongKeyCacheManager(final Map<String, LongKeyCache> caches) {
+        this.caches = Map.copyOf(caches);
+    }
+
+    @Override
+    public @Nullable Cache getCache(final String name) {
+        return caches.get(name);
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return caches.keySet();
+    }
+}
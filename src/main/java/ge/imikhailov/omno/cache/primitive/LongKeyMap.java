@@ -0,0 +1,469 @@
+package ge.imikhailov.omno.cache.primitive;
+
+import org.jspecify.annotations.Nullable;
+
+import java.time.Duration;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.BiFunction;
+
+/**
+ * Bounded concurrent map keyed by primitive {@code long}, the store behind {@link LongKeyCache}.
+ * <p>
+ * Keys are split over segments; each segment is an open-addressing table (linear probing, backward-shift
+ * deletion) of parallel {@code long[]} keys, {@code Object[]} values, expiry and access-frequency arrays, sized
+ * once for its share of {@code maximumSize}. There is no per-entry node and no boxed key. Reads are optimistic
+ * ({@link StampedLock}) and never block; writes take the segment lock.
+ * <p>
+ * Eviction is frequency based: every hit bumps a saturating 4-bit counter, and a full segment evicts the least
+ * frequently used of the next {@value #EVICTION_SAMPLE} occupied slots after a rotating hand (expired entries
+ * first). Counters are halved every {@code 10 x capacity} writes so past popularity fades.
+ * Entries expire {@code ttl} after they were written.
+ * <p>
+ * The {@link ConcurrentMap} view accepts integral {@link Number} keys; other keys are never present
+ * and cannot be stored.
+ */
+public class LongKeyMap extends AbstractMap<Object, Object> implements ConcurrentMap<Object, Object> {
+
+    static final int EVICTION_SAMPLE = 8;
+    private static final int MAX_FREQUENCY = 15;
+    private static final int MAX_SEGMENTS = 16;
+
+    private final Segment[] segments;
+    private final int segmentMask;
+    private final long ttlNanos;
+
+    public LongKeyMap(final long maximumSize, final Duration ttl) {
+        if (maximumSize <= 0 || maximumSize > Integer.MAX_VALUE / 2) {
+            throw new IllegalArgumentException("Invalid maximum size " + maximumSize);
+        }
+        // Small maps keep one segment so eviction sees every entry; larger ones get up to 16
+        final int segmentCount = (int) Math.min(MAX_SEGMENTS, Long.highestOneBit(Math.max(1L, maximumSize / 1024)));
+        final int segmentCapacity = (int) ((maximumSize + segmentCount - 1) / segmentCount);
+        this.segments = new Segment[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            segments[i] = new Segment(segmentCapacity);
+        }
+        this.segmentMask = segmentCount - 1;
+        this.ttlNanos = ttl.isZero() || ttl.isNegative() ? Long.MAX_VALUE : ttl.toNanos();
+    }
+
+    public @Nullable Object get(final long key) {
+        final long h = hash(key);
+        return segmentFor(h).get(key, h, System.nanoTime());
+    }
+
+    public @Nullable Object put(final long key, final Object value) {
+        final long h = hash(key);
+        return segmentFor(h).put(key, h, value, System.nanoTime(), ttlNanos, false);
+    }
+
+    public @Nullable Object remove(final long key) {
+        final long h = hash(key);
+        return segmentFor(h).remove(key, h, null, System.nanoTime());
+    }
+
+    @Override
+    public @Nullable Object get(final Object key) {
+        return key instanceof Number n && isIntegral(n) ? get(n.longValue()) : null;
+    }
+
+    @Override
+    public boolean containsKey(final Object key) {
+        return get(key) != null;
+    }
+
+    @Override
+    public @Nullable Object put(final Object key, final Object value) {
+        return put(toLong(key), requireValue(value));
+    }
+
+    @Override
+    public @Nullable Object putIfAbsent(final Object key, final Object value) {
+        final long id = toLong(key);
+        final long h = hash(id);
+        return segmentFor(h).put(id, h, requireValue(value), System.nanoTime(), ttlNanos, true);
+    }
+
+    @Override
+    public @Nullable Object remove(final Object key) {
+        return key instanceof Number n && isIntegral(n) ? remove(n.longValue()) : null;
+    }
+
+    @Override
+    public boolean remove(final Object key, final Object value) {
+        if (!(key instanceof Number n) || !isIntegral(n) || value == null) return false;
+        final long h = hash(n.longValue());
+        return segmentFor(h).remove(n.longValue(), h, value, System.nanoTime()) != null;
+    }
+
+    @Override
+    public boolean replace(final Object key, final Object oldValue, final Object newValue) {
+        requireValue(newValue);
+        final boolean[] replaced = {false};
+        compute(key, (k, current) -> {
+            if (current != null && current.equals(oldValue)) {
+                replaced[0] = true;
+                return newValue;
+            }
+            return current;
+        });
+        return replaced[0];
+    }
+
+    @Override
+    public @Nullable Object replace(final Object key, final Object value) {
+        requireValue(value);
+        final Object[] previous = {null};
+        compute(key, (k, current) -> {
+            previous[0] = current;
+            return current != null ? value : null;
+        });
+        return previous[0];
+    }
+
+    /**
+     * Atomic within the key's segment; the remapping function runs under the segment lock and must be short.
+     */
+    @Override
+    public @Nullable Object compute(final Object key,
+                                    final BiFunction<? super Object, ? super Object, ?> remapping) {
+        final long id = toLong(key);
+        final long h = hash(id);
+        return segmentFor(h).compute(key, id, h, remapping, System.nanoTime(), ttlNanos);
+    }
+
+    @Override
+    public int size() {
+        long size = 0;
+        for (Segment segment : segments) {
+            size += segment.size();
+        }
+        return (int) Math.min(Integer.MAX_VALUE, size);
+    }
+
+    @Override
+    public void clear() {
+        for (Segment segment : segments) {
+            segment.clear();
+        }
+    }
+
+    /**
+     * Snapshot of the live entries; not backed by the map.
+     */
+    @Override
+    public Set<Entry<Object, Object>> entrySet() {
+        final List<Entry<Object, Object>> entries = new ArrayList<>();
+        final long now = System.nanoTime();
+        for (Segment segment : segments) {
+            segment.collect(entries, now);
+        }
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Entry<Object, Object>> iterator() {
+                return entries.iterator();
+            }
+
+            @Override
+            public int size() {
+                return entries.size();
+            }
+        };
+    }
+
+    private Segment segmentFor(final long h) {
+        return segments[(int) h & segmentMask];
+    }
+
+    // Murmur3 finalizer: low bits pick the segment, high bits the slot
+    static long hash(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return key;
+    }
+
+    private static boolean isIntegral(final Number n) {
+        return n instanceof Long || n instanceof Integer || n instanceof Short || n instanceof Byte;
+    }
+
+    private static long toLong(final Object key) {
+        if (key instanceof Number n && isIntegral(n)) {
+            return n.longValue();
+        }
+        throw new IllegalArgumentException("Only integral numeric keys are supported, got " + key);
+    }
+
+    private static Object requireValue(final @Nullable Object value) {
+        if (value == null) {
+            throw new NullPointerException("value");
+        }
+        return value;
+    }
+
+    private static final class Segment {
+        private final StampedLock lock = new StampedLock();
+        private final int capacity;
+        private final int mask;
+        private final long[] keys;
+        private final @Nullable Object[] values;
+        private final long[] expiresAt;
+        private final byte[] frequency;
+        private int size;
+        private int hand;
+        private int writesSinceAging;
+
+        Segment(final int capacity) {
+            // Load factor <= 0.75 keeps probe sequences short and guarantees an empty slot
+            final int length = Integer.highestOneBit(Math.max(2, capacity + capacity / 3) * 2 - 1);
+            this.capacity = capacity;
+            this.mask = length - 1;
+            this.keys = new long[length];
+            this.values = new Object[length];
+            this.expiresAt = new long[length];
+            this.frequency = new byte[length];
+        }
+
+        @Nullable Object get(final long key, final long h, final long now) {
+            final long stamp = lock.tryOptimisticRead();
+            if (stamp != 0L) {
+                final Object value = find(key, h, now);
+                if (lock.validate(stamp)) {
+                    return value;
+                }
+            }
+            final long readStamp = lock.readLock();
+            try {
+                return find(key, h, now);
+            } finally {
+                lock.unlockRead(readStamp);
+            }
+        }
+
+        private @Nullable Object find(final long key, final long h, final long now) {
+            int i = home(h);
+            // Bounded so that a torn optimistic read cannot spin; the stamp check discards its result anyway
+            for (int probes = 0; probes <= mask; probes++) {
+                final Object value = values[i];
+                if (value == null) {
+                    return null;
+                }
+                if (keys[i] == key) {
+                    if (expiresAt[i] - now <= 0) {
+                        return null;
+                    }
+                    // Racy increment: a lost update only makes the counter approximate
+                    final int f = frequency[i];
+                    if (f < MAX_FREQUENCY) frequency[i] = (byte) (f + 1);
+                    return value;
+                }
+                i = (i + 1) & mask;
+            }
+            return null;
+        }
+
+        @Nullable Object put(final long key, final long h, final Object value, final long now, final long ttl, final boolean onlyIfAbsent) {
+            final long stamp = lock.writeLock();
+            try {
+                final int i = indexOf(key, h);
+                if (i >= 0 && expiresAt[i] - now > 0) {
+                    final Object previous = values[i];
+                    if (!onlyIfAbsent) {
+                        values[i] = value;
+                        expiresAt[i] = expiry(now, ttl);
+                    }
+                    return previous;
+                }
+                if (i >= 0) {
+                    values[i] = value;
+                    expiresAt[i] = expiry(now, ttl);
+                    frequency[i] = 1;
+                } else {
+                    insert(key, h, value, expiry(now, ttl), now);
+                }
+                return null;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        /**
+         * @param expected remove only if mapped to this value; {@code null} removes any mapping
+         * @return the removed live value, or {@code null} if nothing was removed
+         */
+        @Nullable Object remove(final long key, final long h, final @Nullable Object expected, final long now) {
+            final long stamp = lock.writeLock();
+            try {
+                final int i = indexOf(key, h);
+                if (i < 0) {
+                    return null;
+                }
+                final Object current = values[i];
+                final boolean live = expiresAt[i] - now > 0;
+                if (expected != null && !(live && expected.equals(current))) {
+                    return null;
+                }
+                delete(i);
+                return live ? current : null;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        @Nullable Object compute(final Object boxedKey, final long key, final long h,
+                                 final BiFunction<? super Object, ? super Object, ?> remapping,
+                                 final long now, final long ttl) {
+            final long stamp = lock.writeLock();
+            try {
+                final int i = indexOf(key, h);
+                final Object current = i >= 0 && expiresAt[i] - now > 0 ? values[i] : null;
+                final Object next = remapping.apply(boxedKey, current);
+                if (next == null) {
+                    if (i >= 0) delete(i);
+                } else if (next != current) {
+                    if (i >= 0) {
+                        values[i] = next;
+                        expiresAt[i] = expiry(now, ttl);
+                        if (current == null) frequency[i] = 1;
+                    } else {
+                        insert(key, h, next, expiry(now, ttl), now);
+                    }
+                }
+                return next;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        int size() {
+            final long stamp = lock.readLock();
+            try {
+                return size;
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        void clear() {
+            final long stamp = lock.writeLock();
+            try {
+                Arrays.fill(values, null);
+                Arrays.fill(frequency, (byte) 0);
+                size = 0;
+                writesSinceAging = 0;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        void collect(final List<Entry<Object, Object>> out, final long now) {
+            final long stamp = lock.readLock();
+            try {
+                for (int i = 0; i <= mask; i++) {
+                    if (values[i] != null && expiresAt[i] - now > 0) {
+                        out.add(new SimpleImmutableEntry<>(keys[i], values[i]));
+                    }
+                }
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        private int home(final long h) {
+            return (int) (h >>> 32) & mask;
+        }
+
+        private int indexOf(final long key, final long h) {
+            int i = home(h);
+            while (values[i] != null) {
+                if (keys[i] == key) return i;
+                i = (i + 1) & mask;
+            }
+            return -1;
+        }
+
+        private void insert(final long key, final long h, final Object value, final long expiry, final long now) {
+            if (size >= capacity) {
+                evictOne(now);
+            }
+            int i = home(h);
+            while (values[i] != null) {
+                i = (i + 1) & mask;
+            }
+            keys[i] = key;
+            expiresAt[i] = expiry;
+            frequency[i] = 1;
+            values[i] = value;
+            size++;
+            if (++writesSinceAging >= capacity * 10) {
+                age();
+            }
+        }
+
+        private void evictOne(final long now) {
+            int victim = -1;
+            int victimFrequency = Integer.MAX_VALUE;
+            int seen = 0;
+            int i = hand;
+            for (int probes = 0; probes <= mask && seen < EVICTION_SAMPLE; probes++, i = (i + 1) & mask) {
+                if (values[i] == null) continue;
+                seen++;
+                if (expiresAt[i] - now <= 0) {
+                    victim = i;
+                    break;
+                }
+                if (frequency[i] < victimFrequency) {
+                    victim = i;
+                    victimFrequency = frequency[i];
+                }
+            }
+            hand = (i + 1) & mask;
+            if (victim >= 0) {
+                delete(victim);
+            }
+        }
+
+        private void age() {
+            for (int i = 0; i <= mask; i++) {
+                frequency[i] = (byte) (frequency[i] >> 1);
+            }
+            writesSinceAging = 0;
+        }
+
+        // Backward-shift deletion: pull later entries of the probe run into the gap so lookups stop at empty slots
+        private void delete(int gap) {
+            int i = gap;
+            while (true) {
+                i = (i + 1) & mask;
+                if (values[i] == null) break;
+                final int home = home(hash(keys[i]));
+                // The entry may move into the gap only if its home slot is not cyclically within (gap, i]
+                final boolean stays = gap <= i ? (gap < home && home <= i) : (gap < home || home <= i);
+                if (!stays) {
+                    keys[gap] = keys[i];
+                    expiresAt[gap] = expiresAt[i];
+                    frequency[gap] = frequency[i];
+                    values[gap] = values[i];
+                    gap = i;
+                }
+            }
+            values[gap] = null;
+            frequency[gap] = 0;
+            size--;
+        }
+
+        private static long expiry(final long now, final long ttl) {
+            return ttl == Long.MAX_VALUE ? now + Long.MAX_VALUE / 2 : now + ttl;
+        }
+    }
+}
@@ -1,6 +1,10 @@
 package ge.imikhailov.omno.cache.pubsub;
 
+import ge.imikhailov.omno.cache.offheap.OffHeapCacheManager;
+import ge.imikhailov.omno.cache.primitive.LongKeyCacheManager;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cache.CacheManager;
 import org.springframework.cache.caffeine.CaffeineCacheManager;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -11,6 +15,9 @@ import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.listener.adapter.MessageListenerAdapter;
 import org.springframework.data.redis.core.StringRedisTemplate;
 
+import java.util.ArrayList;
+import java.util.List;
+
 @Configuration
 @ConditionalOnProperty(prefix = "cache.invalidate", name = "enabled", havingValue = "true")
 @ConditionalOnProperty(prefix = "cache.l2", name = "enabled", havingValue = "true", matchIfMissing = true)
@@ -23,8 +30,14 @@ public class CacheInvalidateSubscriber {
     }
 
     @Bean
-    RedisMessageSubscriber redisMessageSubscriber(CaffeineCacheManager caffeineCacheManager) {
-        return new RedisMessageSubscriber(caffeineCacheManager);
+    RedisMessageSubscriber redisMessageSubscriber(CaffeineCacheManager caffeineCacheManager,
+                                                  ObjectProvider<LongKeyCacheManager> longKeyCacheManager,
+                                                  ObjectProvider<OffHeapCacheManager> offHeapCacheManager) {
+        final List<CacheManager> local = new ArrayList<>();
+        local.add(caffeineCacheManager);
+        longKeyCacheManager.ifAvailable(local::add);
+        offHeapCacheManager.ifAvailable(local::add);
+        return new RedisMessageSubscriber(local);
     }
 
     @Bean
@@ -12,6 +12,15 @@ public interface CacheInvalidationPublisher {
      */
     void publishEvict(String cacheName, Object key);
 
+    /**
+     * Publish that {@code version} of cache/key was written to the shared level.
+     * Peers drop only local copies of an older version, so their next read is served from L2.
+     * Format expected by current subscriber: "UPDATE <cacheName> <key> <version>"
+     */
+    default void publishUpdate(String cacheName, Object key, long version) {
+        publishEvict(cacheName, key);
+    }
+
     /**
      * Publish a clear event for a particular cache.
      * Format expected by current subscriber: "CLEAR <cacheName>"
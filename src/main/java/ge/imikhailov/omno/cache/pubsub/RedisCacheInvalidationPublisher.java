@@ -23,6 +23,17 @@ public class RedisCacheInvalidationPublisher implements CacheInvalidationPublish
         }
     }
 
+    @Override
+    public void publishUpdate(String cacheName, Object key, long version) {
+        if (cacheName == null || key == null) return;
+        String payload = "UPDATE " + cacheName + " " + key + " " + version;
+        try {
+            redisTemplate.convertAndSend(topic.getTopic(), payload);
+        } catch (Exception e) {
+            log.warn("Failed to publish cache update: {}", payload, e);
+        }
+    }
+
     @Override
     public void publishClear(String cacheName) {
         if (cacheName == null) return;
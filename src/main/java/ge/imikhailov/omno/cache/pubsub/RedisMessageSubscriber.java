@@ -1,26 +1,37 @@
 package ge.imikhailov.omno.cache.pubsub;
 
-import lombok.RequiredArgsConstructor;
+import ge.imikhailov.omno.cache.multilevel.CachedEntry;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.cache.caffeine.CaffeineCacheManager;
 
 import java.nio.charset.StandardCharsets;
+import java.util.List;
 import java.util.Locale;
 
 /**
- * Subscribes to a Redis Pub/Sub channel and invalidates the local L1 (Caffeine) cache accordingly.
+ * Subscribes to a Redis Pub/Sub channel and invalidates the local caches (Caffeine and long-keyed L1 and, when enabled,
+ * the off-heap tier) accordingly.
  * </br>
  * Supported message formats (space-delimited):
  * - CLEAR <cacheName>
  * - EVICT <cacheName> <key>
+ * - UPDATE <cacheName> <key> <version> (evicts local copies of older versions)
  * - CLEAR_ALL
  */
 @Slf4j
-@RequiredArgsConstructor
 public class RedisMessageSubscriber {
 
-    private final CaffeineCacheManager caffeineCacheManager;
+    private final List<CacheManager> localCacheManagers;
+
+    public RedisMessageSubscriber(CaffeineCacheManager caffeineCacheManager) {
+        this(List.of(caffeineCacheManager));
+    }
+
+    public RedisMessageSubscriber(List<CacheManager> localCacheManagers) {
+        this.localCacheManagers = List.copyOf(localCacheManagers);
+    }
 
     // Called by MessageListenerAdapter via reflection
     public void handleMessage(String message) {
@@ -59,37 +70,84 @@ public class RedisMessageSubscriber {
                 }
                 evict(parts[1], parts[2]);
             }
+            case "UPDATE" -> {
+                if (parts.length < 4) {
+                    log.warn("UPDATE requires <cacheName> <key> <version>: {}", msg);
+                    return;
+                }
+                update(parts[1], parts[2], Long.parseLong(parts[3]));
+            }
             default -> log.warn("Unknown cache-invalidate operation: {}", op);
         }
     }
 
     private void clearAll() {
-        for (String name : caffeineCacheManager.getCacheNames()) {
-            Cache cache = caffeineCacheManager.getCache(name);
-            if (cache != null) {
-                cache.clear();
+        for (CacheManager manager : localCacheManagers) {
+            for (String name : manager.getCacheNames()) {
+                Cache cache = manager.getCache(name);
+                if (cache != null) {
+                    cache.clear();
+                }
             }
         }
         log.debug("Cleared all L1 caches");
     }
 
     private void clear(String cacheName) {
-        Cache cache = caffeineCacheManager.getCache(cacheName);
-        if (cache != null) {
-            cache.clear();
-            log.debug("Cleared L1 cache: {}", cacheName);
-        } else {
-            log.debug("L1 cache not found to clear: {}", cacheName);
+        for (CacheManager manager : localCacheManagers) {
+            Cache cache = manager.getCache(cacheName);
+            if (cache != null) {
+                cache.clear();
+                log.debug("Cleared L1 cache: {}", cacheName);
+            } else {
+                log.debug("L1 cache not found to clear: {}", cacheName);
+            }
+        }
+    }
+
+    private void evict(String cacheName, String key) {
+        for (CacheManager manager : localCacheManagers) {
+            evict(manager, cacheName, key);
+        }
+    }
+
+    private void update(String cacheName, String key, long version) {
+        for (CacheManager manager : localCacheManagers) {
+            Cache cache = manager.getCache(cacheName);
+            if (cache == null) continue;
+            Long numericKey = parseLong(key);
+            for (Object k : numericKey != null ? List.of(key, numericKey) : List.of(key)) {
+                Cache.ValueWrapper local = cache.get(k);
+                // Keep copies at least as new as the published version (e.g. the writer's own L1); versions come
+                // from the data, not from clocks, so they compare across hosts
+                if (local != null && !(local.get() instanceof CachedEntry e && !e.isAbsent() && e.getVersion() >= version)) {
+                    cache.evict(k);
+                }
+            }
         }
+        log.debug("Applied update to local caches: {} -> {} @ version {}", cacheName, key, version);
     }
 
-    private void evict(String cacheName, Object key) {
-        Cache cache = caffeineCacheManager.getCache(cacheName);
+    private void evict(CacheManager manager, String cacheName, String key) {
+        Cache cache = manager.getCache(cacheName);
         if (cache != null) {
             cache.evict(key);
+            // Keys travel as text; numeric ids are cached under their Long form (e.g. price tombstones)
+            Long numericKey = parseLong(key);
+            if (numericKey != null) {
+                cache.evict(numericKey);
+            }
             log.debug("Evicted key from L1 cache: {} -> {}", cacheName, key);
         } else {
             log.debug("L1 cache not found to evict from: {}", cacheName);
         }
     }
+
+    private static Long parseLong(String key) {
+        try {
+            return Long.valueOf(key);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
 }
@@ -0,0 +1,136 @@
+package ge.imikhailov.omno.cache.redis;
+
+import ge.imikhailov.omno.metrics.CompressionMetrics;
+import org.jspecify.annotations.Nullable;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Deflate wrapper around an L2 value serializer. Payloads of at least {@code thresholdBytes} are stored as
+ * {@code [0x1F][codec][raw length varint][deflate data]}; smaller (or incompressible) ones are stored as the
+ * delegate wrote them. Neither JSON ({@code '{'}) nor the binary price format starts with {@code 0x1F}, so
+ * compressed and plain entries are read transparently.
+ */
+public class CompressingRedisSerializer implements RedisSerializer<Object> {
+
+    static final byte MAGIC = 0x1F;
+    static final byte CODEC_DEFLATE = 0x01;
+
+    private final RedisSerializer<Object> delegate;
+    private final int thresholdBytes;
+    private final int level;
+    private final CompressionMetrics metrics;
+
+    public CompressingRedisSerializer(final RedisSerializer<Object> delegate,
+                                      final int thresholdBytes,
+                                      final int level,
+                                      final CompressionMetrics metrics) {
+        this.delegate = delegate;
+        this.thresholdBytes = thresholdBytes;
+        this.level = level;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public byte[] serialize(@Nullable Object value) throws SerializationException {
+        final byte[] raw = delegate.serialize(value);
+        if (raw == null || raw.length < thresholdBytes) {
+            metrics.belowThresholdIncrement();
+            return raw;
+        }
+        final long start = System.nanoTime();
+        final byte[] compressed = compress(raw);
+        metrics.recordCompress(System.nanoTime() - start);
+        if (compressed.length >= raw.length) {
+            metrics.incompressibleIncrement();
+            return raw;
+        }
+        metrics.recordCompressed(raw.length, compressed.length);
+        return compressed;
+    }
+
+    @Override
+    public @Nullable Object deserialize(byte @Nullable [] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0 || bytes[0] != MAGIC) {
+            return delegate.deserialize(bytes);
+        }
+        if (bytes.length < 2 || bytes[1] != CODEC_DEFLATE) {
+            // Codec from a newer writer: treat as a miss
+            return null;
+        }
+        final long start = System.nanoTime();
+        final byte[] raw = decompress(bytes);
+        metrics.recordDecompress(System.nanoTime() - start);
+        return delegate.deserialize(raw);
+    }
+
+    private byte[] compress(final byte[] raw) {
+        final Deflater deflater = new Deflater(level, true);
+        try {
+            deflater.setInput(raw);
+            deflater.finish();
+            byte[] out = new byte[Math.max(16, raw.length / 2)];
+            int pos = writeHeader(out, raw.length);
+            while (!deflater.finished()) {
+                if (pos == out.length) {
+                    out = Arrays.copyOf(out, out.length * 2);
+                }
+                pos += deflater.deflate(out, pos, out.length - pos);
+            }
+            return Arrays.copyOf(out, pos);
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static int writeHeader(final byte[] out, int rawLength) {
+        int pos = 0;
+        out[pos++] = MAGIC;
+        out[pos++] = CODEC_DEFLATE;
+        while ((rawLength & ~0x7F) != 0) {
+            out[pos++] = (byte) ((rawLength & 0x7F) | 0x80);
+            rawLength >>>= 7;
+        }
+        out[pos++] = (byte) rawLength;
+        return pos;
+    }
+
+    private static byte[] decompress(final byte[] bytes) {
+        int pos = 2;
+        int rawLength = 0;
+        for (int shift = 0; ; shift += 7) {
+            if (shift > 28) {
+                throw new SerializationException("Malformed compressed L2 entry header");
+            }
+            final byte b = bytes[pos++];
+            rawLength |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) break;
+        }
+        final Inflater inflater = new Inflater(true);
+        try {
+            inflater.setInput(bytes, pos, bytes.length - pos);
+            final byte[] raw = new byte[rawLength];
+            int n = 0;
+            while (n < rawLength && !inflater.finished()) {
+                final int read = inflater.inflate(raw, n, rawLength - n);
+                if (read == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                n += read;
+            }
+            if (n != rawLength) {
+                throw new SerializationException("Truncated compressed L2 entry");
+            }
+            return raw;
+        } catch (DataFormatException e) {
+            throw new SerializationException("Cannot inflate L2 entry", e);
+        } finally {
+            inflater.end();
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package ge.imikhailov.omno.cache.redis;
+
+import org.jspecify.annotations.Nullable;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisPipelineException;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Integer-returning Lua script called by its SHA1 (EVALSHA). The body only travels when the server does not have it
+ * cached yet (first call, SCRIPT FLUSH, failover), signalled by a NOSCRIPT error.
+ */
+final class LuaScript {
+    private final byte[] body;
+    private final byte[] sha1;
+    private final int numKeys;
+
+    LuaScript(final String source, final int numKeys) {
+        this.body = source.getBytes(StandardCharsets.UTF_8);
+        this.sha1 = RedisScript.of(source).getSha1().getBytes(StandardCharsets.UTF_8);
+        this.numKeys = numKeys;
+    }
+
+    @Nullable Long run(final RedisConnection connection, final byte[]... keysAndArgs) {
+        try {
+            return connection.scriptingCommands().evalSha(sha1, ReturnType.INTEGER, numKeys, keysAndArgs);
+        } catch (RuntimeException e) {
+            if (!isNoScript(e)) throw e;
+            // EVAL also caches the script, so the next call is an EVALSHA hit again
+            return connection.scriptingCommands().eval(body, ReturnType.INTEGER, numKeys, keysAndArgs);
+        }
+    }
+
+    void runPipelined(final RedisConnection connection, final byte[]... keysAndArgs) {
+        connection.scriptingCommands().evalSha(sha1, ReturnType.INTEGER, numKeys, keysAndArgs);
+    }
+
+    void load(final RedisConnection connection) {
+        connection.scriptingCommands().scriptLoad(body);
+    }
+
+    static boolean isNoScript(final Throwable failure) {
+        for (Throwable t = failure; t != null; t = t.getCause() == t ? null : t.getCause()) {
+            if (t.getMessage() != null && t.getMessage().contains("NOSCRIPT")) return true;
+            if (t instanceof RedisPipelineException pipeline) {
+                for (Object result : pipeline.getPipelineResult()) {
+                    if (result instanceof Throwable error && error != t && isNoScript(error)) return true;
+                }
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,253 @@
+package ge.imikhailov.omno.cache.redis;
+
+import ge.imikhailov.omno.cache.multilevel.CachedEntry;
+import ge.imikhailov.omno.dto.AdjustmentDto;
+import ge.imikhailov.omno.dto.PriceDto;
+import ge.imikhailov.omno.enums.AdjustmentMode;
+import ge.imikhailov.omno.enums.AdjustmentType;
+import org.jspecify.annotations.Nullable;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Compact binary encoding for {@link CachedEntry} values holding a {@link PriceDto} (or a tombstone).
+ * <p>
+ * Layout (v1): {@code [version=0x01][flags][writeTimeMs varint]} followed, for non-tombstones, by the price:
+ * a presence bitmask, {@code productId} varint, money as {@code scale, unscaled} zig-zag varints,
+ * adjustment count and per adjustment {@code value, type ordinal + 1, mode ordinal + 1}, then the entry
+ * {@code version} varint (the product version, restored into the price as well). Fields are only ever appended, so older readers ignore trailing ones.
+ * <p>
+ * Anything else (other value types, amounts that do not fit a long) is written with the JSON delegate.
+ * JSON payloads start with {@code '{'}, so both formats can be read side by side while a rolling deploy
+ * switches writers; entries with an unknown version are treated as a cache miss.
+ */
+public class PriceEntryRedisSerializer implements RedisSerializer<Object> {
+
+    static final byte FORMAT_V1 = 0x01;
+
+    private static final int FLAG_ABSENT = 1;
+
+    private static final int HAS_PRODUCT_ID = 1;
+    private static final int HAS_BASE_PRICE = 1 << 1;
+    private static final int HAS_FINAL_PRICE = 1 << 2;
+    private static final int HAS_ADJUSTMENTS = 1 << 3;
+    private static final int HAS_VERSION = 1 << 4;
+
+    private static final AdjustmentType[] TYPES = AdjustmentType.values();
+    private static final AdjustmentMode[] MODES = AdjustmentMode.values();
+
+    private final RedisSerializer<Object> json;
+    private final boolean writeBinary;
+
+    public PriceEntryRedisSerializer(final RedisSerializer<Object> json) {
+        this(json, true);
+    }
+
+    /**
+     * @param writeBinary {@code false} keeps writing JSON while still reading both formats
+     *                    (first phase of a rolling deploy)
+     */
+    public PriceEntryRedisSerializer(final RedisSerializer<Object> json, final boolean writeBinary) {
+        this.json = json;
+        this.writeBinary = writeBinary;
+    }
+
+    @Override
+    public byte[] serialize(@Nullable Object value) throws SerializationException {
+        if (writeBinary && value instanceof CachedEntry entry) {
+            if (entry.isAbsent()) {
+                return header(entry).toByteArray();
+            }
+            if (entry.getValue() instanceof PriceDto dto) {
+                // The accessors rebuild the amounts and the list on every call: read each once
+                final BigDecimal basePrice = dto.basePrice();
+                final BigDecimal finalPrice = dto.finalPrice();
+                final List<AdjustmentDto> adjustments = dto.adjustments();
+                if (isEncodable(basePrice, finalPrice, adjustments)) {
+                    final Writer out = header(entry);
+                    writePrice(out, dto.productId(), basePrice, finalPrice, adjustments, entry.getVersion());
+                    return out.toByteArray();
+                }
+            }
+        }
+        return json.serialize(value);
+    }
+
+    private static Writer header(final CachedEntry entry) {
+        final Writer out = new Writer();
+        out.writeByte(FORMAT_V1);
+        out.writeByte(entry.isAbsent() ? FLAG_ABSENT : 0);
+        out.writeVarLong(entry.getWriteTimeMs());
+        return out;
+    }
+
+    @Override
+    public @Nullable Object deserialize(byte @Nullable [] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        if (bytes[0] != FORMAT_V1) {
+            // JSON ('{') from older writers; anything else is a format from a newer writer
+            return bytes[0] == '{' ? json.deserialize(bytes) : null;
+        }
+        try {
+            final Reader in = new Reader(bytes, 1);
+            final int flags = in.readByte();
+            final long writeTimeMs = in.readVarLong();
+            if ((flags & FLAG_ABSENT) != 0) {
+                return CachedEntry.tombstone(writeTimeMs);
+            }
+            final PriceDto price = readPrice(in);
+            return new CachedEntry(price, writeTimeMs, false, price.version() != null ? price.version() : 0L);
+        } catch (RuntimeException e) {
+            throw new SerializationException("Cannot decode binary price entry", e);
+        }
+    }
+
+    private static boolean isEncodable(final @Nullable BigDecimal basePrice,
+                                       final @Nullable BigDecimal finalPrice,
+                                       final @Nullable List<AdjustmentDto> adjustments) {
+        if (!fitsLong(basePrice) || !fitsLong(finalPrice)) {
+            return false;
+        }
+        if (adjustments != null) {
+            for (AdjustmentDto a : adjustments) {
+                if (a == null || a.value() == null || !fitsLong(a.value())) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static boolean fitsLong(final @Nullable BigDecimal amount) {
+        return amount == null || amount.unscaledValue().bitLength() < Long.SIZE;
+    }
+
+    private static void writePrice(final Writer out,
+                                   final @Nullable Long productId,
+                                   final @Nullable BigDecimal basePrice,
+                                   final @Nullable BigDecimal finalPrice,
+                                   final @Nullable List<AdjustmentDto> adjustments,
+                                   final long version) {
+        int mask = 0;
+        if (productId != null) mask |= HAS_PRODUCT_ID;
+        if (basePrice != null) mask |= HAS_BASE_PRICE;
+        if (finalPrice != null) mask |= HAS_FINAL_PRICE;
+        if (adjustments != null) mask |= HAS_ADJUSTMENTS;
+        if (version != 0L) mask |= HAS_VERSION;
+        out.writeByte(mask);
+        if (productId != null) out.writeZigZag(productId);
+        if (basePrice != null) writeMoney(out, basePrice);
+        if (finalPrice != null) writeMoney(out, finalPrice);
+        if (adjustments != null) {
+            out.writeVarLong(adjustments.size());
+            for (AdjustmentDto a : adjustments) {
+                writeMoney(out, a.value());
+                out.writeVarLong(a.type() == null ? 0 : a.type().ordinal() + 1);
+                out.writeVarLong(a.mode() == null ? 0 : a.mode().ordinal() + 1);
+            }
+        }
+        if (version != 0L) out.writeVarLong(version);
+    }
+
+    private static PriceDto readPrice(final Reader in) {
+        final int mask = in.readByte();
+        final Long productId = (mask & HAS_PRODUCT_ID) != 0 ? in.readZigZag() : null;
+        final BigDecimal basePrice = (mask & HAS_BASE_PRICE) != 0 ? readMoney(in) : null;
+        final BigDecimal finalPrice = (mask & HAS_FINAL_PRICE) != 0 ? readMoney(in) : null;
+        List<AdjustmentDto> adjustments = null;
+        if ((mask & HAS_ADJUSTMENTS) != 0) {
+            final int size = (int) in.readVarLong();
+            adjustments = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                final BigDecimal value = readMoney(in);
+                final int type = (int) in.readVarLong();
+                final int mode = (int) in.readVarLong();
+                adjustments.add(new AdjustmentDto(value, type == 0 ? null : TYPES[type - 1], mode == 0 ? null : MODES[mode - 1]));
+            }
+            adjustments = List.copyOf(adjustments);
+        }
+        final Long version = (mask & HAS_VERSION) != 0 ? in.readVarLong() : null;
+        return new PriceDto(productId, basePrice, finalPrice, adjustments, version);
+    }
+
+    private static void writeMoney(final Writer out, final BigDecimal amount) {
+        out.writeZigZag(amount.scale());
+        out.writeZigZag(amount.unscaledValue().longValue());
+    }
+
+    private static BigDecimal readMoney(final Reader in) {
+        final int scale = (int) in.readZigZag();
+        return BigDecimal.valueOf(in.readZigZag(), scale);
+    }
+
+    private static final class Writer {
+        private byte[] buf = new byte[64];
+        private int pos;
+
+        void writeByte(final int b) {
+            ensure(1);
+            buf[pos++] = (byte) b;
+        }
+
+        void writeVarLong(long v) {
+            ensure(10);
+            while ((v & ~0x7FL) != 0) {
+                buf[pos++] = (byte) ((v & 0x7F) | 0x80);
+                v >>>= 7;
+            }
+            buf[pos++] = (byte) v;
+        }
+
+        void writeZigZag(final long v) {
+            writeVarLong((v << 1) ^ (v >> 63));
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buf, pos);
+        }
+
+        private void ensure(final int n) {
+            if (pos + n > buf.length) {
+                buf = Arrays.copyOf(buf, Math.max(buf.length * 2, pos + n));
+            }
+        }
+    }
+
+    private static final class Reader {
+        private final byte[] buf;
+        private int pos;
+
+        Reader(final byte[] buf, final int pos) {
+            this.buf = buf;
+            this.pos = pos;
+        }
+
+        int readByte() {
+            return buf[pos++] & 0xFF;
+        }
+
+        long readVarLong() {
+            long result = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                final byte b = buf[pos++];
+                result |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return result;
+                }
+            }
+            throw new IllegalStateException("Malformed varint");
+        }
+
+        long readZigZag() {
+            final long v = readVarLong();
+            return (v >>> 1) ^ -(v & 1);
+        }
+    }
+}
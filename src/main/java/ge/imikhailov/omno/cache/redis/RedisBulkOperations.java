@@ -0,0 +1,222 @@
+package ge.imikhailov.omno.cache.redis;
+
+import ge.imikhailov.omno.cache.multilevel.BulkCache;
+import ge.imikhailov.omno.cache.multilevel.CachedEntry;
+import ge.imikhailov.omno.cache.multilevel.VersionedCache;
+import org.jspecify.annotations.Nullable;
+import org.springframework.data.redis.cache.RedisCache;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.RedisPipelineException;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.data.redis.util.ByteUtils;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Multi-key access to the keyspace of a single {@link RedisCache}: one MGET for lookups and
+ * one pipelined batch of SETs for writes. Keys and values are encoded exactly as {@link RedisCache}
+ * does (same prefix, key conversion, value serializer and TTL function), so entries written here
+ * are readable through the regular cache API and vice versa.
+ * <p>
+ * Also provides version-conditional writes: a Lua script compares the entry version with a
+ * {@code <key>:v} sidecar that outlives evictions (same TTL as the value) and only writes if it is not older.
+ * Versioned evictions delete the value and advance the sidecar. Scripts are sent by SHA1 once the server has them.
+ */
+public class RedisBulkOperations implements BulkCache, VersionedCache {
+
+    // KEYS: value key, version key; ARGV: value, version, ttl millis (0 = persistent). Returns 1 if written.
+    private static final LuaScript PUT_IF_NEWER = new LuaScript("""
+            local current = tonumber(redis.call('GET', KEYS[2]) or '0')
+            local version = tonumber(ARGV[2])
+            if version < current then
+                return 0
+            end
+            if tonumber(ARGV[3]) > 0 then
+                redis.call('SET', KEYS[1], ARGV[1], 'PX', ARGV[3])
+                redis.call('SET', KEYS[2], ARGV[2], 'PX', ARGV[3])
+            else
+                redis.call('SET', KEYS[1], ARGV[1])
+                redis.call('SET', KEYS[2], ARGV[2])
+            end
+            return 1
+            """, 2);
+
+    // KEYS: value key, version key; ARGV: version, ttl millis (0 = persistent)
+    private static final LuaScript EVICT_VERSION = new LuaScript("""
+            redis.call('DEL', KEYS[1])
+            local current = tonumber(redis.call('GET', KEYS[2]) or '0')
+            if tonumber(ARGV[1]) <= current then
+                return 0
+            end
+            if tonumber(ARGV[2]) > 0 then
+                redis.call('SET', KEYS[2], ARGV[1], 'PX', ARGV[2])
+            else
+                redis.call('SET', KEYS[2], ARGV[1])
+            end
+            return 1
+            """, 2);
+
+    private final RedisCacheConfiguration config;
+    private final RedisKeyEncoder keyEncoder;
+    private final RedisConnectionFactory connectionFactory;
+
+    public RedisBulkOperations(final RedisCache redisCache, final RedisConnectionFactory connectionFactory) {
+        this.config = redisCache.getCacheConfiguration();
+        this.keyEncoder = new RedisKeyEncoder(redisCache.getName(), config);
+        this.connectionFactory = connectionFactory;
+    }
+
+    @Override
+    public Map<Object, Object> getAll(final Collection<?> keys) {
+        if (keys.isEmpty()) {
+            return Map.of();
+        }
+        final List<Object> keyList = new ArrayList<>(keys);
+        final byte[][] rawKeys = new byte[keyList.size()][];
+        for (int i = 0; i < rawKeys.length; i++) {
+            rawKeys[i] = serializeKey(keyList.get(i));
+        }
+
+        final List<byte[]> rawValues;
+        try (RedisConnection connection = connectionFactory.getConnection()) {
+            rawValues = connection.stringCommands().mGet(rawKeys);
+        }
+
+        final Map<Object, Object> result = new HashMap<>();
+        if (rawValues == null) {
+            return result;
+        }
+        for (int i = 0; i < rawValues.size() && i < keyList.size(); i++) {
+            final byte[] raw = rawValues.get(i);
+            if (raw != null) {
+                final Object value = config.getValueSerializationPair().read(ByteBuffer.wrap(raw));
+                if (value != null) {
+                    result.put(keyList.get(i), value);
+                }
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public void putAll(final Map<?, ?> entries) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        try (RedisConnection connection = connectionFactory.getConnection()) {
+            connection.openPipeline();
+            try {
+                for (Map.Entry<?, ?> entry : entries.entrySet()) {
+                    final Object value = entry.getValue();
+                    if (value == null) continue;
+                    connection.stringCommands().set(
+                            serializeKey(entry.getKey()),
+                            ByteUtils.getBytes(config.getValueSerializationPair().write(value)),
+                            expiration(entry.getKey(), value),
+                            RedisStringCommands.SetOption.upsert());
+                }
+            } finally {
+                connection.closePipeline();
+            }
+        }
+    }
+
+    @Override
+    public boolean putIfNewer(final Object key, final CachedEntry entry) {
+        try (RedisConnection connection = connectionFactory.getConnection()) {
+            final Long written = PUT_IF_NEWER.run(connection, putIfNewerArgs(key, entry));
+            return written == null || written != 0L;
+        }
+    }
+
+    @Override
+    public Set<Object> putAllIfNewer(final Map<?, CachedEntry> entries) {
+        if (entries.isEmpty()) {
+            return Set.of();
+        }
+        final List<Object> keys = new ArrayList<>(entries.keySet());
+        List<Object> results;
+        try (RedisConnection connection = connectionFactory.getConnection()) {
+            try {
+                results = putAllIfNewer(connection, keys, entries);
+            } catch (RedisPipelineException e) {
+                if (!LuaScript.isNoScript(e)) throw e;
+                // Script cache flushed or a new server: load it and replay the batch (the writes are idempotent)
+                PUT_IF_NEWER.load(connection);
+                results = putAllIfNewer(connection, keys, entries);
+            }
+        }
+        final Set<Object> discarded = new HashSet<>();
+        for (int i = 0; i < keys.size() && i < results.size(); i++) {
+            if (results.get(i) instanceof Long written && written == 0L) {
+                discarded.add(keys.get(i));
+            }
+        }
+        return discarded;
+    }
+
+    private List<Object> putAllIfNewer(final RedisConnection connection, final List<Object> keys, final Map<?, CachedEntry> entries) {
+        connection.openPipeline();
+        try {
+            for (Object key : keys) {
+                PUT_IF_NEWER.runPipelined(connection, putIfNewerArgs(key, entries.get(key)));
+            }
+        } catch (RuntimeException e) {
+            connection.closePipeline();
+            throw e;
+        }
+        return connection.closePipeline();
+    }
+
+    @Override
+    public void evictVersion(final Object key, final long version) {
+        final long ttlMs = ttlMillis(key, null);
+        try (RedisConnection connection = connectionFactory.getConnection()) {
+            EVICT_VERSION.run(connection,
+                    keyEncoder.encode(key),
+                    keyEncoder.encodeVersionKey(key),
+                    Long.toString(version).getBytes(StandardCharsets.UTF_8),
+                    Long.toString(ttlMs).getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private byte[][] putIfNewerArgs(final Object key, final CachedEntry entry) {
+        final long ttlMs = ttlMillis(key, entry);
+        return new byte[][]{
+                keyEncoder.encode(key),
+                keyEncoder.encodeVersionKey(key),
+                ByteUtils.getBytes(config.getValueSerializationPair().write(entry)),
+                Long.toString(entry.getVersion()).getBytes(StandardCharsets.UTF_8),
+                Long.toString(ttlMs).getBytes(StandardCharsets.UTF_8)
+        };
+    }
+
+    private long ttlMillis(final Object key, final @Nullable Object value) {
+        final Duration ttl = config.getTtlFunction().getTimeToLive(key, value);
+        return ttl == null || ttl.isNegative() ? 0L : ttl.toMillis();
+    }
+
+    byte[] serializeKey(final Object key) {
+        return keyEncoder.encode(key);
+    }
+
+    private Expiration expiration(final Object key, final Object value) {
+        final Duration ttl = config.getTtlFunction().getTimeToLive(key, value);
+        if (ttl == null || ttl.isZero() || ttl.isNegative()) {
+            return Expiration.persistent();
+        }
+        return Expiration.from(ttl);
+    }
+}
@@ -0,0 +1,119 @@
+package ge.imikhailov.omno.cache.redis;
+
+import org.jspecify.annotations.Nullable;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.util.ByteUtils;
+
+import java.util.Arrays;
+
+/**
+ * Encodes cache keys to the Redis key bytes {@code RedisCache} uses ({@code <prefix><key>} through the
+ * configured conversion service and key serializer).
+ * <p>
+ * {@link Long} keys skip the string round trip: the prefix bytes are encoded once and the digits are written
+ * straight after them. The shortcut is only enabled if it reproduces the regular encoding for a probe key,
+ * so a non-string key serializer or a custom conversion falls back to the generic path.
+ * <p>
+ * Version sidecars are named so that they hash to the same Redis Cluster slot as their value key: the value key
+ * becomes the sidecar's hash tag ({@code {<key>}:v}), or the sidecar reuses the value key's own hash tag.
+ */
+public class RedisKeyEncoder {
+
+    static final String VERSION_SUFFIX = ":v";
+    private static final long PROBE_KEY = -9_876_543_210L;
+    private static final byte[] NO_BYTES = new byte[0];
+
+    private final String cacheName;
+    private final RedisCacheConfiguration config;
+    // Encoded key prefix when long keys can take the direct path, and the sidecar's parts around the digits
+    private final byte @Nullable [] longKeyPrefix;
+    private final byte[] longVersionPrefix;
+    private final byte[] longVersionSuffix;
+
+    public RedisKeyEncoder(final String cacheName, final RedisCacheConfiguration config) {
+        this.cacheName = cacheName;
+        this.config = config;
+        final String prefix = config.usePrefix() ? config.getKeyPrefixFor(cacheName) : "";
+        final byte[] prefixBytes = serialize(prefix);
+        // Digits never contain braces, so the probe decides the sidecar layout of every long key
+        final boolean wrapped = versionKey(cacheKey(PROBE_KEY)).startsWith("{");
+        this.longVersionPrefix = wrapped ? serialize("{" + prefix) : prefixBytes;
+        this.longVersionSuffix = serialize(wrapped ? "}" + VERSION_SUFFIX : VERSION_SUFFIX);
+        this.longKeyPrefix = Arrays.equals(encodeLong(prefixBytes, PROBE_KEY, NO_BYTES), serialize(cacheKey(PROBE_KEY)))
+                && Arrays.equals(encodeLong(longVersionPrefix, PROBE_KEY, longVersionSuffix), serialize(versionKey(cacheKey(PROBE_KEY))))
+                ? prefixBytes
+                : null;
+    }
+
+    public byte[] encode(final Object key) {
+        if (longKeyPrefix != null && key instanceof Long id && id != Long.MIN_VALUE) {
+            return encodeLong(longKeyPrefix, id, NO_BYTES);
+        }
+        return serialize(cacheKey(key));
+    }
+
+    /**
+     * Key of the version sidecar: {@code {<key>}:v}, or {@code <key>:v} if the key already has a hash tag.
+     */
+    public byte[] encodeVersionKey(final Object key) {
+        if (longKeyPrefix != null && key instanceof Long id && id != Long.MIN_VALUE) {
+            return encodeLong(longVersionPrefix, id, longVersionSuffix);
+        }
+        return serialize(versionKey(cacheKey(key)));
+    }
+
+    /**
+     * Sidecar name in the cluster slot of {@code cacheKey}. A key that contains '}' without forming a hash tag
+     * cannot be one; its sidecar stays {@code <key>:v} (fine outside Redis Cluster).
+     */
+    static String versionKey(final String cacheKey) {
+        final int open = cacheKey.indexOf('{');
+        final int close = open >= 0 ? cacheKey.indexOf('}', open + 1) : -1;
+        if (close > open + 1 || cacheKey.indexOf('}') >= 0) {
+            return cacheKey + VERSION_SUFFIX;
+        }
+        return "{" + cacheKey + "}" + VERSION_SUFFIX;
+    }
+
+    String cacheKey(final Object key) {
+        final String converted = convertKey(key);
+        return config.usePrefix() ? config.getKeyPrefixFor(cacheName) + converted : converted;
+    }
+
+    private byte[] serialize(final String cacheKey) {
+        return ByteUtils.getBytes(config.getKeySerializationPair().write(cacheKey));
+    }
+
+    private String convertKey(final Object key) {
+        if (key instanceof String s) {
+            return s;
+        }
+        if (config.getConversionService().canConvert(key.getClass(), String.class)) {
+            final String converted = config.getConversionService().convert(key, String.class);
+            if (converted != null) {
+                return converted;
+            }
+        }
+        return key.toString();
+    }
+
+    // ASCII digits of id between prefix and suffix; id must not be Long.MIN_VALUE
+    private static byte[] encodeLong(final byte[] prefix, final long id, final byte[] suffixBytes) {
+        long v = Math.abs(id);
+        int digits = 1;
+        for (long p = 10; digits < 19 && p <= v; p *= 10) {
+            digits++;
+        }
+        final int sign = id < 0 ? 1 : 0;
+        final int length = prefix.length + sign + digits + suffixBytes.length;
+        final byte[] out = Arrays.copyOf(prefix, length);
+        if (sign == 1) out[prefix.length] = '-';
+        int pos = prefix.length + sign + digits;
+        do {
+            out[--pos] = (byte) ('0' + v % 10);
+            v /= 10;
+        } while (v != 0);
+        System.arraycopy(suffixBytes, 0, out, prefix.length + sign + digits, suffixBytes.length);
+        return out;
+    }
+}
@@ -0,0 +1,58 @@
+package ge.imikhailov.omno.cache.redis;
+
+import ge.imikhailov.omno.cache.multilevel.LoadLease;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.core.types.Expiration;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.UUID;
+
+/**
+ * {@link LoadLease} backed by {@code SET <prefix>lease:<cache>::<key> <owner> NX PX <ttl>}.
+ * Release only deletes the key while it still holds this instance's owner token, so a lease that expired
+ * and was taken over by another replica is left alone.
+ */
+public class RedisLoadLease implements LoadLease {
+
+    // KEYS: lease key; ARGV: owner token. Compare-and-delete.
+    private static final LuaScript RELEASE = new LuaScript("""
+            if redis.call('GET', KEYS[1]) == ARGV[1] then
+                return redis.call('DEL', KEYS[1])
+            end
+            return 0
+            """, 1);
+
+    private final RedisConnectionFactory connectionFactory;
+    private final String prefix;
+    private final Expiration ttl;
+    // One token per instance is enough: the in-process single-flight never runs two loads of the same key
+    private final byte[] owner = UUID.randomUUID().toString().getBytes(StandardCharsets.UTF_8);
+
+    public RedisLoadLease(final RedisConnectionFactory connectionFactory, final String prefix, final Duration ttl) {
+        this.connectionFactory = connectionFactory;
+        this.prefix = prefix == null ? "" : prefix;
+        this.ttl = Expiration.from(ttl);
+    }
+
+    @Override
+    public boolean tryAcquire(final String cacheName, final Object key) {
+        try (RedisConnection connection = connectionFactory.getConnection()) {
+            return Boolean.TRUE.equals(connection.stringCommands()
+                    .set(leaseKey(cacheName, key), owner, ttl, RedisStringCommands.SetOption.ifAbsent()));
+        }
+    }
+
+    @Override
+    public void release(final String cacheName, final Object key) {
+        try (RedisConnection connection = connectionFactory.getConnection()) {
+            RELEASE.run(connection, leaseKey(cacheName, key), owner);
+        }
+    }
+
+    private byte[] leaseKey(final String cacheName, final Object key) {
+        return (prefix + "lease:" + cacheName + "::" + key).getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,254 @@
+package ge.imikhailov.omno.cache.snapshot;
+
+import ge.imikhailov.omno.cache.multilevel.CachedEntry;
+import ge.imikhailov.omno.cache.primitive.LongKeyCache;
+import ge.imikhailov.omno.cache.primitive.LongKeyMap;
+import lombok.extern.slf4j.Slf4j;
+import org.jspecify.annotations.Nullable;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Warm restarts for the L1: the hottest entries of every L1 cache (with their original
+ * {@code writeTimeMs}) are written to a memory-mapped snapshot file periodically and on graceful shutdown,
+ * and loaded back on startup, before the web server starts taking traffic.
+ * <p>
+ * Caffeine caches contribute their hottest entries; {@link LongKeyCache}s keep no recency order and contribute up to
+ * the same number of live entries in table order.
+ * <p>
+ * Entries older than their cache's soft TTL are dropped on load, so nothing restored is already due for a refresh.
+ * Tombstones are not persisted. The file is written to a temp file and moved into place atomically.
+ * <p>
+ * Layout: {@code [magic][count]} then per entry {@code [cache name][key tag][key][value length][value]},
+ * values encoded with the L2 value serializer.
+ */
+@Slf4j
+public class L1Snapshot implements SmartLifecycle {
+
+    static final int MAGIC = 0x4F4D4E31; // "OMN1"
+    private static final byte KEY_LONG = 1;
+    private static final byte KEY_STRING = 2;
+
+    private final CacheManager cacheManager;
+    private final RedisSerializer<Object> serializer;
+    private final Path file;
+    private final int maxEntriesPerCache;
+    private final Function<String, Duration> softTtl;
+    private final Duration interval;
+    private ScheduledExecutorService scheduler;
+    private volatile boolean running;
+
+    /**
+     * @param cacheManager L1 caches to save and restore (Caffeine and/or {@link LongKeyCache})
+     * @param softTtl      soft TTL by cache name
+     */
+    public L1Snapshot(final CacheManager cacheManager,
+                      final RedisSerializer<Object> serializer,
+                      final Path file,
+                      final int maxEntriesPerCache,
+                      final Function<String, Duration> softTtl,
+                      final Duration interval) {
+        this.cacheManager = cacheManager;
+        this.serializer = serializer;
+        this.file = file;
+        this.maxEntriesPerCache = maxEntriesPerCache;
+        this.softTtl = softTtl;
+        this.interval = interval;
+    }
+
+    @Override
+    public void start() {
+        restore();
+        if (!interval.isZero() && !interval.isNegative()) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().daemon().name("l1-snapshot").factory());
+            scheduler.scheduleWithFixedDelay(this::saveQuietly, interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+        }
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+        saveQuietly();
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Early phase: restored before the web server starts, saved after it has stopped accepting requests.
+     */
+    @Override
+    public int getPhase() {
+        return 0;
+    }
+
+    /**
+     * @return number of entries written
+     */
+    int save() throws IOException {
+        final List<byte[]> records = new ArrayList<>();
+        long size = Integer.BYTES * 2L;
+        for (String name : cacheManager.getCacheNames()) {
+            final Cache cache = cacheManager.getCache(name);
+            final Map<?, ?> entries = cache != null ? hottest(cache.getNativeCache()) : Map.of();
+            for (Map.Entry<?, ?> e : entries.entrySet()) {
+                final byte[] record = encode(name, e.getKey(), e.getValue());
+                if (record != null) {
+                    records.add(record);
+                    size += record.length;
+                }
+            }
+        }
+
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        final Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            buffer.putInt(MAGIC).putInt(records.size());
+            for (byte[] record : records) {
+                buffer.put(record);
+            }
+            buffer.force();
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return records.size();
+    }
+
+    /**
+     * @return number of entries loaded into L1
+     */
+    int restore() {
+        if (!Files.isRegularFile(file)) {
+            return 0;
+        }
+        final long now = System.currentTimeMillis();
+        int restored = 0;
+        int skipped = 0;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.remaining() < Integer.BYTES * 2 || buffer.getInt() != MAGIC) {
+                log.warn("Ignoring L1 snapshot {} with unknown format", file);
+                return 0;
+            }
+            final int count = buffer.getInt();
+            for (int i = 0; i < count; i++) {
+                final String name = readString(buffer, Short.toUnsignedInt(buffer.getShort()));
+                final Object key = readKey(buffer);
+                final byte[] value = new byte[buffer.getInt()];
+                buffer.get(value);
+                if (serializer.deserialize(value) instanceof CachedEntry entry
+                        && now - entry.getWriteTimeMs() < softTtl.apply(name).toMillis()) {
+                    final Cache cache = cacheManager.getCache(name);
+                    if (cache != null) {
+                        cache.put(key, entry);
+                        restored++;
+                        continue;
+                    }
+                }
+                skipped++;
+            }
+        } catch (IOException | RuntimeException e) {
+            // Truncated or foreign file: keep whatever was restored so far
+            log.warn("Failed to read L1 snapshot {} after {} entries", file, restored, e);
+        }
+        log.info("Restored {} L1 entries from {} ({} expired or unreadable)", restored, file, skipped);
+        return restored;
+    }
+
+    private void saveQuietly() {
+        try {
+            final int saved = save();
+            log.debug("Saved {} L1 entries to {}", saved, file);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Failed to write L1 snapshot {}", file, e);
+        }
+    }
+
+    private Map<?, ?> hottest(final Object nativeCache) {
+        if (nativeCache instanceof com.github.benmanes.caffeine.cache.Cache<?, ?> caffeine) {
+            return caffeine.policy().eviction()
+                    .<Map<?, ?>>map(eviction -> eviction.hottest(maxEntriesPerCache))
+                    .orElseGet(caffeine::asMap);
+        }
+        if (nativeCache instanceof LongKeyMap map) {
+            final Map<Object, Object> entries = new LinkedHashMap<>();
+            for (Map.Entry<Object, Object> e : map.entrySet()) {
+                if (entries.size() >= maxEntriesPerCache) break;
+                entries.put(e.getKey(), e.getValue());
+            }
+            return entries;
+        }
+        return Map.of();
+    }
+
+    private byte @Nullable [] encode(final String name, final Object key, final Object value) {
+        if (!(value instanceof CachedEntry entry) || entry.isAbsent()) {
+            return null;
+        }
+        final byte[] keyBytes;
+        final byte keyTag;
+        if (key instanceof Long l) {
+            keyTag = KEY_LONG;
+            keyBytes = ByteBuffer.allocate(Long.BYTES).putLong(l).array();
+        } else if (key instanceof String s) {
+            keyTag = KEY_STRING;
+            final byte[] utf8 = s.getBytes(StandardCharsets.UTF_8);
+            keyBytes = ByteBuffer.allocate(Integer.BYTES + utf8.length).putInt(utf8.length).put(utf8).array();
+        } else {
+            return null;
+        }
+        final byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+        final byte[] valueBytes = serializer.serialize(entry);
+        if (valueBytes == null) {
+            return null;
+        }
+        return ByteBuffer.allocate(Short.BYTES + nameBytes.length + 1 + keyBytes.length + Integer.BYTES + valueBytes.length)
+                .putShort((short) nameBytes.length).put(nameBytes)
+                .put(keyTag).put(keyBytes)
+                .putInt(valueBytes.length).put(valueBytes)
+                .array();
+    }
+
+    private static Object readKey(final ByteBuffer buffer) {
+        final byte tag = buffer.get();
+        return switch (tag) {
+            case KEY_LONG -> buffer.getLong();
+            case KEY_STRING -> readString(buffer, buffer.getInt());
+            default -> throw new IllegalArgumentException("Unknown key tag " + tag);
+        };
+    }
+
+    private static String readString(final ByteBuffer buffer, final int length) {
+        final byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
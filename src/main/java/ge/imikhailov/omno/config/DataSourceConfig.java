@@ -0,0 +1,94 @@
+package ge.imikhailov.omno.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+
+/**
+ * Transaction templates and the optional read replica. With {@code db.replica.enabled}, the application's
+ * {@link DataSource} routes read-only transactions ({@code @Transactional(readOnly = true)},
+ * {@link #READ_ONLY_TRANSACTIONS}) to the replica pool and everything else to the primary pool; each pool has its own
+ * Hikari settings and metrics ({@code hikaricp.*}, tag {@code pool}).
+ */
+@Configuration
+public class DataSourceConfig {
+
+    public static final String READ_ONLY_TRANSACTIONS = "readOnlyTransactionTemplate";
+
+    // Declaring any TransactionOperations replaces Boot's default template, so it is declared here as well
+    @Bean
+    @Primary
+    public TransactionTemplate transactionTemplate(final PlatformTransactionManager transactionManager) {
+        return new TransactionTemplate(transactionManager);
+    }
+
+    @Bean(READ_ONLY_TRANSACTIONS)
+    public TransactionTemplate readOnlyTransactionTemplate(final PlatformTransactionManager transactionManager) {
+        final TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setReadOnly(true);
+        return template;
+    }
+
+    @Configuration
+    @ConditionalOnProperty(name = "db.replica.enabled", havingValue = "true")
+    static class ReadReplicaConfig {
+
+        @Value("${db.replica.url}")
+        private String replicaUrl;
+
+        @Value("${db.replica.username:${spring.datasource.username:}}")
+        private String replicaUsername;
+
+        @Value("${db.replica.password:${spring.datasource.password:}}")
+        private String replicaPassword;
+
+        // Same binding as Boot's own pool, which steps back once a DataSource bean is declared
+        @Bean
+        @ConfigurationProperties("spring.datasource.hikari")
+        HikariDataSource primaryDataSource(final DataSourceProperties properties) {
+            final HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+            dataSource.setPoolName("primary");
+            return dataSource;
+        }
+
+        @Bean
+        @ConfigurationProperties("db.replica.hikari")
+        HikariDataSource replicaDataSource(final DataSourceProperties properties) {
+            final HikariDataSource dataSource = DataSourceBuilder.create()
+                    .type(HikariDataSource.class)
+                    .driverClassName(properties.determineDriverClassName())
+                    .url(replicaUrl)
+                    .username(replicaUsername)
+                    .password(replicaPassword)
+                    .build();
+            dataSource.setPoolName("replica");
+            dataSource.setReadOnly(true);
+            return dataSource;
+        }
+
+        /**
+         * Connections are fetched on the first statement, after the transaction has marked them read-only, so the
+         * target pool is chosen per transaction.
+         */
+        @Bean
+        @Primary
+        DataSource dataSource(@Qualifier("primaryDataSource") final DataSource primary,
+                              @Qualifier("replicaDataSource") final DataSource replica) {
+            final LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(primary);
+            dataSource.setReadOnlyDataSource(replica);
+            return dataSource;
+        }
+    }
+}
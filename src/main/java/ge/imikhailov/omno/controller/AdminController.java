@@ -2,6 +2,7 @@ package ge.imikhailov.omno.controller;
 
 import ge.imikhailov.omno.dto.AdjustmentDto;
 import ge.imikhailov.omno.service.PriceService;
+import ge.imikhailov.omno.service.PriceSnapshotService;
 import ge.imikhailov.omno.service.SeedingService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.web.bind.annotation.*;
@@ -16,8 +17,11 @@ import java.util.Map;
 @RequiredArgsConstructor
 public class AdminController {
 
+    private static final int SNAPSHOT_CHUNK_SIZE = 1000;
+
     private final PriceService priceService;
     private final SeedingService seedingService;
+    private final PriceSnapshotService priceSnapshotService;
 
     @PostMapping("/price/{productId}/adjustments")
     public void adjustPrice(@PathVariable Long productId, @RequestBody List<@Valid AdjustmentDto> adjustmentDtoList) {
@@ -38,10 +42,36 @@ public class AdminController {
                                     @RequestParam(name = "adjustRate", defaultValue = "0.1") double adjustRate,
                                     @RequestParam(name = "clear", defaultValue = "false") boolean clear) {
         SeedingService.SeedResult result = seedingService.seed(count, adjustRate, clear);
+        // Seeded adjustments bypass setAdjustments, so their snapshots are built afterwards
+        PriceSnapshotService.BackfillResult snapshots = priceSnapshotService.backfill(SNAPSHOT_CHUNK_SIZE);
         Map<String, Object> resp = new HashMap<>();
         resp.put("status", "ok");
         resp.put("products", result.products());
         resp.put("adjustments", result.adjustments());
+        resp.put("snapshots", snapshots.products());
+        resp.put("tookMs", result.tookMs() + snapshots.tookMs());
+        return resp;
+    }
+
+    @PostMapping("/snapshot/backfill")
+    public Map<String, Object> backfillSnapshots(@RequestParam(name = "chunkSize", defaultValue = "1000") int chunkSize) {
+        PriceSnapshotService.BackfillResult result = priceSnapshotService.backfill(chunkSize);
+        Map<String, Object> resp = new HashMap<>();
+        resp.put("status", "ok");
+        resp.put("snapshots", result.products());
+        resp.put("tookMs", result.tookMs());
+        return resp;
+    }
+
+    @GetMapping("/snapshot/verify")
+    public Map<String, Object> verifySnapshots(@RequestParam(name = "chunkSize", defaultValue = "1000") int chunkSize) {
+        PriceSnapshotService.VerifyResult result = priceSnapshotService.verify(chunkSize);
+        Map<String, Object> resp = new HashMap<>();
+        resp.put("status", result.missing() + result.mismatched() == 0 ? "ok" : "inconsistent");
+        resp.put("checked", result.checked());
+        resp.put("missing", result.missing());
+        resp.put("mismatched", result.mismatched());
+        resp.put("sampleIds", result.sampleIds());
         resp.put("tookMs", result.tookMs());
         return resp;
     }
@@ -1,15 +1,23 @@
 package ge.imikhailov.omno.controller;
 
+import ge.imikhailov.omno.dto.PriceBatchDto;
+import ge.imikhailov.omno.dto.PriceBatchRequest;
 import ge.imikhailov.omno.dto.PriceDto;
 import ge.imikhailov.omno.service.PriceService;
+import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.List;
+import java.util.Map;
+
 @Slf4j
 @RestController
 @RequestMapping("/price")
@@ -24,4 +32,15 @@ public class PriceController {
         final PriceDto price = priceService.getPrice(productId);
         return ResponseEntity.ok(price);
     }
+
+    @PostMapping("/batch")
+    public ResponseEntity<PriceBatchDto> getPrices(@Valid @RequestBody PriceBatchRequest request) {
+        log.info("Getting prices for {} products", request.productIds().size());
+        final Map<Long, PriceDto> prices = priceService.getPrices(request.productIds());
+        final List<Long> missing = request.productIds().stream()
+                .distinct()
+                .filter(id -> !prices.containsKey(id))
+                .toList();
+        return ResponseEntity.ok(new PriceBatchDto(List.copyOf(prices.values()), missing));
+    }
 }
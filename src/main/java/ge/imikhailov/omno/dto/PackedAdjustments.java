@@ -0,0 +1,120 @@
+package ge.imikhailov.omno.dto;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import ge.imikhailov.omno.enums.AdjustmentMode;
+import ge.imikhailov.omno.enums.AdjustmentType;
+import org.jspecify.annotations.Nullable;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Adjustment lists packed one {@code long} per adjustment:
+ * {@code [unscaled value : 54][scale : 5][type ordinal + 1 : 3][mode ordinal + 1 : 2]}, 0 standing for a null enum.
+ * <p>
+ * Packed lists are interned: catalogues repeat the same few adjustments (one VAT rate, a handful of promos),
+ * so most prices point at a shared array. The pool holds its arrays weakly, so a list no cached price uses any more
+ * is dropped with the last of them.
+ */
+final class PackedAdjustments {
+
+    static final long[] EMPTY = new long[0];
+
+    private static final int UNSCALED_BITS = 54;
+    private static final long MAX_UNSCALED = (1L << (UNSCALED_BITS - 1)) - 1;
+    private static final long MIN_UNSCALED = -(1L << (UNSCALED_BITS - 1));
+    private static final int MAX_SCALE = 31;
+
+    private static final AdjustmentType[] TYPES = AdjustmentType.values();
+    private static final AdjustmentMode[] MODES = AdjustmentMode.values();
+    // Enum ordinals + 1 must fit their 3- and 2-bit fields
+    private static final boolean ENUMS_FIT = TYPES.length <= 7 && MODES.length <= 3;
+
+    // Keyed by a copy of the contents: a key pointing at the pooled array would keep it reachable
+    private static final Cache<Key, long[]> SHARED = Caffeine.newBuilder().weakValues().build();
+
+    private PackedAdjustments() {
+    }
+
+    /**
+     * @return packed words, or {@code null} if an adjustment does not fit (null value, large amount or scale)
+     */
+    static long @Nullable [] pack(final List<AdjustmentDto> adjustments) {
+        if (adjustments.isEmpty()) {
+            return EMPTY;
+        }
+        if (!ENUMS_FIT) {
+            return null;
+        }
+        final long[] words = new long[adjustments.size()];
+        for (int i = 0; i < words.length; i++) {
+            final AdjustmentDto a = adjustments.get(i);
+            if (a == null || a.value() == null) {
+                return null;
+            }
+            final BigDecimal value = a.value();
+            if (value.scale() < 0 || value.scale() > MAX_SCALE || value.unscaledValue().bitLength() >= Long.SIZE) {
+                return null;
+            }
+            final long unscaled = value.unscaledValue().longValue();
+            if (unscaled < MIN_UNSCALED || unscaled > MAX_UNSCALED) {
+                return null;
+            }
+            words[i] = unscaled << 10
+                    | (long) value.scale() << 5
+                    | (a.type() == null ? 0 : a.type().ordinal() + 1) << 2
+                    | (a.mode() == null ? 0 : a.mode().ordinal() + 1);
+        }
+        return words;
+    }
+
+    /**
+     * @return the pooled array with the same content; {@code words} itself if there was none
+     */
+    static long[] intern(final long[] words) {
+        if (words.length == 0) {
+            return EMPTY;
+        }
+        final long[] shared = SHARED.getIfPresent(new Key(words));
+        if (shared != null) {
+            return shared;
+        }
+        final long[] raced = SHARED.asMap().putIfAbsent(new Key(words.clone()), words);
+        return raced != null ? raced : words;
+    }
+
+    static List<AdjustmentDto> unpack(final long[] words) {
+        final AdjustmentDto[] adjustments = new AdjustmentDto[words.length];
+        for (int i = 0; i < words.length; i++) {
+            adjustments[i] = unpack(words[i]);
+        }
+        return List.of(adjustments);
+    }
+
+    private static AdjustmentDto unpack(final long word) {
+        final int type = (int) (word >>> 2) & 0x7;
+        final int mode = (int) word & 0x3;
+        return new AdjustmentDto(
+                BigDecimal.valueOf(word >> 10, (int) (word >>> 5) & MAX_SCALE),
+                type == 0 ? null : TYPES[type - 1],
+                mode == 0 ? null : MODES[mode - 1]);
+    }
+
+    private record Key(long[] words, int hash) {
+        Key(final long[] words) {
+            this(words, Arrays.hashCode(words));
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            return o instanceof Key other && hash == other.hash && Arrays.equals(words, other.words);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
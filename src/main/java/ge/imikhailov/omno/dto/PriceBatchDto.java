@@ -0,0 +1,9 @@
+package ge.imikhailov.omno.dto;
+
+import java.util.List;
+
+public record PriceBatchDto(
+        List<PriceDto> prices,
+        List<Long> missing
+) {
+}
@@ -0,0 +1,12 @@
+package ge.imikhailov.omno.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+public record PriceBatchRequest(
+        @NotEmpty @Size(max = 500) List<@NotNull Long> productIds
+) {
+}
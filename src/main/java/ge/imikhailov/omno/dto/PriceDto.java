@@ -1,12 +1,194 @@
 package ge.imikhailov.omno.dto;
 
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import org.jspecify.annotations.Nullable;
+
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Objects;
+
+/**
+ * A computed price, kept compact because every cached product holds one.
+ * <p>
+ * Amounts are stored as a scaled {@code long} plus its scale (cents for the usual 2-digit prices), ids unboxed and
+ * adjustments as an interned array of packed longs ({@link PackedAdjustments}), so prices sharing the same
+ * adjustments share one array. Accessors rebuild the {@link BigDecimal}s and the list on each call, which in
+ * practice means once per rendered response. Amounts or adjustments that do not fit are kept as given.
+ * <p>
+ * Behaves like the value record it replaces: same accessors, JSON shape, {@code equals} and {@code toString};
+ * {@code version} is the product version the price was computed from and grows with every adjustment change.
+ */
+@JsonPropertyOrder({"productId", "basePrice", "finalPrice", "adjustments"})
+public final class PriceDto {
+
+    private static final int HAS_PRODUCT_ID = 1;
+    private static final int HAS_BASE_PRICE = 1 << 1;
+    private static final int HAS_FINAL_PRICE = 1 << 2;
+    private static final int HAS_ADJUSTMENTS = 1 << 3;
+    private static final int HAS_VERSION = 1 << 4;
+
+    // Header, four longs, three bytes and two references, 8-byte aligned (64-bit JVM, compressed oops)
+    private static final int SHALLOW_SIZE = 56;
+    // Same assumptions as L1Weigher, for the rare values kept as given
+    private static final int OVERFLOW_SIZE = 24;
+    private static final int BIG_DECIMAL_SIZE = 40 + 24 + 24;
+    private static final int ADJUSTMENT_SIZE = 24 + 4;
+    private static final int LIST_SIZE = 32;
+
+    private final long productId;
+    private final long version;
+    private final long basePrice;
+    private final long finalPrice;
+    private final byte basePriceScale;
+    private final byte finalPriceScale;
+    private final byte flags;
+    private final long @Nullable [] adjustments;
+    private final @Nullable Overflow overflow;
+
+    public PriceDto(Long productId, BigDecimal basePrice, BigDecimal finalPrice, List<AdjustmentDto> adjustments) {
+        this(productId, basePrice, finalPrice, adjustments, null);
+    }
+
+    @JsonCreator
+    public PriceDto(@JsonProperty("productId") @Nullable Long productId,
+                    @JsonProperty("basePrice") @Nullable BigDecimal basePrice,
+                    @JsonProperty("finalPrice") @Nullable BigDecimal finalPrice,
+                    @JsonProperty("adjustments") @Nullable List<AdjustmentDto> adjustments,
+                    @JsonProperty("version") @Nullable Long version) {
+        int mask = 0;
+        if (productId != null) mask |= HAS_PRODUCT_ID;
+        if (basePrice != null) mask |= HAS_BASE_PRICE;
+        if (finalPrice != null) mask |= HAS_FINAL_PRICE;
+        if (adjustments != null) mask |= HAS_ADJUSTMENTS;
+        if (version != null) mask |= HAS_VERSION;
+        this.productId = productId != null ? productId : 0L;
+        this.version = version != null ? version : 0L;
+
+        final boolean baseFits = fits(basePrice);
+        final boolean finalFits = fits(finalPrice);
+        this.basePrice = baseFits && basePrice != null ? basePrice.unscaledValue().longValue() : 0L;
+        this.basePriceScale = baseFits && basePrice != null ? (byte) basePrice.scale() : 0;
+        this.finalPrice = finalFits && finalPrice != null ? finalPrice.unscaledValue().longValue() : 0L;
+        this.finalPriceScale = finalFits && finalPrice != null ? (byte) finalPrice.scale() : 0;
+
+        final long[] packed = adjustments != null ? PackedAdjustments.pack(adjustments) : null;
+        this.adjustments = packed != null ? PackedAdjustments.intern(packed) : null;
+        final boolean adjustmentsFit = adjustments == null || packed != null;
+        this.overflow = baseFits && finalFits && adjustmentsFit ? null : new Overflow(
+                baseFits ? null : basePrice,
+                finalFits ? null : finalPrice,
+                adjustmentsFit ? null : Collections.unmodifiableList(new ArrayList<>(adjustments)));
+        this.flags = (byte) mask;
+    }
+
+    private static boolean fits(final @Nullable BigDecimal amount) {
+        return amount == null
+                || amount.scale() >= Byte.MIN_VALUE && amount.scale() <= Byte.MAX_VALUE
+                && amount.unscaledValue().bitLength() < Long.SIZE;
+    }
+
+    @JsonProperty("productId")
+    public @Nullable Long productId() {
+        return has(HAS_PRODUCT_ID) ? productId : null;
+    }
+
+    @JsonProperty("basePrice")
+    public @Nullable BigDecimal basePrice() {
+        if (!has(HAS_BASE_PRICE)) return null;
+        return overflow != null && overflow.basePrice() != null ? overflow.basePrice() : BigDecimal.valueOf(basePrice, basePriceScale);
+    }
+
+    @JsonProperty("finalPrice")
+    public @Nullable BigDecimal finalPrice() {
+        if (!has(HAS_FINAL_PRICE)) return null;
+        return overflow != null && overflow.finalPrice() != null ? overflow.finalPrice() : BigDecimal.valueOf(finalPrice, finalPriceScale);
+    }
+
+    @JsonProperty("adjustments")
+    public @Nullable List<AdjustmentDto> adjustments() {
+        if (!has(HAS_ADJUSTMENTS)) return null;
+        if (adjustments == null) {
+            return Objects.requireNonNull(overflow).adjustments();
+        }
+        return PackedAdjustments.unpack(adjustments);
+    }
+
+    // Internal: not part of the JSON response; still accepted on input from older cache entries
+    public @Nullable Long version() {
+        return has(HAS_VERSION) ? version : null;
+    }
+
+    /**
+     * Estimated retained heap in bytes; interned adjustments are shared and not counted.
+     */
+    public long retainedBytes() {
+        long size = SHALLOW_SIZE;
+        if (overflow != null) {
+            size += OVERFLOW_SIZE;
+            if (overflow.basePrice() != null) size += bigDecimal(overflow.basePrice());
+            if (overflow.finalPrice() != null) size += bigDecimal(overflow.finalPrice());
+            if (overflow.adjustments() != null) {
+                size += LIST_SIZE + align(4L * overflow.adjustments().size());
+                for (AdjustmentDto a : overflow.adjustments()) {
+                    size += ADJUSTMENT_SIZE + (a != null && a.value() != null ? bigDecimal(a.value()) : 0);
+                }
+            }
+        }
+        return size;
+    }
+
+    private static long bigDecimal(final BigDecimal amount) {
+        // Past 18 digits the unscaled value is a BigInteger with an int[] magnitude
+        return amount.precision() <= 18
+                ? BIG_DECIMAL_SIZE
+                : BIG_DECIMAL_SIZE + 40 + align(16L + 4L * ((amount.unscaledValue().bitLength() + 31) / 32));
+    }
+
+    private static long align(final long bytes) {
+        return (bytes + 7) & ~7L;
+    }
+
+    private boolean has(final int flag) {
+        return (flags & flag) != 0;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        return this == o || o instanceof PriceDto other
+                && productId == other.productId
+                && version == other.version
+                && basePrice == other.basePrice
+                && finalPrice == other.finalPrice
+                && basePriceScale == other.basePriceScale
+                && finalPriceScale == other.finalPriceScale
+                && flags == other.flags
+                && Arrays.equals(adjustments, other.adjustments)
+                && Objects.equals(overflow, other.overflow);
+    }
+
+    @Override
+    public int hashCode() {
+        int h = Long.hashCode(productId);
+        h = 31 * h + Long.hashCode(version);
+        h = 31 * h + Long.hashCode(basePrice) + basePriceScale;
+        h = 31 * h + Long.hashCode(finalPrice) + finalPriceScale;
+        h = 31 * h + flags;
+        h = 31 * h + Arrays.hashCode(adjustments);
+        return 31 * h + Objects.hashCode(overflow);
+    }
+
+    @Override
+    public String toString() {
+        return "PriceDto[productId=" + productId() + ", basePrice=" + basePrice() + ", finalPrice=" + finalPrice()
+                + ", adjustments=" + adjustments() + ", version=" + version() + "]";
+    }
 
-public record PriceDto(
-        Long productId,
-        BigDecimal basePrice,
-        BigDecimal finalPrice,
-        List<AdjustmentDto> adjustments
-) {
+    private record Overflow(@Nullable BigDecimal basePrice, @Nullable BigDecimal finalPrice,
+                            @Nullable List<AdjustmentDto> adjustments) {
+    }
 }
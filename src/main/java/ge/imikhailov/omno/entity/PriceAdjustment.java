@@ -17,8 +17,10 @@ import java.time.OffsetDateTime;
 @Entity
 @Table(name = "price_adjustment", schema = "pricing")
 public class PriceAdjustment {
+    // Pooled sequence (V4): ids are known before the insert, so saveAll turns into JDBC batches
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "price_adjustment_id")
+    @SequenceGenerator(name = "price_adjustment_id", schema = "pricing", sequenceName = "price_adjustment_id_seq", allocationSize = 50)
     @Column(name = "id", nullable = false)
     private Long id;
 
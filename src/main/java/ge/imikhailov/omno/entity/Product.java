@@ -25,4 +25,8 @@ public class Product {
 
     @Column(name = "base_price", nullable = false, precision = 19, scale = 2)
     private BigDecimal basePrice;
+
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
 }
\ No newline at end of file
@@ -12,12 +12,21 @@ public class CacheMetrics {
     private final Counter l1Miss;
     private final Counter l2Hit;
     private final Counter l2Miss;
+    private final Counter offHeapHit;
+    private final Counter offHeapMiss;
     private final Counter refreshStarted;
     private final Counter refreshSuccess;
     private final Counter refreshFailure;
     private final Counter duplicateSuppressed;
     private final Counter evictions;
     private final Counter clears;
+    private final Counter tombstoneHit;
+    private final Counter tombstoneMiss;
+    private final Counter discardedWrites;
+    private final Counter leaseAcquired;
+    private final Counter leaseWaited;
+    private final Counter leaseSkipped;
+    private final Counter leaseFallback;
     private final Timer loaderTimer;
 
     public void l1HitIncrement() {
@@ -36,6 +45,14 @@ public class CacheMetrics {
         l2Miss.increment();
     }
 
+    public void offHeapHitIncrement() {
+        offHeapHit.increment();
+    }
+
+    public void offHeapMissIncrement() {
+        offHeapMiss.increment();
+    }
+
     public void refreshStartedIncrement() {
         refreshStarted.increment();
     }
@@ -60,6 +77,34 @@ public class CacheMetrics {
         clears.increment();
     }
 
+    public void tombstoneHitIncrement() {
+        tombstoneHit.increment();
+    }
+
+    public void tombstoneMissIncrement() {
+        tombstoneMiss.increment();
+    }
+
+    public void discardedWriteIncrement() {
+        discardedWrites.increment();
+    }
+
+    public void leaseAcquiredIncrement() {
+        leaseAcquired.increment();
+    }
+
+    public void leaseWaitedIncrement() {
+        leaseWaited.increment();
+    }
+
+    public void leaseSkippedIncrement() {
+        leaseSkipped.increment();
+    }
+
+    public void leaseFallbackIncrement() {
+        leaseFallback.increment();
+    }
+
     public <T> T callInTimer(final Callable<T> callable) throws Exception {
         return loaderTimer.recordCallable(callable);
     }
@@ -1,15 +1,20 @@
 package ge.imikhailov.omno.metrics;
 
 import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.FunctionCounter;
 import io.micrometer.core.instrument.Gauge;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
+import org.jspecify.annotations.Nullable;
 import org.springframework.stereotype.Service;
 
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.function.ToDoubleFunction;
 
 @Service
 @RequiredArgsConstructor
@@ -24,12 +29,25 @@ public class CacheMetricsFactory {
                 counter(cacheName, "omno.cache.gets", "level", "L1", "outcome", "miss"),
                 counter(cacheName, "omno.cache.gets", "level", "L2", "outcome", "hit"),
                 counter(cacheName, "omno.cache.gets", "level", "L2", "outcome", "miss"),
+                counter(cacheName, "omno.cache.gets", "level", "OFFHEAP", "outcome", "hit"),
+                counter(cacheName, "omno.cache.gets", "level", "OFFHEAP", "outcome", "miss"),
                 counter(cacheName, "omno.cache.refresh", "phase", "started"),
                 counter(cacheName, "omno.cache.refresh", "phase", "success"),
                 counter(cacheName, "omno.cache.refresh", "phase", "failure"),
                 counter(cacheName, "omno.cache.refresh", "phase", "duplicate_suppressed"),
                 counter(cacheName, "omno.cache.evictions"),
                 counter(cacheName, "omno.cache.clears"),
+                // hit = "not found" served from a tombstone; miss = loader found nothing and a tombstone was stored
+                counter(cacheName, "omno.cache.tombstones", "outcome", "hit"),
+                counter(cacheName, "omno.cache.tombstones", "outcome", "miss"),
+                // Loads/puts dropped because a newer version of the entry was already cached
+                counter(cacheName, "omno.cache.writes.discarded"),
+                // Distributed single-flight: took the lease / got another replica's value / kept serving stale /
+                // loaded without the lease (holder gone or too slow, lease store unavailable)
+                counter(cacheName, "omno.cache.lease", "outcome", "acquired"),
+                counter(cacheName, "omno.cache.lease", "outcome", "waited"),
+                counter(cacheName, "omno.cache.lease", "outcome", "skipped"),
+                counter(cacheName, "omno.cache.lease", "outcome", "fallback"),
                 timer(cacheName));
 
         Gauge.builder("omno.cache.inflight", inFlightGauge, AtomicInteger::get)
@@ -40,6 +58,162 @@ public class CacheMetricsFactory {
     }
 
 
+    public RefreshExecutorMetrics createRefreshExecutorMetrics(final String executorName,
+                                                               final Supplier<Number> foregroundDepth,
+                                                               final Supplier<Number> backgroundDepth,
+                                                               final Supplier<Number> active) {
+        Gauge.builder("omno.cache.refresh.queue.depth", foregroundDepth)
+                .tags("executor", executorName, "priority", "foreground")
+                .strongReference(true)
+                .register(this.meterRegistry);
+        Gauge.builder("omno.cache.refresh.queue.depth", backgroundDepth)
+                .tags("executor", executorName, "priority", "background")
+                .strongReference(true)
+                .register(this.meterRegistry);
+        Gauge.builder("omno.cache.refresh.active", active)
+                .tag("executor", executorName)
+                .strongReference(true)
+                .register(this.meterRegistry);
+        return new RefreshExecutorMetrics(
+                queueWaitTimer(executorName, "foreground"),
+                queueWaitTimer(executorName, "background"),
+                executorCounter(executorName, "omno.cache.refresh.rejected", "foreground"),
+                executorCounter(executorName, "omno.cache.refresh.rejected", "background"));
+    }
+
+    public CompressionMetrics createCompressionMetrics(final String cacheName) {
+        return new CompressionMetrics(
+                counter(cacheName, "omno.cache.l2.compression.writes", "outcome", "compressed"),
+                counter(cacheName, "omno.cache.l2.compression.writes", "outcome", "below_threshold"),
+                counter(cacheName, "omno.cache.l2.compression.writes", "outcome", "incompressible"),
+                bytesSummary(cacheName, "raw"),
+                bytesSummary(cacheName, "compressed"),
+                DistributionSummary.builder("omno.cache.l2.compression.ratio")
+                        .tag("cache", cacheName)
+                        .publishPercentiles(0.5, 0.9, 0.99)
+                        .register(this.meterRegistry),
+                codecTimer(cacheName, "compress"),
+                codecTimer(cacheName, "decompress"));
+    }
+
+    public HedgeMetrics createHedgeMetrics(final String cacheName, final Supplier<Number> delayMillis) {
+        Gauge.builder("omno.cache.l2.hedge.delay", delayMillis)
+                .tag("cache", cacheName)
+                .baseUnit("milliseconds")
+                .strongReference(true)
+                .register(this.meterRegistry);
+        return new HedgeMetrics(
+                // Hedge rate = omno.cache.l2.hedges / L2 lookups; "winner" tells which source answered
+                counter(cacheName, "omno.cache.l2.hedges"),
+                counter(cacheName, "omno.cache.l2.hedge.wins", "winner", "db"),
+                counter(cacheName, "omno.cache.l2.hedge.wins", "winner", "l2"),
+                // L2 missed or failed after the hedge started, so the load answered without racing anything
+                counter(cacheName, "omno.cache.l2.hedge.fallbacks", "cause", "miss"),
+                counter(cacheName, "omno.cache.l2.hedge.fallbacks", "cause", "error"));
+    }
+
+    /**
+     * @param state held weakly by the meters, so it must live as long as the cache that owns it
+     */
+    public <T> L2HealthMetrics createL2HealthMetrics(final String cacheName,
+                                                     final T state,
+                                                     final ToDoubleFunction<T> degraded,
+                                                     final ToDoubleFunction<T> degradedSeconds) {
+        // 1 while L2 is failing and reads run on L1 + database only
+        Gauge.builder("omno.cache.l2.degraded", state, degraded)
+                .tag("cache", cacheName)
+                .register(this.meterRegistry);
+        FunctionCounter.builder("omno.cache.l2.degraded.time", state, degradedSeconds)
+                .tag("cache", cacheName)
+                .baseUnit("seconds")
+                .register(this.meterRegistry);
+        // Failed L2 calls, including calls rejected by an open circuit breaker; L2 writes skipped while degraded
+        return new L2HealthMetrics(counter(cacheName, "omno.cache.l2.errors"), counter(cacheName, "omno.cache.l2.degraded.skipped"));
+    }
+
+    public WriteBehindMetrics createWriteBehindMetrics(final String cacheName, final Supplier<Number> queueDepth) {
+        Gauge.builder("omno.cache.l2.writebehind.queue", queueDepth)
+                .tag("cache", cacheName)
+                .strongReference(true)
+                .register(this.meterRegistry);
+        return new WriteBehindMetrics(
+                DistributionSummary.builder("omno.cache.l2.writebehind.batch")
+                        .tag("cache", cacheName)
+                        .publishPercentiles(0.5, 0.9, 0.99)
+                        .register(this.meterRegistry),
+                // Writes rejected because the buffer was full
+                counter(cacheName, "omno.cache.l2.writebehind.dropped"));
+    }
+
+    public MissBatchMetrics createMissBatchMetrics(final String cacheName) {
+        return new MissBatchMetrics(
+                DistributionSummary.builder("omno.cache.loader.batch.size")
+                        .tag("cache", cacheName)
+                        .publishPercentiles(0.5, 0.9, 0.99)
+                        .publishPercentileHistogram()
+                        .register(this.meterRegistry),
+                // From the first key of a batch to its dispatch: the window, or less when the batch filled up
+                Timer.builder("omno.cache.loader.batch.wait")
+                        .tag("cache", cacheName)
+                        .publishPercentiles(0.5, 0.9, 0.99)
+                        .publishPercentileHistogram()
+                        .register(this.meterRegistry));
+    }
+
+    public L2BypassMetrics createL2BypassMetrics(final String cacheName, final Supplier<Number> ratio) {
+        Gauge.builder("omno.cache.l2.bypass.ratio", ratio)
+                .tag("cache", cacheName)
+                .strongReference(true)
+                .register(this.meterRegistry);
+        return new L2BypassMetrics(counter(cacheName, "omno.cache.l2.bypassed"));
+    }
+
+    /**
+     * @param weight estimated retained bytes; {@code null} when the L1 is bounded by entry count only
+     */
+    public void registerL1SizeGauges(final String cacheName, final Supplier<Number> entries, final @Nullable Supplier<Number> weight) {
+        Gauge.builder("omno.cache.l1.entries", entries)
+                .tag("cache", cacheName)
+                .strongReference(true)
+                .register(this.meterRegistry);
+        if (weight != null) {
+            Gauge.builder("omno.cache.l1.weight", weight)
+                    .tag("cache", cacheName)
+                    .baseUnit("bytes")
+                    .strongReference(true)
+                    .register(this.meterRegistry);
+        }
+    }
+
+    private DistributionSummary bytesSummary(final String cacheName, final String stage) {
+        return DistributionSummary.builder("omno.cache.l2.compression.bytes")
+                .baseUnit("bytes")
+                .tags("cache", cacheName, "stage", stage)
+                .publishPercentiles(0.5, 0.9, 0.99)
+                .register(this.meterRegistry);
+    }
+
+    private Timer codecTimer(final String cacheName, final String op) {
+        return Timer.builder("omno.cache.l2.codec")
+                .tags("cache", cacheName, "op", op)
+                .publishPercentiles(0.5, 0.9, 0.99)
+                .register(this.meterRegistry);
+    }
+
+    private Timer queueWaitTimer(final String executorName, final String priority) {
+        return Timer.builder("omno.cache.refresh.queue.wait")
+                .tags("executor", executorName, "priority", priority)
+                .publishPercentiles(0.5, 0.9, 0.95, 0.99)
+                .publishPercentileHistogram()
+                .register(this.meterRegistry);
+    }
+
+    private Counter executorCounter(final String executorName, final String metricName, final String priority) {
+        return Counter.builder(metricName)
+                .tags("executor", executorName, "priority", priority)
+                .register(this.meterRegistry);
+    }
+
     private Counter counter(final String cacheName, final String metricName, final String... tags) {
         final Counter.Builder b = Counter.builder(metricName).tag("cache", cacheName);
         for (int i = 0; i + 1 < tags.length; i += 2) {
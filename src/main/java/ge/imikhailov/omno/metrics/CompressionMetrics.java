@@ -0,0 +1,43 @@
+package ge.imikhailov.omno.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+
+import java.util.concurrent.TimeUnit;
+
+@RequiredArgsConstructor
+public class CompressionMetrics {
+    private final Counter compressed;
+    private final Counter belowThreshold;
+    private final Counter incompressible;
+    private final DistributionSummary rawBytes;
+    private final DistributionSummary compressedBytes;
+    private final DistributionSummary ratio;
+    private final Timer compressTimer;
+    private final Timer decompressTimer;
+
+    public void recordCompressed(final int raw, final int stored) {
+        compressed.increment();
+        rawBytes.record(raw);
+        compressedBytes.record(stored);
+        ratio.record((double) raw / stored);
+    }
+
+    public void belowThresholdIncrement() {
+        belowThreshold.increment();
+    }
+
+    public void incompressibleIncrement() {
+        incompressible.increment();
+    }
+
+    public void recordCompress(final long nanos) {
+        compressTimer.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordDecompress(final long nanos) {
+        decompressTimer.record(nanos, TimeUnit.NANOSECONDS);
+    }
+}
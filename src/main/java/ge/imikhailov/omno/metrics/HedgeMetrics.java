@@ -0,0 +1,33 @@
+package ge.imikhailov.omno.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import lombok.RequiredArgsConstructor;
+
+@RequiredArgsConstructor
+public class HedgeMetrics {
+    private final Counter started;
+    private final Counter dbWins;
+    private final Counter l2Wins;
+    private final Counter l2Misses;
+    private final Counter l2Errors;
+
+    public void startedIncrement() {
+        started.increment();
+    }
+
+    public void dbWinIncrement() {
+        dbWins.increment();
+    }
+
+    public void l2WinIncrement() {
+        l2Wins.increment();
+    }
+
+    public void l2MissIncrement() {
+        l2Misses.increment();
+    }
+
+    public void l2ErrorIncrement() {
+        l2Errors.increment();
+    }
+}
@@ -0,0 +1,13 @@
+package ge.imikhailov.omno.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import lombok.RequiredArgsConstructor;
+
+@RequiredArgsConstructor
+public class L2BypassMetrics {
+    private final Counter bypassed;
+
+    public void bypassedIncrement() {
+        bypassed.increment();
+    }
+}
@@ -0,0 +1,18 @@
+package ge.imikhailov.omno.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import lombok.RequiredArgsConstructor;
+
+@RequiredArgsConstructor
+public class L2HealthMetrics {
+    private final Counter errors;
+    private final Counter skippedWrites;
+
+    public void errorIncrement() {
+        errors.increment();
+    }
+
+    public void skippedWriteIncrement() {
+        skippedWrites.increment();
+    }
+}
@@ -0,0 +1,18 @@
+package ge.imikhailov.omno.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+
+import java.util.concurrent.TimeUnit;
+
+@RequiredArgsConstructor
+public class MissBatchMetrics {
+    private final DistributionSummary batchSize;
+    private final Timer windowWait;
+
+    public void recordBatch(final int size, final long waitedNanos) {
+        batchSize.record(size);
+        windowWait.record(waitedNanos, TimeUnit.NANOSECONDS);
+    }
+}
@@ -0,0 +1,24 @@
+package ge.imikhailov.omno.metrics;
+
+import ge.imikhailov.omno.cache.multilevel.RefreshExecutor.Priority;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+
+import java.util.concurrent.TimeUnit;
+
+@RequiredArgsConstructor
+public class RefreshExecutorMetrics {
+    private final Timer foregroundWait;
+    private final Timer backgroundWait;
+    private final Counter foregroundRejected;
+    private final Counter backgroundRejected;
+
+    public void recordWait(final Priority priority, final long nanos) {
+        (priority == Priority.FOREGROUND ? foregroundWait : backgroundWait).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void rejectedIncrement(final Priority priority) {
+        (priority == Priority.FOREGROUND ? foregroundRejected : backgroundRejected).increment();
+    }
+}
@@ -0,0 +1,19 @@
+package ge.imikhailov.omno.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import lombok.RequiredArgsConstructor;
+
+@RequiredArgsConstructor
+public class WriteBehindMetrics {
+    private final DistributionSummary batchSize;
+    private final Counter dropped;
+
+    public void recordBatch(final int size) {
+        batchSize.record(size);
+    }
+
+    public void droppedIncrement() {
+        dropped.increment();
+    }
+}
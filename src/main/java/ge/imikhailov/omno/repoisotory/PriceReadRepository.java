@@ -0,0 +1,105 @@
+package ge.imikhailov.omno.repoisotory;
+
+import ge.imikhailov.omno.dto.AdjustmentDto;
+import ge.imikhailov.omno.enums.AdjustmentMode;
+import ge.imikhailov.omno.enums.AdjustmentType;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Read path for prices: a product and its adjustments in one statement (left join), mapped straight from the
+ * rows. No entities are hydrated, so there is no persistence context, dirty checking or proxy on a cache miss.
+ * Writes keep going through {@link ProductRepository} and {@link PriceAdjustmentRepository}.
+ */
+@Repository
+@RequiredArgsConstructor
+public class PriceReadRepository {
+
+    private static final String SELECT = """
+            select p.id, p.base_price, p.version, a.value, a.type, a.mode
+            from pricing.product p
+            left join pricing.price_adjustment a on a.productid = p.id
+            """;
+    private static final String BY_ID = SELECT + "where p.id = :id order by a.id";
+    // One array parameter instead of an IN list, so every batch size shares the same statement (and plan)
+    private static final String BY_IDS = SELECT + "where p.id = any(?) order by p.id, a.id";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    /**
+     * A product's price inputs; {@code adjustments} is empty when it has none.
+     */
+    public record PriceRow(long productId, BigDecimal basePrice, long version, List<AdjustmentDto> adjustments) {
+    }
+
+    public Optional<PriceRow> findPrice(final long productId) {
+        final List<PriceRow> rows = jdbcTemplate.query(BY_ID, Map.of("id", productId), PriceReadRepository::groupRows);
+        return rows == null || rows.isEmpty() ? Optional.empty() : Optional.of(rows.get(0));
+    }
+
+    /**
+     * @return prices of the products that exist, in id order
+     */
+    public List<PriceRow> findPrices(final Collection<Long> productIds) {
+        if (productIds.isEmpty()) {
+            return List.of();
+        }
+        final Long[] ids = productIds.toArray(Long[]::new);
+        final List<PriceRow> rows = jdbcTemplate.getJdbcOperations().query(BY_IDS,
+                ps -> ps.setArray(1, ps.getConnection().createArrayOf("bigint", ids)),
+                PriceReadRepository::groupRows);
+        return rows == null ? List.of() : rows;
+    }
+
+    /**
+     * Keyset page over the catalogue, for jobs that walk every product.
+     *
+     * @return up to {@code limit} product ids greater than {@code afterId}, ascending
+     */
+    public List<Long> findProductIdsAfter(final long afterId, final int limit) {
+        return jdbcTemplate.queryForList("select id from pricing.product where id > :afterId order by id limit :limit",
+                Map.of("afterId", afterId, "limit", limit), Long.class);
+    }
+
+    /**
+     * Folds the joined rows (ordered by product) into one {@link PriceRow} per product; a product without
+     * adjustments comes back as a single row with null adjustment columns.
+     */
+    static List<PriceRow> groupRows(final ResultSet rs) throws SQLException {
+        final List<PriceRow> result = new ArrayList<>();
+        long productId = 0;
+        BigDecimal basePrice = null;
+        long version = 0;
+        List<AdjustmentDto> adjustments = null;
+        while (rs.next()) {
+            final long id = rs.getLong(1);
+            if (adjustments == null || id != productId) {
+                if (adjustments != null) {
+                    result.add(new PriceRow(productId, basePrice, version, List.copyOf(adjustments)));
+                }
+                productId = id;
+                basePrice = rs.getBigDecimal(2);
+                version = rs.getLong(3);
+                adjustments = new ArrayList<>(4);
+            }
+            final BigDecimal value = rs.getBigDecimal(4);
+            if (value != null) {
+                adjustments.add(new AdjustmentDto(value, AdjustmentType.valueOf(rs.getString(5)), AdjustmentMode.valueOf(rs.getString(6))));
+            }
+        }
+        if (adjustments != null) {
+            result.add(new PriceRow(productId, basePrice, version, List.copyOf(adjustments)));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,97 @@
+package ge.imikhailov.omno.repoisotory;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import ge.imikhailov.omno.dto.AdjustmentDto;
+import ge.imikhailov.omno.dto.PriceDto;
+import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DataRetrievalFailureException;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * {@code pricing.price_snapshot}: the computed price of a product, kept up to date by the write path so the read
+ * path is a primary-key lookup. Adjustments are stored as a JSON array.
+ */
+@Repository
+@RequiredArgsConstructor
+public class PriceSnapshotRepository {
+
+    private static final TypeReference<List<AdjustmentDto>> ADJUSTMENTS = new TypeReference<>() {
+    };
+
+    private static final String SELECT = "select product_id, base_price, final_price, adjustments, version from pricing.price_snapshot ";
+
+    // Never replaces a snapshot of a newer product version (concurrent writers, backfill racing a write)
+    private static final String UPSERT = """
+            insert into pricing.price_snapshot (product_id, base_price, final_price, adjustments, version, updated_at)
+            values (:productId, :basePrice, :finalPrice, cast(:adjustments as jsonb), :version, now())
+            on conflict (product_id) do update
+            set base_price = excluded.base_price, final_price = excluded.final_price,
+                adjustments = excluded.adjustments, version = excluded.version, updated_at = excluded.updated_at
+            where pricing.price_snapshot.version <= excluded.version
+            """;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+
+    public Optional<PriceDto> find(final long productId) {
+        return jdbcTemplate.query(SELECT + "where product_id = :id", Map.of("id", productId), rowMapper()).stream().findFirst();
+    }
+
+    public List<PriceDto> findAll(final Collection<Long> productIds) {
+        if (productIds.isEmpty()) {
+            return List.of();
+        }
+        final Long[] ids = productIds.toArray(Long[]::new);
+        return jdbcTemplate.getJdbcOperations().query(SELECT + "where product_id = any(?)",
+                ps -> ps.setArray(1, ps.getConnection().createArrayOf("bigint", ids)),
+                rowMapper());
+    }
+
+    public void upsert(final PriceDto price) {
+        jdbcTemplate.update(UPSERT, params(price));
+    }
+
+    public void upsertAll(final Collection<PriceDto> prices) {
+        if (prices.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(UPSERT, prices.stream().map(this::params).toArray(SqlParameterSource[]::new));
+    }
+
+    private SqlParameterSource params(final PriceDto price) {
+        try {
+            return new MapSqlParameterSource()
+                    .addValue("productId", price.productId())
+                    .addValue("basePrice", price.basePrice())
+                    .addValue("finalPrice", price.finalPrice())
+                    .addValue("adjustments", objectMapper.writeValueAsString(price.adjustments() != null ? price.adjustments() : List.of()))
+                    .addValue("version", Objects.requireNonNullElse(price.version(), 0L));
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Cannot serialize adjustments of product " + price.productId(), e);
+        }
+    }
+
+    private RowMapper<PriceDto> rowMapper() {
+        return (rs, rowNum) -> {
+            final long productId = rs.getLong(1);
+            try {
+                return new PriceDto(productId, rs.getBigDecimal(2), rs.getBigDecimal(3),
+                        List.copyOf(objectMapper.readValue(rs.getString(4), ADJUSTMENTS)), rs.getLong(5));
+            } catch (JsonProcessingException e) {
+                throw new DataRetrievalFailureException("Malformed adjustments in the price snapshot of product " + productId, e);
+            }
+        };
+    }
+}
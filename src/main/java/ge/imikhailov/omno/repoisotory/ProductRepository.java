@@ -1,7 +1,21 @@
 package ge.imikhailov.omno.repoisotory;
 
 import ge.imikhailov.omno.entity.Product;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Optional;
 
 public interface ProductRepository extends JpaRepository<Product, Long> {
+
+    /**
+     * Locks the product row and bumps its version immediately, so concurrent writers of the same product
+     * are serialized and each sees (and publishes) its own new version.
+     */
+    @Lock(LockModeType.PESSIMISTIC_FORCE_INCREMENT)
+    @Query("select p from Product p where p.id = :id")
+    Optional<Product> findByIdForUpdate(@Param("id") Long id);
 }
@@ -0,0 +1,29 @@
+package ge.imikhailov.omno.service;
+
+import ge.imikhailov.omno.cache.config.AbsentKeys;
+import ge.imikhailov.omno.cache.config.ValueVersions;
+import ge.imikhailov.omno.dto.PriceDto;
+import ge.imikhailov.omno.web.error.ProductNotFoundException;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Cache semantics owned by the pricing domain.
+ */
+@Configuration
+class PriceCacheConfig {
+
+    // Tombstones of the price cache (cache.specs.price.negative-ttl) are served as a missing product
+    @Bean
+    AbsentKeys priceAbsentKeys() {
+        return new AbsentKeys(PriceService.PRICE_CACHE, ProductNotFoundException.class,
+                key -> new ProductNotFoundException(key instanceof Number id ? id.longValue() : null));
+    }
+
+    // Cached prices carry the product version they were computed from; it orders concurrent writes
+    @Bean
+    ValueVersions priceValueVersions() {
+        return new ValueVersions(PriceService.PRICE_CACHE,
+                value -> value instanceof PriceDto price && price.version() != null ? price.version() : 0L);
+    }
+}
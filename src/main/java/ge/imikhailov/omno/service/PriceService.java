@@ -1,11 +1,16 @@
 package ge.imikhailov.omno.service;
 
+import ge.imikhailov.omno.cache.multilevel.MultiLevelCache;
+import ge.imikhailov.omno.config.DataSourceConfig;
 import ge.imikhailov.omno.dto.AdjustmentDto;
 import ge.imikhailov.omno.dto.PriceDto;
 import ge.imikhailov.omno.entity.PriceAdjustment;
 import ge.imikhailov.omno.entity.Product;
 import ge.imikhailov.omno.enums.AdjustmentMode;
 import ge.imikhailov.omno.repoisotory.PriceAdjustmentRepository;
+import ge.imikhailov.omno.repoisotory.PriceReadRepository;
+import ge.imikhailov.omno.repoisotory.PriceReadRepository.PriceRow;
+import ge.imikhailov.omno.repoisotory.PriceSnapshotRepository;
 import ge.imikhailov.omno.repoisotory.ProductRepository;
 import ge.imikhailov.omno.web.error.ProductNotFoundException;
 import lombok.RequiredArgsConstructor;
@@ -13,29 +18,54 @@ import io.micrometer.observation.annotation.Observed;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.cache.annotation.CacheEvict;
-import org.springframework.cache.annotation.Cacheable;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionOperations;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 
 @Service
 @Slf4j
 @RequiredArgsConstructor
 public class PriceService {
 
+    static final String PRICE_CACHE = "price";
+
     private final ProductRepository productRepository;
     private final PriceAdjustmentRepository priceAdjustmentRepository;
+    private final PriceReadRepository priceReadRepository;
+    private final PriceSnapshotRepository priceSnapshotRepository;
     private final AdjustmentMapper adjustmentMapper;
     private final MeterRegistry meterRegistry;
+    private final CacheManager cacheManager;
+    private final TransactionOperations transactionOperations;
+    // Cache loads: served by the read replica when one is configured
+    @Qualifier(DataSourceConfig.READ_ONLY_TRANSACTIONS)
+    private final TransactionOperations readOnlyTransactionOperations;
+
+    // true: setAdjustments puts the recomputed price into the cache after commit; false: evict and reload on next read
+    @Value("${cache.write-through:true}")
+    private boolean writeThrough = true;
 
-    @Cacheable(cacheNames = "price", key = "#productId", sync = true)
-    @Transactional
+    /**
+     * Cached price: the price cache's single-flight load, or, when the cache batches misses, a bulk load shared
+     * with the other products missing at the same time.
+     */
     @Observed(
             name = "price.get",
             contextualName = "get price",
@@ -43,13 +73,32 @@ public class PriceService {
     )
     public PriceDto getPrice(final Long productId) {
         log.info("Getting price for product {}", productId);
-        return this.getData(productId);
+        final Cache cache = cacheManager.getCache(PRICE_CACHE);
+        if (cache instanceof MultiLevelCache multiLevelCache && multiLevelCache.isBatchingMisses()) {
+            final PriceDto price = multiLevelCache.getBatched(productId, this::loadAll);
+            if (price == null) {
+                throw new ProductNotFoundException(productId);
+            }
+            return price;
+        }
+        if (cache == null) {
+            return this.load(productId);
+        }
+        try {
+            return cache.get(productId, () -> this.load(productId));
+        } catch (Cache.ValueRetrievalException e) {
+            // Same as @Cacheable(sync = true): the loader's own exception reaches the caller
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
     }
 
     /**
      * DB-only variant: executes the same logic as {@link #getPrice(Long)} but without any cache involvement.
      */
-    @Transactional
+    @Transactional(readOnly = true)
     @Observed(
             name = "price.get.noCache",
             contextualName = "get price (db-only)",
@@ -60,20 +109,84 @@ public class PriceService {
         return this.getData(productId);
     }
 
-    @CacheEvict(cacheNames = "price", key = "#productId")
-    @Transactional
+    /**
+     * Batch variant of {@link #getPrice(Long)}: resolves all ids through the price cache in bulk
+     * (L1, then one L2 round trip, then one joined query for the rest).
+     *
+     * @return prices keyed by product id in request order; unknown ids are omitted
+     */
+    @Observed(
+            name = "price.getBatch",
+            contextualName = "get prices (batch)",
+            lowCardinalityKeyValues = {"products.count", "#productIds?.size()"}
+    )
+    public Map<Long, PriceDto> getPrices(final Collection<Long> productIds) {
+        log.info("Getting prices for {} products", productIds.size());
+        final Cache cache = cacheManager.getCache(PRICE_CACHE);
+        if (cache instanceof MultiLevelCache multiLevelCache) {
+            return multiLevelCache.getAll(productIds, this::loadAll);
+        }
+
+        final Map<Long, PriceDto> result = new LinkedHashMap<>();
+        final Set<Long> misses = new LinkedHashSet<>();
+        for (Long productId : productIds) {
+            final PriceDto cached = cache != null ? cache.get(productId, PriceDto.class) : null;
+            if (cached != null) {
+                result.put(productId, cached);
+            } else {
+                misses.add(productId);
+            }
+        }
+        if (!misses.isEmpty()) {
+            final Map<Long, PriceDto> loaded = this.loadAll(misses);
+            if (cache != null) {
+                loaded.forEach(cache::put);
+            }
+            result.putAll(loaded);
+        }
+        // Preserve request order
+        final Map<Long, PriceDto> ordered = new LinkedHashMap<>();
+        for (Long productId : productIds) {
+            final PriceDto dto = result.get(productId);
+            if (dto != null) {
+                ordered.put(productId, dto);
+            }
+        }
+        return ordered;
+    }
+
+    /**
+     * Saves the adjustments and the recomputed price snapshot in one transaction and, once it has committed, updates
+     * the price cache: in write-through mode the new price is put into L1 and L2 and peers receive an update stamp,
+     * otherwise the entry is evicted and L2 rejects loads of older versions from then on.
+     */
     @Observed(
             name = "price.setAdjustments",
             contextualName = "set adjustments",
             lowCardinalityKeyValues = {"product.id", "#productId", "adjustments.count", "#adjustmentDtoList?.size()"}
     )
     public void setAdjustments(Long productId, List<AdjustmentDto> adjustmentDtoList) {
+        final PriceDto updated = Objects.requireNonNull(transactionOperations.execute(status -> saveAdjustments(productId, adjustmentDtoList)));
+        final Cache cache = cacheManager.getCache(PRICE_CACHE);
+        if (cache == null) {
+            return;
+        }
+        if (writeThrough) {
+            cache.put(productId, updated);
+        } else if (cache instanceof MultiLevelCache multiLevelCache) {
+            multiLevelCache.evict(productId, Objects.requireNonNullElse(updated.version(), 0L));
+        } else {
+            cache.evict(productId);
+        }
+    }
+
+    private PriceDto saveAdjustments(final Long productId, final List<AdjustmentDto> adjustmentDtoList) {
         final Timer.Sample sampleFindById = Timer.start(meterRegistry);
-        final Optional<Product> oProduct = productRepository.findById(productId);
+        final Optional<Product> oProduct = productRepository.findByIdForUpdate(productId);
         sampleFindById.stop(
                 Timer.builder("omno.db.query")
                         .tag("entity", "Product")
-                        .tag("op", "findById")
+                        .tag("op", "findByIdForUpdate")
                         .publishPercentileHistogram()
                         .publishPercentiles(0.5, 0.9, 0.95, 0.99)
                         .register(meterRegistry)
@@ -85,48 +198,112 @@ public class PriceService {
         final List<PriceAdjustment> adjustments = adjustmentMapper.toEntity(adjustmentDtoList, product);
         adjustments.forEach(a -> a.setUpdatedAt(OffsetDateTime.now()));
         priceAdjustmentRepository.saveAll(adjustments);
+        // Read back what was stored (column scale applied) with the bumped version, as a later miss would see it
+        priceAdjustmentRepository.flush();
+        final PriceDto price = priceOf(priceReadRepository.findPrice(productId)
+                .orElseThrow(() -> new ProductNotFoundException(productId)));
+        final Timer.Sample sampleUpsert = Timer.start(meterRegistry);
+        priceSnapshotRepository.upsert(price);
+        sampleUpsert.stop(
+                Timer.builder("omno.db.query")
+                        .tag("entity", "PriceSnapshot")
+                        .tag("op", "upsert")
+                        .publishPercentileHistogram()
+                        .publishPercentiles(0.5, 0.9, 0.95, 0.99)
+                        .register(meterRegistry)
+        );
+        return price;
+    }
+
+    private PriceDto load(final Long productId) {
+        return Objects.requireNonNull(readOnlyTransactionOperations.execute(status -> getData(productId)));
+    }
+
+    private Map<Long, PriceDto> loadAll(final Set<Long> productIds) {
+        return Objects.requireNonNull(readOnlyTransactionOperations.execute(status -> getAllData(productIds)));
     }
 
     private PriceDto getData(final Long productId) {
-        final Timer.Sample sampleFindById = Timer.start(meterRegistry);
-        final Optional<Product> oProduct = productRepository.findById(productId);
-        sampleFindById.stop(
+        final Timer.Sample sampleFindSnapshot = Timer.start(meterRegistry);
+        final Optional<PriceDto> snapshot = priceSnapshotRepository.find(productId);
+        sampleFindSnapshot.stop(
                 Timer.builder("omno.db.query")
-                        .tag("entity", "Product")
-                        .tag("op", "findById")
+                        .tag("entity", "PriceSnapshot")
+                        .tag("op", "find")
                         .publishPercentileHistogram()
                         .publishPercentiles(0.5, 0.9, 0.95, 0.99)
                         .register(meterRegistry)
         );
-        if (oProduct.isEmpty()) {
+        if (snapshot.isPresent()) {
+            return snapshot.get();
+        }
+        // Not backfilled yet: compute from the product and its adjustments
+        final Timer.Sample sampleFindPrice = Timer.start(meterRegistry);
+        final Optional<PriceRow> row = priceReadRepository.findPrice(productId);
+        sampleFindPrice.stop(
+                Timer.builder("omno.db.query")
+                        .tag("entity", "Price")
+                        .tag("op", "findPrice")
+                        .publishPercentileHistogram()
+                        .publishPercentiles(0.5, 0.9, 0.95, 0.99)
+                        .register(meterRegistry)
+        );
+        if (row.isEmpty()) {
             log.warn("Product not found for product id {}", productId);
             throw new ProductNotFoundException(productId);
         }
-        final var product = oProduct.get();
-        log.info("Found product {}", product.getName());
-        final Timer.Sample sampleFindAdjust = Timer.start(meterRegistry);
-        final List<AdjustmentDto> adjustmentDtoList = priceAdjustmentRepository.findByProduct(product).stream()
-                .map(adjustmentMapper::toDto)
-                .toList();
-        sampleFindAdjust.stop(
+        log.info("Found product {} with {} adjustments", productId, row.get().adjustments().size());
+        return priceOf(row.get());
+    }
+
+    static PriceDto priceOf(final PriceRow row) {
+        return new PriceDto(row.productId(), row.basePrice(), calculateFinalPrice(row.basePrice(), row.adjustments()), row.adjustments(), row.version());
+    }
+
+    private Map<Long, PriceDto> getAllData(final Set<Long> productIds) {
+        final Timer.Sample sampleFindSnapshots = Timer.start(meterRegistry);
+        final List<PriceDto> snapshots = priceSnapshotRepository.findAll(productIds);
+        sampleFindSnapshots.stop(
+                Timer.builder("omno.db.query")
+                        .tag("entity", "PriceSnapshot")
+                        .tag("op", "findAll")
+                        .publishPercentileHistogram()
+                        .publishPercentiles(0.5, 0.9, 0.95, 0.99)
+                        .register(meterRegistry)
+        );
+        final Map<Long, PriceDto> result = new HashMap<>();
+        for (PriceDto snapshot : snapshots) {
+            result.put(snapshot.productId(), snapshot);
+        }
+        if (result.size() == productIds.size()) {
+            return result;
+        }
+        final Set<Long> missing = new LinkedHashSet<>(productIds);
+        missing.removeAll(result.keySet());
+        final Timer.Sample sampleFindAll = Timer.start(meterRegistry);
+        final List<PriceRow> rows = priceReadRepository.findPrices(missing);
+        sampleFindAll.stop(
                 Timer.builder("omno.db.query")
-                        .tag("entity", "PriceAdjustment")
-                        .tag("op", "findByProduct")
+                        .tag("entity", "Price")
+                        .tag("op", "findPrices")
                         .publishPercentileHistogram()
                         .publishPercentiles(0.5, 0.9, 0.95, 0.99)
                         .register(meterRegistry)
         );
-        log.info("Found {} adjustments", adjustmentDtoList.size());
-        return new PriceDto(product.getId(), product.getBasePrice(), calculateFinalPrice(product.getBasePrice(), adjustmentDtoList), adjustmentDtoList);
+        log.info("Found {} of {} products, {} without a snapshot", result.size() + rows.size(), productIds.size(), missing.size());
+        for (PriceRow row : rows) {
+            result.put(row.productId(), priceOf(row));
+        }
+        return result;
     }
 
-    private BigDecimal calculateFinalPrice(BigDecimal basePrice, List<AdjustmentDto> adjustmentDtoList) {
+    private static BigDecimal calculateFinalPrice(BigDecimal basePrice, List<AdjustmentDto> adjustmentDtoList) {
         return adjustmentDtoList.stream()
                 .map(a -> calculateAdjustedPrice(a, basePrice))
                 .reduce(basePrice, BigDecimal::add);
     }
 
-    private BigDecimal calculateAdjustedPrice(AdjustmentDto adjustmentDto, BigDecimal basePrice) {
+    private static BigDecimal calculateAdjustedPrice(AdjustmentDto adjustmentDto, BigDecimal basePrice) {
         if (adjustmentDto == null) {
             return BigDecimal.ZERO;
         }
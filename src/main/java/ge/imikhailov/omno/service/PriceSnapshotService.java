@@ -0,0 +1,149 @@
+package ge.imikhailov.omno.service;
+
+import ge.imikhailov.omno.dto.AdjustmentDto;
+import ge.imikhailov.omno.dto.PriceDto;
+import ge.imikhailov.omno.repoisotory.PriceReadRepository;
+import ge.imikhailov.omno.repoisotory.PriceReadRepository.PriceRow;
+import ge.imikhailov.omno.repoisotory.PriceSnapshotRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Maintenance of {@code pricing.price_snapshot} outside the write path: backfills snapshots from the live
+ * computation and checks existing ones against it. Both walk the catalogue in id order, one chunk per transaction.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class PriceSnapshotService {
+
+    static final int MAX_SAMPLES = 20;
+
+    private final PriceReadRepository priceReadRepository;
+    private final PriceSnapshotRepository priceSnapshotRepository;
+    private final TransactionOperations transactionOperations;
+
+    public record BackfillResult(long products, long tookMs) {
+    }
+
+    /**
+     * @param missing    products without a snapshot
+     * @param mismatched products whose snapshot differs from the live computation
+     * @param sampleIds  up to {@value #MAX_SAMPLES} ids of missing or mismatched products
+     */
+    public record VerifyResult(long checked, long missing, long mismatched, List<Long> sampleIds, long tookMs) {
+    }
+
+    /**
+     * Computes and upserts the snapshot of every product. Safe to run against live traffic: a snapshot written by a
+     * newer product version is never replaced.
+     */
+    public BackfillResult backfill(final int chunkSize) {
+        final long start = System.currentTimeMillis();
+        long products = 0;
+        long afterId = 0;
+        while (true) {
+            final long from = afterId;
+            final List<PriceRow> rows = Objects.requireNonNull(transactionOperations.execute(status -> {
+                final List<PriceRow> chunk = priceReadRepository.findPrices(priceReadRepository.findProductIdsAfter(from, chunkSize));
+                priceSnapshotRepository.upsertAll(chunk.stream().map(PriceService::priceOf).toList());
+                return chunk;
+            }));
+            if (rows.isEmpty()) {
+                break;
+            }
+            products += rows.size();
+            afterId = rows.get(rows.size() - 1).productId();
+        }
+        final long took = System.currentTimeMillis() - start;
+        log.info("Backfilled {} price snapshots in {} ms", products, took);
+        return new BackfillResult(products, took);
+    }
+
+    /**
+     * Compares every product's snapshot with the price computed from its current base price and adjustments.
+     */
+    public VerifyResult verify(final int chunkSize) {
+        final long start = System.currentTimeMillis();
+        long checked = 0;
+        long missing = 0;
+        long mismatched = 0;
+        final List<Long> samples = new ArrayList<>();
+        long afterId = 0;
+        while (true) {
+            final long from = afterId;
+            // A write committing between the two reads shows up as a mismatch; re-run to tell drift from a race
+            final Map<PriceRow, PriceDto> chunk = Objects.requireNonNull(transactionOperations.execute(status -> {
+                final List<PriceRow> rows = priceReadRepository.findPrices(priceReadRepository.findProductIdsAfter(from, chunkSize));
+                final Map<Long, PriceDto> snapshots = new HashMap<>();
+                priceSnapshotRepository.findAll(rows.stream().map(PriceRow::productId).toList())
+                        .forEach(s -> snapshots.put(s.productId(), s));
+                final Map<PriceRow, PriceDto> pairs = new LinkedHashMap<>();
+                rows.forEach(r -> pairs.put(r, snapshots.get(r.productId())));
+                return pairs;
+            }));
+            if (chunk.isEmpty()) {
+                break;
+            }
+            for (Map.Entry<PriceRow, PriceDto> e : chunk.entrySet()) {
+                final long productId = e.getKey().productId();
+                checked++;
+                afterId = productId;
+                if (e.getValue() == null) {
+                    missing++;
+                } else if (!matches(e.getValue(), PriceService.priceOf(e.getKey()))) {
+                    mismatched++;
+                } else {
+                    continue;
+                }
+                if (samples.size() < MAX_SAMPLES) {
+                    samples.add(productId);
+                }
+            }
+        }
+        final long took = System.currentTimeMillis() - start;
+        if (missing + mismatched > 0) {
+            log.warn("Price snapshots: {} checked, {} missing, {} mismatched, e.g. {}", checked, missing, mismatched, samples);
+        } else {
+            log.info("Price snapshots: {} checked, all consistent", checked);
+        }
+        return new VerifyResult(checked, missing, mismatched, List.copyOf(samples), took);
+    }
+
+    /**
+     * Same version, amounts and adjustments; amounts are compared by value, since the snapshot columns fix the scale.
+     */
+    static boolean matches(final PriceDto snapshot, final PriceDto live) {
+        if (!Objects.equals(snapshot.version(), live.version())
+                || !sameAmount(snapshot.basePrice(), live.basePrice())
+                || !sameAmount(snapshot.finalPrice(), live.finalPrice())) {
+            return false;
+        }
+        final List<AdjustmentDto> a = snapshot.adjustments() != null ? snapshot.adjustments() : List.of();
+        final List<AdjustmentDto> b = live.adjustments() != null ? live.adjustments() : List.of();
+        if (a.size() != b.size()) {
+            return false;
+        }
+        for (int i = 0; i < a.size(); i++) {
+            if (a.get(i).type() != b.get(i).type() || a.get(i).mode() != b.get(i).mode()
+                    || !sameAmount(a.get(i).value(), b.get(i).value())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean sameAmount(final BigDecimal a, final BigDecimal b) {
+        return a == null ? b == null : b != null && a.compareTo(b) == 0;
+    }
+}
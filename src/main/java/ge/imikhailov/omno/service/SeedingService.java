@@ -47,6 +47,8 @@ public class SeedingService {
         return before;
     }
 
+    // New ids may have been cached as "absent"; clearDb() is self-invoked and bypasses the proxy
+    @CacheEvict(cacheNames = "price", allEntries = true)
     @Transactional
     public SeedResult seed(long count, double adjustRate, boolean clear) {
         long start = System.currentTimeMillis();
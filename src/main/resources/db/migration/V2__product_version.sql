@@ -0,0 +1,3 @@
+-- Row version for optimistic locking; bumped whenever a product's adjustments change and used to order cache writes
+alter table pricing.product
+    add column if not exists version bigint not null default 0;
@@ -0,0 +1,11 @@
+-- Denormalized price per product, written with every adjustment change so cache misses read one row by primary key
+create table if not exists pricing.price_snapshot
+(
+    product_id  bigint primary key references pricing.product (id) on delete cascade,
+    base_price  numeric(19, 2) not null,
+    final_price numeric(19, 2) not null,
+    -- [{"value": 10.00, "type": "PROMO", "mode": "ABSOLUTE"}, ...] in adjustment id order
+    adjustments jsonb          not null default '[]'::jsonb,
+    version     bigint         not null,
+    updated_at  timestamptz    not null default now()
+);
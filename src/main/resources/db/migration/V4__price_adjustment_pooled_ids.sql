@@ -0,0 +1,3 @@
+-- Adjustment ids are allocated by Hibernate in blocks of 50 (pooled optimizer), so inserts can be JDBC-batched.
+-- Must match allocationSize on PriceAdjustment.id; plain inserts using the column default still get unique ids.
+alter sequence pricing.price_adjustment_id_seq increment by 50;
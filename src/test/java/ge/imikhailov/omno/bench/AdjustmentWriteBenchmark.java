@@ -0,0 +1,98 @@
+package ge.imikhailov.omno.bench;
+
+import ge.imikhailov.omno.OmnoApplication;
+import ge.imikhailov.omno.dto.AdjustmentDto;
+import ge.imikhailov.omno.enums.AdjustmentMode;
+import ge.imikhailov.omno.enums.AdjustmentType;
+import ge.imikhailov.omno.service.PriceService;
+import ge.imikhailov.omno.service.SeedingService;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Adjustment writes against a real database: {@code setAdjustments} with {@code rows} adjustments for one product,
+ * and {@code seed} of {@code rows} products with one to three adjustments each. Every invocation runs in a transaction
+ * that is rolled back, so the tables do not grow between invocations (ids are still consumed).
+ * <p>
+ * Needs the application's database ({@code SPRING_DATASOURCE_URL} etc.) with at least one product. To compare
+ * per-row IDENTITY inserts with batched inserts, run it on both revisions against the same database.
+ * <p>
+ * Run: {@code mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=ge.imikhailov.omno.bench.AdjustmentWriteBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AdjustmentWriteBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int rows;
+
+    private ConfigurableApplicationContext context;
+    private TransactionTemplate tx;
+    private PriceService priceService;
+    private SeedingService seedingService;
+    private long productId;
+    private List<AdjustmentDto> adjustments;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(OmnoApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--cache.enabled=false", "--cache.l1.enabled=false", "--cache.l2.enabled=false",
+                        "--logging.level.ge.imikhailov=WARN", "--spring.jpa.show-sql=false");
+        tx = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        priceService = context.getBean(PriceService.class);
+        seedingService = context.getBean(SeedingService.class);
+        final Long id = context.getBean(JdbcTemplate.class).queryForObject("select min(id) from pricing.product", Long.class);
+        if (id == null) {
+            throw new IllegalStateException("No products: seed the database first");
+        }
+        productId = id;
+        adjustments = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            adjustments.add(new AdjustmentDto(new BigDecimal("0.01"), AdjustmentType.FEE, AdjustmentMode.ABSOLUTE));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public void setAdjustments() {
+        tx.executeWithoutResult(status -> {
+            priceService.setAdjustments(productId, adjustments);
+            status.setRollbackOnly();
+        });
+    }
+
+    @Benchmark
+    public Object seed() {
+        return tx.execute(status -> {
+            final SeedingService.SeedResult result = seedingService.seed(rows, 1.0, false);
+            status.setRollbackOnly();
+            return result;
+        });
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(AdjustmentWriteBenchmark.class.getSimpleName()).addProfiler("gc").build()).run();
+    }
+}
@@ -0,0 +1,72 @@
+package ge.imikhailov.omno.bench;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import ge.imikhailov.omno.cache.multilevel.CachedEntry;
+import ge.imikhailov.omno.cache.multilevel.MultiLevelCache;
+import ge.imikhailov.omno.dto.PriceDto;
+import ge.imikhailov.omno.metrics.CacheMetricsFactory;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.cache.Cache;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fresh L1 hits through {@link MultiLevelCache}. Run with the GC profiler; {@code gc.alloc.rate.norm}
+ * should stay at 0 B/op for every benchmark.
+ * <p>
+ * Run: {@code mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=ge.imikhailov.omno.bench.L1HitBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class L1HitBenchmark {
+
+    private static final Long KEY = 123_456L;
+
+    private MultiLevelCache cache;
+    private Callable<PriceDto> loader;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        final Cache l1 = new CaffeineCache("price", Caffeine.newBuilder().maximumSize(10_000).recordStats().build());
+        cache = new MultiLevelCache("price", l1, new ConcurrentMapCache("price"), Duration.ofHours(1), null,
+                new CacheMetricsFactory(new SimpleMeterRegistry()));
+        final PriceDto dto = new PriceDto(KEY, new BigDecimal("199.99"), new BigDecimal("187.45"), List.of(), 1L);
+        l1.put(KEY, new CachedEntry(dto, System.currentTimeMillis()));
+        loader = () -> {
+            throw new IllegalStateException("L1 hit expected");
+        };
+    }
+
+    @Benchmark
+    public Object getWithLoader() {
+        return cache.get(KEY, loader);
+    }
+
+    @Benchmark
+    public Object getWrapper() {
+        return cache.get(KEY);
+    }
+
+    @Benchmark
+    public Object getTyped() {
+        return cache.get(KEY, PriceDto.class);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(L1HitBenchmark.class.getSimpleName()).addProfiler("gc").build()).run();
+    }
+}
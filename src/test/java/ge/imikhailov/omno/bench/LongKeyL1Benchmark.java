@@ -0,0 +1,112 @@
+package ge.imikhailov.omno.bench;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import ge.imikhailov.omno.cache.primitive.LongKeyCache;
+import ge.imikhailov.omno.cache.redis.RedisKeyEncoder;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.cache.Cache;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+import org.springframework.data.redis.util.ByteUtils;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * L1 for numeric keys: Caffeine vs {@link LongKeyCache}, read through the native store as {@code MultiLevelCache}
+ * does. {@code hit} reads resident keys, {@code churn} writes keys from a range 4x the capacity (eviction path).
+ * Retained heap per entry is printed once per trial. {@code encodeL2Key*} compare the Redis key encoding.
+ * <p>
+ * Run: {@code mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=ge.imikhailov.omno.bench.LongKeyL1Benchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LongKeyL1Benchmark {
+
+    private static final int CAPACITY = 1 << 20;
+    private static final int MASK = CAPACITY - 1;
+
+    @Param({"caffeine", "long"})
+    String l1;
+
+    private ConcurrentMap<Object, Object> store;
+    private Long[] keys;
+    private Long[] churnKeys;
+    private int index;
+    private RedisKeyEncoder keyEncoder;
+    private RedisCacheConfiguration redisConfig;
+
+    @Setup(Level.Trial)
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        keys = new Long[CAPACITY];
+        churnKeys = new Long[CAPACITY];
+        for (int i = 0; i < CAPACITY; i++) {
+            keys[i] = 10_000_000L + i * 7L;
+            churnKeys[i] = 50_000_000L + (i * 4L) + (i & 3);
+        }
+        final long before = usedHeap();
+        final Cache cache = "long".equals(l1)
+                ? new LongKeyCache("price", CAPACITY, Duration.ofHours(1))
+                : new CaffeineCache("price", Caffeine.newBuilder().maximumSize(CAPACITY).expireAfterWrite(Duration.ofHours(1)).recordStats().build());
+        store = cache.getNativeCache() instanceof com.github.benmanes.caffeine.cache.Cache<?, ?> caffeine
+                ? (ConcurrentMap<Object, Object>) caffeine.asMap()
+                : (ConcurrentMap<Object, Object>) cache.getNativeCache();
+        final Object value = new Object();
+        for (Long key : keys) {
+            // A fresh box per entry, as a request would pass; the key array is allocated before the measurement
+            store.put(Long.valueOf(key.longValue()), value);
+        }
+        System.out.printf("%nl1=%s retained bytes/entry ~%d%n", l1, (usedHeap() - before) / CAPACITY);
+
+        redisConfig = RedisCacheConfiguration.defaultCacheConfig()
+                .prefixCacheNameWith("omno:")
+                .serializeKeysWith(RedisSerializationContext.SerializationPair.fromSerializer(new StringRedisSerializer()));
+        keyEncoder = new RedisKeyEncoder("price", redisConfig);
+    }
+
+    private static long usedHeap() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        final Runtime rt = Runtime.getRuntime();
+        return rt.totalMemory() - rt.freeMemory();
+    }
+
+    @Benchmark
+    public Object hit() {
+        return store.get(keys[index++ & MASK]);
+    }
+
+    @Benchmark
+    public Object churn() {
+        return store.put(churnKeys[index++ & MASK], Map.class);
+    }
+
+    @Benchmark
+    public byte[] encodeL2KeyDirect() {
+        return keyEncoder.encode(keys[index++ & MASK]);
+    }
+
+    @Benchmark
+    public byte[] encodeL2KeyString() {
+        final Long key = keys[index++ & MASK];
+        return ByteUtils.getBytes(redisConfig.getKeySerializationPair().write(redisConfig.getKeyPrefixFor("price")
+                + redisConfig.getConversionService().convert(key, String.class)));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(LongKeyL1Benchmark.class.getSimpleName()).addProfiler("gc").build()).run();
+    }
+}
@@ -0,0 +1,80 @@
+package ge.imikhailov.omno.bench;
+
+import ge.imikhailov.omno.cache.multilevel.CachedEntry;
+import ge.imikhailov.omno.cache.redis.PriceEntryRedisSerializer;
+import ge.imikhailov.omno.dto.AdjustmentDto;
+import ge.imikhailov.omno.dto.PriceDto;
+import ge.imikhailov.omno.enums.AdjustmentMode;
+import ge.imikhailov.omno.enums.AdjustmentType;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * L2 value codec: current JSON serializer vs {@link PriceEntryRedisSerializer}.
+ * Payload sizes (bytes per entry) are printed once per trial.
+ * <p>
+ * Run: {@code mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=ge.imikhailov.omno.bench.PriceCodecBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PriceCodecBenchmark {
+
+    @Param({"0", "3", "10"})
+    int adjustments;
+
+    private RedisSerializer<Object> json;
+    private PriceEntryRedisSerializer binary;
+    private CachedEntry entry;
+    private byte[] jsonBytes;
+    private byte[] binaryBytes;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        json = RedisSerializer.json();
+        binary = new PriceEntryRedisSerializer(json);
+        final List<AdjustmentDto> list = new ArrayList<>();
+        for (int i = 0; i < adjustments; i++) {
+            list.add(new AdjustmentDto(BigDecimal.valueOf(150 + i, 2), AdjustmentType.values()[i % 3], AdjustmentMode.values()[i % 2]));
+        }
+        entry = new CachedEntry(new PriceDto(123_456L, new BigDecimal("199.99"), new BigDecimal("187.45"), list), System.currentTimeMillis());
+        jsonBytes = json.serialize(entry);
+        binaryBytes = binary.serialize(entry);
+        System.out.printf("%nadjustments=%d bytes/entry: json=%d binary=%d%n", adjustments, jsonBytes.length, binaryBytes.length);
+    }
+
+    @Benchmark
+    public byte[] encodeJson() {
+        return json.serialize(entry);
+    }
+
+    @Benchmark
+    public byte[] encodeBinary() {
+        return binary.serialize(entry);
+    }
+
+    @Benchmark
+    public Object decodeJson() {
+        return json.deserialize(jsonBytes);
+    }
+
+    @Benchmark
+    public Object decodeBinary() {
+        return binary.deserialize(binaryBytes);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(PriceCodecBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,107 @@
+package ge.imikhailov.omno.bench;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import ge.imikhailov.omno.cache.multilevel.CachedEntry;
+import ge.imikhailov.omno.dto.AdjustmentDto;
+import ge.imikhailov.omno.dto.PriceDto;
+import ge.imikhailov.omno.enums.AdjustmentMode;
+import ge.imikhailov.omno.enums.AdjustmentType;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Retained L1 heap per cached price: the compact {@link PriceDto} vs the plain record it replaced
+ * ({@code record}: three {@link BigDecimal}s, boxed ids and a list of adjustment records). Each trial fills a
+ * Caffeine L1 with a catalogue where every product carries the same TAX rate and half of them one of 20 promos,
+ * renders every price once (as the first response does, which caches the amounts' strings) and prints the
+ * retained bytes per entry. {@code render} measures the JSON rendering of a cached price, where the compact
+ * form rebuilds its amounts and adjustments.
+ * <p>
+ * Run: {@code mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=ge.imikhailov.omno.bench.PriceFootprintBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PriceFootprintBenchmark {
+
+    private static final int ENTRIES = 1 << 19;
+    private static final int MASK = ENTRIES - 1;
+
+    @Param({"record", "compact"})
+    String representation;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private Cache<Object, Object> l1;
+    private Object[] values;
+    private int index;
+
+    public record RecordPriceDto(Long productId, BigDecimal basePrice, BigDecimal finalPrice,
+                                 List<AdjustmentDto> adjustments, Long version) {
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        final SplittableRandom random = new SplittableRandom(7);
+        final List<AdjustmentDto> promos = new ArrayList<>();
+        for (int i = 1; i <= 20; i++) {
+            promos.add(new AdjustmentDto(BigDecimal.valueOf(i * 50L, 2), AdjustmentType.PROMO, AdjustmentMode.ABSOLUTE));
+        }
+        l1 = Caffeine.newBuilder().maximumSize(ENTRIES).build();
+        values = new Object[ENTRIES];
+
+        final long before = usedHeap();
+        for (int i = 0; i < ENTRIES; i++) {
+            final long id = 1_000_000L + i;
+            // Values built per product, as loading from the database does
+            final List<AdjustmentDto> adjustments = new ArrayList<>();
+            adjustments.add(new AdjustmentDto(new BigDecimal("18.00"), AdjustmentType.TAX, AdjustmentMode.PERCENT));
+            if (random.nextBoolean()) {
+                final AdjustmentDto promo = promos.get(random.nextInt(promos.size()));
+                adjustments.add(new AdjustmentDto(new BigDecimal(promo.value().toPlainString()), promo.type(), promo.mode()));
+            }
+            final BigDecimal base = BigDecimal.valueOf(100 + random.nextLong(1_000_000), 2);
+            final BigDecimal fin = base.multiply(new BigDecimal("1.18")).setScale(2, RoundingMode.HALF_EVEN);
+            final Object value = "record".equals(representation)
+                    ? new RecordPriceDto(id, base, fin, adjustments, 1_000L + i)
+                    : new PriceDto(id, base, fin, adjustments, 1_000L + i);
+            mapper.writeValueAsBytes(value);
+            l1.put(id, new CachedEntry(value, 1L));
+        }
+        System.out.printf("%nrepresentation=%s retained bytes/entry ~%d%n", representation, (usedHeap() - before) / ENTRIES);
+
+        for (int i = 0; i < ENTRIES; i++) {
+            values[i] = ((CachedEntry) l1.getIfPresent(1_000_000L + i)).getValue();
+        }
+    }
+
+    private static long usedHeap() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        final Runtime rt = Runtime.getRuntime();
+        return rt.totalMemory() - rt.freeMemory();
+    }
+
+    @Benchmark
+    public byte[] render() throws Exception {
+        return mapper.writeValueAsBytes(values[index++ & MASK]);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(PriceFootprintBenchmark.class.getSimpleName()).addProfiler("gc").build()).run();
+    }
+}
@@ -0,0 +1,96 @@
+package ge.imikhailov.omno.bench;
+
+import ge.imikhailov.omno.OmnoApplication;
+import ge.imikhailov.omno.repoisotory.PriceAdjustmentRepository;
+import ge.imikhailov.omno.repoisotory.PriceReadRepository;
+import ge.imikhailov.omno.repoisotory.ProductRepository;
+import ge.imikhailov.omno.service.AdjustmentMapper;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Price cache miss against a real database: the entity path ({@code findById} + {@code findByProduct} + mapping,
+ * two statements and hydrated entities) vs {@link PriceReadRepository} (one joined statement mapped from rows).
+ * Both run in a transaction, as {@code PriceService.getPrice} does, for random ids of the seeded catalogue.
+ * <p>
+ * Needs the application's database ({@code SPRING_DATASOURCE_URL} etc.) seeded first, e.g.
+ * {@code POST /admin/seed?count=10000}. Caches are disabled, so Redis is not used.
+ * <p>
+ * Run: {@code mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=ge.imikhailov.omno.bench.PriceReadBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PriceReadBenchmark {
+
+    private ConfigurableApplicationContext context;
+    private TransactionTemplate tx;
+    private ProductRepository productRepository;
+    private PriceAdjustmentRepository priceAdjustmentRepository;
+    private PriceReadRepository priceReadRepository;
+    private AdjustmentMapper adjustmentMapper;
+    private long minId;
+    private long maxId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(OmnoApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--cache.enabled=false", "--cache.l1.enabled=false", "--cache.l2.enabled=false",
+                        "--logging.level.ge.imikhailov=WARN", "--spring.jpa.show-sql=false");
+        tx = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        productRepository = context.getBean(ProductRepository.class);
+        priceAdjustmentRepository = context.getBean(PriceAdjustmentRepository.class);
+        priceReadRepository = context.getBean(PriceReadRepository.class);
+        adjustmentMapper = context.getBean(AdjustmentMapper.class);
+        final Map<String, Object> range = context.getBean(JdbcTemplate.class)
+                .queryForMap("select coalesce(min(id), 0) as lo, coalesce(max(id), 0) as hi from pricing.product");
+        minId = ((Number) range.get("lo")).longValue();
+        maxId = ((Number) range.get("hi")).longValue();
+        if (maxId == 0) {
+            throw new IllegalStateException("No products: seed the database first");
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    private long randomId() {
+        return ThreadLocalRandom.current().nextLong(minId, maxId + 1);
+    }
+
+    @Benchmark
+    public Object entityPath() {
+        final long id = randomId();
+        return tx.execute(status -> productRepository.findById(id)
+                .map(product -> adjustmentMapper.toDto(priceAdjustmentRepository.findByProduct(product)))
+                .orElse(null));
+    }
+
+    @Benchmark
+    public Object projection() {
+        final long id = randomId();
+        return tx.execute(status -> priceReadRepository.findPrice(id).orElse(null));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(PriceReadBenchmark.class.getSimpleName()).addProfiler("gc").build()).run();
+    }
+}
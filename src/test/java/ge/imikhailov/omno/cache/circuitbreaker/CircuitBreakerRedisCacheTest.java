@@ -4,8 +4,11 @@ import io.github.resilience4j.circuitbreaker.CircuitBreaker;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
 
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -63,4 +66,17 @@ class CircuitBreakerRedisCacheTest {
         cache.get("k1");
         verify(delegate).get("k1");
     }
+
+    @Test
+    void retrieveGoesThroughBreakerAsynchronously() throws Exception {
+        CompletableFuture<Object> pending = new CompletableFuture<>();
+        doReturn(pending).when(delegate).retrieve("k1");
+
+        CompletableFuture<?> result = cache.retrieve("k1");
+        assertThat(result).isNotDone();
+
+        pending.complete(new SimpleValueWrapper("v1"));
+        assertThat(((Cache.ValueWrapper) result.get(1, TimeUnit.SECONDS)).get()).isEqualTo("v1");
+        assertThat(circuitBreaker.getMetrics().getNumberOfSuccessfulCalls()).isEqualTo(1);
+    }
 }
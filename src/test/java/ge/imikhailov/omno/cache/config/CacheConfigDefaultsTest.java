@@ -0,0 +1,37 @@
+package ge.imikhailov.omno.cache.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.env.YamlPropertySourceLoader;
+import org.springframework.core.env.MutablePropertySources;
+import org.springframework.core.env.PropertySourcesPropertyResolver;
+import org.springframework.core.io.ClassPathResource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Defaults of settings that change what gets written, both without configuration and from application.yml.
+ */
+class CacheConfigDefaultsTest {
+
+    @Test
+    void l2CodecDefaultsToJson() throws Exception {
+        assertThat(resolve("l2Codec", false)).isEqualTo("json");
+        assertThat(resolve("l2Codec", true)).isEqualTo("json");
+    }
+
+    @Test
+    void l2WriteBehindIsOptIn() throws Exception {
+        assertThat(resolve("l2WriteBehindEnabled", false)).isEqualTo("false");
+        assertThat(resolve("l2WriteBehindEnabled", true)).isEqualTo("false");
+    }
+
+    private static String resolve(final String field, final boolean withApplicationYml) throws Exception {
+        final MutablePropertySources sources = new MutablePropertySources();
+        if (withApplicationYml) {
+            new YamlPropertySourceLoader().load("application", new ClassPathResource("application.yml")).forEach(sources::addLast);
+        }
+        final String placeholder = CacheConfig.class.getDeclaredField(field).getAnnotation(Value.class).value();
+        return new PropertySourcesPropertyResolver(sources).resolvePlaceholders(placeholder);
+    }
+}
@@ -0,0 +1,64 @@
+package ge.imikhailov.omno.cache.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import ge.imikhailov.omno.cache.multilevel.CachedEntry;
+import ge.imikhailov.omno.dto.AdjustmentDto;
+import ge.imikhailov.omno.dto.PriceDto;
+import ge.imikhailov.omno.enums.AdjustmentMode;
+import ge.imikhailov.omno.enums.AdjustmentType;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class L1WeigherTest {
+
+    private static CachedEntry price(long id, int adjustments) {
+        List<AdjustmentDto> list = new ArrayList<>();
+        for (int i = 0; i < adjustments; i++) {
+            list.add(new AdjustmentDto(new BigDecimal("1.50"), AdjustmentType.PROMO, AdjustmentMode.ABSOLUTE));
+        }
+        return new CachedEntry(new PriceDto(id, new BigDecimal("199.99"), new BigDecimal("187.45"), List.copyOf(list), 3L), 1L);
+    }
+
+    private static PriceDto huge(long id) {
+        BigDecimal huge = new BigDecimal("123456789012345678901234567890");
+        return new PriceDto(id, huge, huge, List.of());
+    }
+
+    @Test
+    void weighsByShape() {
+        int plain = L1Weigher.INSTANCE.weigh(1_000L, price(1_000L, 0));
+        int withThree = L1Weigher.INSTANCE.weigh(1_000L, price(1_000L, 3));
+        int tombstone = L1Weigher.INSTANCE.weigh(1_000L, CachedEntry.tombstone(1L));
+
+        assertThat(tombstone).isEqualTo(L1Weigher.NODE_AND_KEY + L1Weigher.CACHED_ENTRY);
+        assertThat(plain).isGreaterThan(tombstone);
+        // Interned adjustments are shared between prices and not charged per entry
+        assertThat(withThree).isEqualTo(plain);
+        assertThat(L1Weigher.weigh(huge(1L)))
+                .isGreaterThan(L1Weigher.weigh(new PriceDto(1L, BigDecimal.ONE, BigDecimal.ONE, List.of())) + 2 * 64);
+    }
+
+    @Test
+    void byteBudgetHoldsFewerLargeEntries() {
+        long budget = 100L * L1Weigher.INSTANCE.weigh(0L, price(0L, 0));
+        Cache<Object, Object> cache = Caffeine.newBuilder()
+                .maximumWeight(budget)
+                .weigher(L1Weigher.INSTANCE)
+                .executor(Runnable::run)
+                .build();
+
+        for (long id = 1_000; id < 1_200; id++) {
+            cache.put(id, new CachedEntry(huge(id), 1L));
+        }
+        cache.cleanUp();
+
+        assertThat(cache.policy().eviction().orElseThrow().weightedSize().orElseThrow()).isLessThanOrEqualTo(budget);
+        assertThat(cache.estimatedSize()).isLessThan(100);
+    }
+}
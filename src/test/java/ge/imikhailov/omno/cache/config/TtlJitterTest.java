@@ -0,0 +1,39 @@
+package ge.imikhailov.omno.cache.config;
+
+import ge.imikhailov.omno.cache.multilevel.CachedEntry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TtlJitterTest {
+
+    @Test
+    void jitterOnlyShortensTtlWithinFraction() {
+        Duration ttl = Duration.ofMinutes(10);
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+        for (int i = 0; i < 1_000; i++) {
+            long nanos = TtlJitter.jitteredNanos(ttl, 0.1);
+            min = Math.min(min, nanos);
+            max = Math.max(max, nanos);
+        }
+        assertThat(max).isLessThanOrEqualTo(ttl.toNanos());
+        assertThat(min).isGreaterThanOrEqualTo((long) (ttl.toNanos() * 0.9));
+        assertThat(max - min).isGreaterThan(0);
+    }
+
+    @Test
+    void zeroFractionKeepsConfiguredTtl() {
+        assertThat(TtlJitter.jitteredNanos(Duration.ofSeconds(5), 0.0)).isEqualTo(Duration.ofSeconds(5).toNanos());
+        assertThat(TtlJitter.redisTtl(Duration.ofSeconds(5), 0.0).getTimeToLive("k", "v")).isEqualTo(Duration.ofSeconds(5));
+    }
+
+    @Test
+    void tombstonesUseNegativeTtl() {
+        var ttl = TtlJitter.redisTtl(Duration.ofHours(1), 0.1, Duration.ofSeconds(30));
+        assertThat(ttl.getTimeToLive("k", CachedEntry.tombstone(0L))).isEqualTo(Duration.ofSeconds(30));
+        assertThat(ttl.getTimeToLive("k", new CachedEntry("v", 0L))).isGreaterThan(Duration.ofSeconds(30));
+    }
+}
@@ -0,0 +1,76 @@
+package ge.imikhailov.omno.cache.multilevel;
+
+import ge.imikhailov.omno.cache.multilevel.RefreshExecutor.Priority;
+import ge.imikhailov.omno.metrics.CacheMetricsFactory;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BoundedRefreshExecutorTest {
+
+    @Test
+    void boundsConcurrency_andRunsForegroundBeforeBackground() throws Exception {
+        var registry = new SimpleMeterRegistry();
+        var executor = new BoundedRefreshExecutor("test", 1, 10, new CacheMetricsFactory(registry));
+        var release = new CountDownLatch(1);
+        var done = new CountDownLatch(4);
+        var running = new AtomicInteger();
+        var maxRunning = new AtomicInteger();
+        List<String> order = new CopyOnWriteArrayList<>();
+
+        executor.execute(() -> {
+            await(release);
+            done.countDown();
+        }, Priority.BACKGROUND);
+        for (String name : List.of("bg", "fg1", "fg2")) {
+            executor.execute(() -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                order.add(name);
+                running.decrementAndGet();
+                done.countDown();
+            }, name.startsWith("fg") ? Priority.FOREGROUND : Priority.BACKGROUND);
+        }
+
+        assertThat(registry.get("omno.cache.refresh.queue.depth").tag("priority", "foreground").gauge().value()).isEqualTo(2.0);
+        release.countDown();
+        assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(order).containsExactly("fg1", "fg2", "bg");
+        assertThat(maxRunning.get()).isEqualTo(1);
+        assertThat(registry.get("omno.cache.refresh.queue.wait").tag("priority", "foreground").timer().count()).isEqualTo(2);
+    }
+
+    @Test
+    void rejectsWhenQueueForPriorityIsFull() {
+        var registry = new SimpleMeterRegistry();
+        var executor = new BoundedRefreshExecutor("test", 1, 1, new CacheMetricsFactory(registry));
+        var release = new CountDownLatch(1);
+        executor.execute(() -> await(release), Priority.BACKGROUND);
+        executor.execute(() -> { }, Priority.BACKGROUND);
+
+        assertThatThrownBy(() -> executor.execute(() -> { }, Priority.BACKGROUND))
+                .isInstanceOf(RejectedExecutionException.class);
+        // foreground has its own queue
+        executor.execute(() -> { }, Priority.FOREGROUND);
+        assertThat(registry.get("omno.cache.refresh.rejected").tag("priority", "background").counter().count()).isEqualTo(1.0);
+        release.countDown();
+        executor.close();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package ge.imikhailov.omno.cache.multilevel;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class EwmaTest {
+
+    @Test
+    void startsAtTheFirstSample_andFollowsRecentOnes() {
+        var ewma = new Ewma(0.5);
+        assertThat(ewma.nanos()).isNegative();
+
+        ewma.record(100L);
+        assertThat(ewma.nanos()).isEqualTo(100.0);
+        ewma.record(200L);
+        assertThat(ewma.nanos()).isCloseTo(150.0, within(1e-9));
+
+        // Older samples fade out instead of being averaged over the whole lifetime
+        for (int i = 0; i < 50; i++) ewma.record(1_000L);
+        assertThat(ewma.nanos()).isCloseTo(1_000.0, within(1e-6));
+    }
+}
@@ -0,0 +1,46 @@
+package ge.imikhailov.omno.cache.multilevel;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class L2RouterTest {
+
+    @Test
+    void noBypass_untilBothLatenciesAreKnown_orWhileL2IsFaster() {
+        var router = new L2Router(new L2BypassPolicy(1.0, 0.9));
+        router.recordL2(30_000_000L);
+        assertThat(router.bypassRatio()).isZero();
+
+        router.recordLoad(40_000_000L);
+        assertThat(router.bypassRatio()).isZero();
+        assertThat(router.shouldBypass()).isFalse();
+    }
+
+    @Test
+    void bypassGrowsWithL2Slowdown_isCapped_andRecovers() {
+        var router = new L2Router(new L2BypassPolicy(1.0, 0.9));
+        router.recordLoad(10_000_000L);
+
+        router.recordL2(20_000_000L);
+        assertThat(router.bypassRatio()).isCloseTo(0.5, within(1e-9));
+
+        router.recordL2(1_000_000_000L);
+        assertThat(router.bypassRatio()).isEqualTo(0.9);
+
+        router.recordL2(1_000_000L);
+        assertThat(router.bypassRatio()).isZero();
+    }
+
+    @Test
+    void ewma_smoothsSingleSpikes() {
+        var router = new L2Router(new L2BypassPolicy(0.1, 0.9));
+        router.recordLoad(10_000_000L);
+        router.recordL2(1_000_000L);
+
+        // One 100ms outlier moves the average to ~10.9ms: barely slower than the database
+        router.recordL2(100_000_000L);
+        assertThat(router.bypassRatio()).isLessThan(0.1);
+    }
+}
@@ -7,6 +7,8 @@ import org.springframework.cache.Cache;
 import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
 
 import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.when;
@@ -29,6 +31,7 @@ class MultiLevelCacheManagerTest {
 
         Cache cache = mgr.getCache("price");
         assertThat(cache).isInstanceOf(MultiLevelCache.class);
+        assertThat(mgr.getCache("price")).isSameAs(cache);
     }
 
     @Test
@@ -52,6 +55,28 @@ class MultiLevelCacheManagerTest {
         assertThat(mgr.getCacheNames()).contains("price");
     }
 
+    @Test
+    void appliesPerCacheOptions() throws Exception {
+        ConcurrentMapCacheManager l1 = new ConcurrentMapCacheManager();
+        ConcurrentMapCacheManager l2 = new ConcurrentMapCacheManager();
+        AtomicInteger skuLoads = new AtomicInteger();
+        MultiLevelCacheOptions defaults = MultiLevelCacheOptions.withSoftTtl(Duration.ofSeconds(5));
+        MultiLevelCacheOptions sku = defaults.toBuilder()
+                .refreshExecutor((task, priority) -> {
+                    skuLoads.incrementAndGet();
+                    task.run();
+                })
+                .build();
+
+        MultiLevelCacheManager mgr = new MultiLevelCacheManager(l1, null, l2, null, defaults, Map.of("sku", sku),
+                new CacheMetricsFactory(meterRegistry()));
+
+        assertThat(mgr.getCache("price").get("k", () -> "p")).isEqualTo("p");
+        assertThat(skuLoads).hasValue(0);
+        assertThat(mgr.getCache("sku").get("k", () -> "s")).isEqualTo("s");
+        assertThat(skuLoads).hasValue(1);
+    }
+
     private io.micrometer.core.instrument.simple.SimpleMeterRegistry meterRegistry() {
         return new io.micrometer.core.instrument.simple.SimpleMeterRegistry();
     }
@@ -1,22 +1,37 @@
 package ge.imikhailov.omno.cache.multilevel;
 
+import ge.imikhailov.omno.cache.circuitbreaker.CircuitBreakerRedisCache;
 import ge.imikhailov.omno.cache.pubsub.CacheInvalidationPublisher;
+import ge.imikhailov.omno.dto.PriceDto;
 import ge.imikhailov.omno.metrics.CacheMetricsFactory;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
 import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 import org.springframework.cache.concurrent.ConcurrentMapCache;
 
+import java.math.BigDecimal;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 
 class MultiLevelCacheTest {
 
+    private static final MultiLevelCacheOptions VERSIONED_PRICES = MultiLevelCacheOptions.withSoftTtl(Duration.ofSeconds(5)).toBuilder()
+            .version(v -> v instanceof PriceDto p && p.version() != null ? p.version() : 0L)
+            .build();
+
     @Test
     void l2Miss_triggersAsyncRefresh_andPopulatesBothLevels_singleFlight() throws Exception {
         var l1 = new ConcurrentMapCache("price-l1");
@@ -67,16 +82,692 @@ class MultiLevelCacheTest {
                 "price",
                 l1,
                 l2,
-                Duration.ofSeconds(5),
+                VERSIONED_PRICES,
                 publisher,
                 new CacheMetricsFactory(new SimpleMeterRegistry())
         );
 
+        cache.put("k1", new PriceDto(1L, BigDecimal.ONE, BigDecimal.ONE, List.of(), 7L));
+        verify(publisher).publishUpdate("price", "k1", 7L);
+        // Unversioned values cannot be ordered across hosts: peers evict
         cache.put("k2", "v2");
-        cache.evict("k2");
         verify(publisher).publishEvict("price", "k2");
+        cache.evict("k2");
+        verify(publisher, Mockito.times(2)).publishEvict("price", "k2");
 
         cache.clear();
         verify(publisher).publishClear("price");
     }
+
+    @Test
+    void getAll_servesCachedKeys_andLoadsRestInOneCall() {
+        var l1 = new ConcurrentMapCache("price-l1");
+        var l2 = new ConcurrentMapCache("price-l2");
+        var cache = new MultiLevelCache(
+                "price",
+                l1,
+                l2,
+                Duration.ofSeconds(5),
+                null,
+                new CacheMetricsFactory(new SimpleMeterRegistry())
+        );
+        cache.put("a", "va");
+        l1.evict("a"); // only in L2 now
+        l1.put("b", new CachedEntry("vb", System.currentTimeMillis()));
+
+        final List<Set<String>> calls = new CopyOnWriteArrayList<>();
+        Map<String, String> result = cache.getAll(List.of("c", "a", "b", "missing"), keys -> {
+            calls.add(Set.copyOf(keys));
+            Map<String, String> loaded = new HashMap<>();
+            if (keys.contains("c")) loaded.put("c", "vc");
+            return loaded;
+        });
+
+        assertThat(result).containsExactly(Map.entry("c", "vc"), Map.entry("a", "va"), Map.entry("b", "vb"));
+        assertThat(calls).containsExactly(Set.of("c", "missing"));
+        // L2 hit backfilled L1, loaded value written to both levels, absent key not cached
+        assertThat(l1.get("a")).isNotNull();
+        assertThat(l1.get("c")).isNotNull();
+        assertThat(l2.get("c")).isNotNull();
+        assertThat(l2.get("missing")).isNull();
+    }
+
+    @Test
+    void missingKey_isTombstoned_andServedWithoutReloading() {
+        var l1 = new ConcurrentMapCache("price-l1");
+        var l2 = new ConcurrentMapCache("price-l2");
+        var options = MultiLevelCacheOptions.withSoftTtl(Duration.ofSeconds(5)).toBuilder()
+                .negativeCaching(new NegativeCaching(Duration.ofSeconds(30), IllegalStateException.class,
+                        key -> new IllegalStateException("absent " + key)))
+                .build();
+        var cache = new MultiLevelCache("price", l1, l2, options, null, new CacheMetricsFactory(new SimpleMeterRegistry()));
+
+        final AtomicInteger calls = new AtomicInteger();
+        Callable<String> loader = () -> {
+            calls.incrementAndGet();
+            throw new IllegalStateException("not found");
+        };
+
+        assertThatThrownBy(() -> cache.get("k", loader)).isInstanceOf(IllegalStateException.class).hasMessage("not found");
+        assertThat(((CachedEntry) l2.get("k").get()).isAbsent()).isTrue();
+
+        assertThatThrownBy(() -> cache.get("k", loader)).isInstanceOf(IllegalStateException.class).hasMessage("absent k");
+        assertThat(cache.get("k")).isNull();
+        assertThat(calls.get()).isEqualTo(1);
+
+        // Only L2 holds the tombstone: it is still honoured and backfilled into L1
+        l1.clear();
+        assertThat(cache.getAll(List.of("k"), keys -> Map.of("k", "v"))).isEmpty();
+        assertThat(l1.get("k")).isNotNull();
+
+        // Eviction (e.g. after the product is created) lets the next read load again
+        cache.evict("k");
+        assertThatThrownBy(() -> cache.get("k", loader)).isInstanceOf(IllegalStateException.class).hasMessage("not found");
+        assertThat(calls.get()).isEqualTo(2);
+    }
+
+    @Test
+    void offHeapTier_servesL1Misses_andIsReportedAsOwnLevel() throws Exception {
+        var registry = new SimpleMeterRegistry();
+        var l1 = new ConcurrentMapCache("price-l1");
+        var offHeap = new ConcurrentMapCache("price-offheap");
+        var l2 = new ConcurrentMapCache("price-l2");
+        var cache = new MultiLevelCache("price", l1, offHeap, l2, MultiLevelCacheOptions.withSoftTtl(Duration.ofSeconds(5)),
+                null, new CacheMetricsFactory(registry));
+
+        cache.put("k", "v");
+        assertThat(offHeap.get("k")).isNotNull();
+
+        l1.clear();
+        assertThat(cache.get("k", () -> "loaded")).isEqualTo("v");
+        assertThat(l1.get("k")).isNotNull();
+        assertThat(registry.get("omno.cache.gets").tags("level", "OFFHEAP", "outcome", "hit").counter().count()).isEqualTo(1.0);
+
+        cache.evict("k");
+        assertThat(offHeap.get("k")).isNull();
+    }
+
+    @Test
+    void loadThatLosesAgainstNewerWrite_isDiscarded() {
+        var registry = new SimpleMeterRegistry();
+        var l1 = new ConcurrentMapCache("price-l1");
+        var l2 = new ConcurrentMapCache("price-l2");
+        var cache = new MultiLevelCache("price", l1, l2, VERSIONED_PRICES, null, new CacheMetricsFactory(registry));
+        var older = new PriceDto(1L, BigDecimal.ONE, BigDecimal.ONE, List.of(), 1L);
+        var newer = new PriceDto(1L, BigDecimal.TEN, BigDecimal.TEN, List.of(), 2L);
+
+        // The write commits while the (older) load is still running
+        assertThat(cache.get(1L, () -> {
+            cache.put(1L, newer);
+            return older;
+        })).isEqualTo(older);
+
+        assertThat(cache.get(1L).get()).isEqualTo(newer);
+        assertThat(((CachedEntry) l2.get(1L).get()).getValue()).isEqualTo(newer);
+        assertThat(registry.get("omno.cache.writes.discarded").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void distributedSingleFlight_waitsForLeaseHolderInsteadOfLoading() throws Exception {
+        var registry = new SimpleMeterRegistry();
+        var l1 = new ConcurrentMapCache("price-l1");
+        var l2 = new ConcurrentMapCache("price-l2");
+        var lease = new HeldByPeerLease();
+        var options = MultiLevelCacheOptions.withSoftTtl(Duration.ofSeconds(5)).toBuilder()
+                .distributedSingleFlight(new DistributedSingleFlight(lease, Duration.ofSeconds(5), Duration.ofMillis(5)))
+                .build();
+        var cache = new MultiLevelCache("price", l1, l2, options, null, new CacheMetricsFactory(registry));
+        var calls = new AtomicInteger();
+
+        // The peer holding the lease publishes its result to L2 a bit later
+        var peer = CompletableFuture.runAsync(() -> {
+            sleep(50);
+            l2.put("k", new CachedEntry("from-peer", System.currentTimeMillis()));
+        });
+
+        assertThat(cache.get("k", () -> "local-" + calls.incrementAndGet())).isEqualTo("from-peer");
+        peer.get(5, TimeUnit.SECONDS);
+
+        assertThat(calls.get()).isZero();
+        assertThat(l1.get("k")).isNotNull();
+        assertThat(registry.get("omno.cache.lease").tag("outcome", "waited").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void distributedSingleFlight_waitingForPeerDoesNotHoldARefreshPermit() throws Exception {
+        var factory = new CacheMetricsFactory(new SimpleMeterRegistry());
+        var executor = new BoundedRefreshExecutor("lease", 1, 10, factory);
+        var l2 = new ConcurrentMapCache("price-l2");
+        // A peer holds the lease of "a" only
+        var lease = new LoadLease() {
+            @Override
+            public boolean tryAcquire(String cacheName, Object key) {
+                return !"a".equals(key);
+            }
+
+            @Override
+            public void release(String cacheName, Object key) {
+            }
+        };
+        var options = MultiLevelCacheOptions.withSoftTtl(Duration.ofSeconds(5)).toBuilder()
+                .refreshExecutor(executor)
+                .distributedSingleFlight(new DistributedSingleFlight(lease, Duration.ofSeconds(5), Duration.ofMillis(5)))
+                .build();
+        var cache = new MultiLevelCache("price", new ConcurrentMapCache("price-l1"), l2, options, null, factory);
+
+        var waiting = CompletableFuture.supplyAsync(() -> cache.get("a", () -> "local-a"));
+        sleep(50);
+
+        // The only permit is free while "a" waits for its peer
+        var start = System.nanoTime();
+        assertThat(cache.get("b", () -> "b")).isEqualTo("b");
+        assertThat(System.nanoTime() - start).isLessThan(TimeUnit.SECONDS.toNanos(1));
+
+        l2.put("a", new CachedEntry("from-peer", System.currentTimeMillis()));
+        assertThat(waiting.get(5, TimeUnit.SECONDS)).isEqualTo("from-peer");
+        executor.close();
+    }
+
+    @Test
+    void distributedSingleFlight_loadsLocallyWhenHolderNeverDelivers() {
+        var registry = new SimpleMeterRegistry();
+        var lease = new HeldByPeerLease();
+        var options = MultiLevelCacheOptions.withSoftTtl(Duration.ofSeconds(5)).toBuilder()
+                .distributedSingleFlight(new DistributedSingleFlight(lease, Duration.ofMillis(50), Duration.ofMillis(5)))
+                .build();
+        var cache = new MultiLevelCache("price", new ConcurrentMapCache("price-l1"), new ConcurrentMapCache("price-l2"),
+                options, null, new CacheMetricsFactory(registry));
+
+        assertThat(cache.get("k", () -> "local")).isEqualTo("local");
+        assertThat(registry.get("omno.cache.lease").tag("outcome", "fallback").counter().count()).isEqualTo(1.0);
+
+        // Once the peer's lease is gone the next miss takes it and releases it afterwards
+        lease.heldByPeer = false;
+        assertThat(cache.get("k2", () -> "leased")).isEqualTo("leased");
+        assertThat(registry.get("omno.cache.lease").tag("outcome", "acquired").counter().count()).isEqualTo(1.0);
+        assertThat(lease.held).isEmpty();
+    }
+
+    @Test
+    void distributedSingleFlight_skipsTheLeaseWhileL2IsDegraded() {
+        var registry = new SimpleMeterRegistry();
+        var leaseCalls = new AtomicInteger();
+        var lease = new LoadLease() {
+            @Override
+            public boolean tryAcquire(String cacheName, Object key) {
+                leaseCalls.incrementAndGet();
+                throw new IllegalStateException("redis down");
+            }
+
+            @Override
+            public void release(String cacheName, Object key) {
+                leaseCalls.incrementAndGet();
+            }
+        };
+        var options = MultiLevelCacheOptions.withSoftTtl(Duration.ofSeconds(5)).toBuilder()
+                .distributedSingleFlight(new DistributedSingleFlight(lease, Duration.ofSeconds(5), Duration.ofMillis(5)))
+                .build();
+        var l2Down = new AtomicBoolean();
+        var l2 = new ConcurrentMapCache("price-l2") {
+            @Override
+            public ValueWrapper get(Object key) {
+                if (l2Down.get()) throw new IllegalStateException("redis down");
+                return super.get(key);
+            }
+        };
+        var cache = new MultiLevelCache("price", new ConcurrentMapCache("price-l1"), l2,
+                options, null, new CacheMetricsFactory(registry));
+
+        // The failed lease call counts against L2 health like any other Redis error
+        assertThat(cache.get("a", () -> "loaded")).isEqualTo("loaded");
+        assertThat(registry.get("omno.cache.l2.degraded").gauge().value()).isEqualTo(1.0);
+
+        l2Down.set(true);
+        assertThat(cache.get("b", () -> "loaded")).isEqualTo("loaded");
+        assertThat(leaseCalls).hasValue(1);
+        assertThat(registry.get("omno.cache.lease").tag("outcome", "fallback").counter().count()).isEqualTo(2.0);
+    }
+
+    @Test
+    void distributedSingleFlight_withWriteBehind_writesL2BeforeReleasingTheLease() throws Exception {
+        var l2 = new ConcurrentMapCache("price-l2");
+        var inL2OnRelease = new CopyOnWriteArrayList<Boolean>();
+        var released = new CountDownLatch(2);
+        var lease = new LoadLease() {
+            @Override
+            public boolean tryAcquire(String cacheName, Object key) {
+                return true;
+            }
+
+            @Override
+            public void release(String cacheName, Object key) {
+                inL2OnRelease.add(l2.get(key) != null);
+                released.countDown();
+            }
+        };
+        var options = MultiLevelCacheOptions.withSoftTtl(Duration.ofSeconds(5)).toBuilder()
+                .writeBehind(new WriteBehindPolicy(16, 16))
+                .negativeCaching(new NegativeCaching(Duration.ofSeconds(30), IllegalStateException.class,
+                        key -> new IllegalStateException("absent " + key)))
+                .distributedSingleFlight(new DistributedSingleFlight(lease, Duration.ofSeconds(5), Duration.ofMillis(5)))
+                .build();
+        var cache = new MultiLevelCache("price", new ConcurrentMapCache("price-l1"), l2, options, null,
+                new CacheMetricsFactory(new SimpleMeterRegistry()));
+
+        assertThat(cache.get("k", () -> "v")).isEqualTo("v");
+        // Peers stop waiting once the lease is gone: the tombstone has to be in L2 by then too
+        assertThatThrownBy(() -> cache.get("missing", () -> {
+            throw new IllegalStateException("not found");
+        })).isInstanceOf(IllegalStateException.class);
+        assertThat(released.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(inL2OnRelease).containsExactly(true, true);
+    }
+
+    @Test
+    void slowL2_isHedgedWithTheDatabaseLoad() throws Exception {
+        var registry = new SimpleMeterRegistry();
+        var l2Answer = new CompletableFuture<Object>();
+        var l2 = new ConcurrentMapCache("price-l2") {
+            @Override
+            public CompletableFuture<?> retrieve(Object key) {
+                return l2Answer;
+            }
+        };
+        var options = MultiLevelCacheOptions.withSoftTtl(Duration.ofSeconds(5)).toBuilder()
+                .hedge(new HedgePolicy(0.95, Duration.ofMillis(1), Duration.ofMillis(20)))
+                .build();
+        var cache = new MultiLevelCache("price", new ConcurrentMapCache("price-l1"), l2, options, null, new CacheMetricsFactory(registry));
+
+        // L2 never answers in time: the database result is used instead of waiting for the client timeout
+        assertThat(cache.get("k", () -> "from-db")).isEqualTo("from-db");
+        l2Answer.complete(null);
+
+        assertThat(registry.get("omno.cache.l2.hedges").counter().count()).isEqualTo(1.0);
+        assertThat(registry.get("omno.cache.l2.hedge.wins").tag("winner", "db").counter().count()).isEqualTo(1.0);
+        assertThat(cache.get("k").get()).isEqualTo("from-db");
+    }
+
+    @Test
+    void l2MissOrFailureAfterTheHedge_isNotCountedAsADatabaseWin() {
+        var registry = new SimpleMeterRegistry();
+        var answers = new ConcurrentHashMap<Object, CompletableFuture<Object>>();
+        var l2 = new ConcurrentMapCache("price-l2") {
+            @Override
+            public CompletableFuture<?> retrieve(Object key) {
+                return answers.get(key);
+            }
+        };
+        var options = MultiLevelCacheOptions.withSoftTtl(Duration.ofSeconds(5)).toBuilder()
+                .hedge(new HedgePolicy(0.95, Duration.ofMillis(1), Duration.ofMillis(5)))
+                .build();
+        var cache = new MultiLevelCache("price", new ConcurrentMapCache("price-l1"), l2, options, null, new CacheMetricsFactory(registry));
+
+        // L2 answers after the hedge started but before the (slower) load finishes
+        answers.put("missing", CompletableFuture.supplyAsync(() -> null, CompletableFuture.delayedExecutor(20, TimeUnit.MILLISECONDS)));
+        assertThat(cache.get("missing", () -> {
+            TimeUnit.MILLISECONDS.sleep(200);
+            return "from-db";
+        })).isEqualTo("from-db");
+        answers.put("failing", CompletableFuture.supplyAsync(() -> {
+            throw new IllegalStateException("redis down");
+        }, CompletableFuture.delayedExecutor(20, TimeUnit.MILLISECONDS)));
+        assertThat(cache.get("failing", () -> {
+            TimeUnit.MILLISECONDS.sleep(200);
+            return "from-db";
+        })).isEqualTo("from-db");
+
+        assertThat(registry.get("omno.cache.l2.hedges").counter().count()).isEqualTo(2.0);
+        assertThat(registry.get("omno.cache.l2.hedge.wins").tag("winner", "db").counter().count()).isZero();
+        assertThat(registry.get("omno.cache.l2.hedge.fallbacks").tag("cause", "miss").counter().count()).isEqualTo(1.0);
+        assertThat(registry.get("omno.cache.l2.hedge.fallbacks").tag("cause", "error").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void fastL2_isNotHedged() {
+        var registry = new SimpleMeterRegistry();
+        var l2 = new ConcurrentMapCache("price-l2");
+        l2.put("k", new CachedEntry("from-l2", System.currentTimeMillis()));
+        var options = MultiLevelCacheOptions.withSoftTtl(Duration.ofSeconds(5)).toBuilder()
+                .hedge(new HedgePolicy(0.95, Duration.ofMillis(1), Duration.ofMillis(500)))
+                .build();
+        var cache = new MultiLevelCache("price", new ConcurrentMapCache("price-l1"), l2, options, null, new CacheMetricsFactory(registry));
+
+        assertThat(cache.get("k", () -> "from-db")).isEqualTo("from-l2");
+        assertThat(registry.get("omno.cache.l2.hedges").counter().count()).isZero();
+    }
+
+    @Test
+    void openBreaker_degradesToL1AndLoader_andRecovers() {
+        var registry = new SimpleMeterRegistry();
+        var breaker = CircuitBreaker.ofDefaults("cacheL2");
+        var l2 = new CircuitBreakerRedisCache(new ConcurrentMapCache("price-l2"), breaker);
+        var cache = new MultiLevelCache("price", new ConcurrentMapCache("price-l1"), l2, Duration.ofSeconds(5), null,
+                new CacheMetricsFactory(registry));
+
+        breaker.transitionToForcedOpenState();
+        assertThat(cache.get("k", () -> "from-db")).isEqualTo("from-db");
+        assertThat(cache.get("k").get()).isEqualTo("from-db");
+        assertThat(registry.get("omno.cache.l2.degraded").gauge().value()).isEqualTo(1.0);
+        assertThat(registry.get("omno.cache.l2.errors").counter().count()).isPositive();
+
+        breaker.transitionToClosedState();
+        assertThat(cache.get("other", () -> "v")).isEqualTo("v");
+        assertThat(registry.get("omno.cache.l2.degraded").gauge().value()).isZero();
+        assertThat(registry.get("omno.cache.l2.degraded.time").functionCounter().count()).isPositive();
+    }
+
+    @Test
+    void degradedMode_servesStaleL1WhileRefreshingOnce() throws Exception {
+        var l1 = new ConcurrentMapCache("price-l1");
+        var failingL2 = new ConcurrentMapCache("price-l2") {
+            @Override
+            public ValueWrapper get(Object key) {
+                throw new IllegalStateException("redis down");
+            }
+
+            @Override
+            public void put(Object key, Object value) {
+                throw new IllegalStateException("redis down");
+            }
+        };
+        var cache = new MultiLevelCache("price", l1, failingL2, Duration.ofMillis(1), null,
+                new CacheMetricsFactory(new SimpleMeterRegistry()));
+        l1.put("k", new CachedEntry("stale", System.currentTimeMillis() - 1_000));
+        cache.get("warm-up", () -> "x"); // first L2 failure switches to degraded mode
+
+        var refreshed = new CountDownLatch(1);
+        assertThat(cache.get("k", () -> {
+            refreshed.countDown();
+            return "fresh";
+        })).isEqualTo("stale");
+        assertThat(refreshed.await(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    void degradedMode_skipsL2Fills_andRunsEvictionsAsBackgroundTasks() {
+        var registry = new SimpleMeterRegistry();
+        var breaker = CircuitBreaker.ofDefaults("cacheL2");
+        var l2 = new CircuitBreakerRedisCache(new ConcurrentMapCache("price-l2"), breaker);
+        var priorities = new ArrayList<RefreshExecutor.Priority>();
+        RefreshExecutor executor = (task, priority) -> {
+            priorities.add(priority);
+            task.run();
+        };
+        var options = MultiLevelCacheOptions.withSoftTtl(Duration.ofSeconds(5)).toBuilder()
+                .refreshExecutor(executor)
+                .build();
+        var cache = new MultiLevelCache("price", new ConcurrentMapCache("price-l1"), l2, options, null,
+                new CacheMetricsFactory(registry));
+
+        breaker.transitionToForcedOpenState();
+        assertThat(cache.get("k", () -> "from-db")).isEqualTo("from-db");
+        assertThat(registry.get("omno.cache.l2.degraded.skipped").counter().count()).isEqualTo(1.0);
+
+        priorities.clear();
+        cache.evict("k");
+        assertThat(priorities).containsExactly(RefreshExecutor.Priority.BACKGROUND);
+    }
+
+    @Test
+    void writeBehind_completesLoadBeforeL2Write_andDropsWhenFull() throws Exception {
+        var registry = new SimpleMeterRegistry();
+        var flushing = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        var l2 = new ConcurrentMapCache("price-l2") {
+            @Override
+            public void put(Object key, Object value) {
+                flushing.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                super.put(key, value);
+            }
+        };
+        var options = MultiLevelCacheOptions.withSoftTtl(Duration.ofSeconds(5)).toBuilder()
+                .writeBehind(new WriteBehindPolicy(1, 1))
+                .build();
+        var cache = new MultiLevelCache("price", new ConcurrentMapCache("price-l1"), l2, options, null, new CacheMetricsFactory(registry));
+
+        // The load returns while its L2 write is still blocked in the worker
+        assertThat(cache.get("k1", () -> "v1")).isEqualTo("v1");
+        assertThat(flushing.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(l2.get("k1")).isNull();
+
+        assertThat(cache.get("k2", () -> "v2")).isEqualTo("v2"); // queued
+        assertThat(cache.get("k3", () -> "v3")).isEqualTo("v3"); // buffer full: dropped
+        assertThat(registry.get("omno.cache.l2.writebehind.dropped").counter().count()).isEqualTo(1.0);
+
+        release.countDown();
+        var deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (l2.get("k2") == null && System.nanoTime() < deadline) {
+            sleep(5);
+        }
+        assertThat(l2.get("k1")).isNotNull();
+        assertThat(l2.get("k2")).isNotNull();
+        assertThat(l2.get("k3")).isNull();
+        assertThat(cache.get("k3").get()).isEqualTo("v3");
+    }
+
+    @Test
+    void close_flushesWriteBehindAndMissBatches_andStopsTheirThreads() {
+        var l2 = new ConcurrentMapCache("price-l2") {
+            @Override
+            public void put(Object key, Object value) {
+                sleep(100);
+                super.put(key, value);
+            }
+        };
+        var options = MultiLevelCacheOptions.withSoftTtl(Duration.ofSeconds(5)).toBuilder()
+                .refreshExecutor((task, priority) -> task.run())
+                .writeBehind(new WriteBehindPolicy(16, 16))
+                .missBatching(new MissBatchingPolicy(Duration.ofMinutes(1), 64))
+                .build();
+        var cache = new MultiLevelCache("closing", new ConcurrentMapCache("price-l1"), l2, options, null,
+                new CacheMetricsFactory(new SimpleMeterRegistry()));
+
+        assertThat(cache.get("k", () -> "v")).isEqualTo("v");
+        // Waits for the one-minute window, unless closing dispatches it
+        var batched = CompletableFuture.supplyAsync(() -> cache.getBatched("b", keys -> Map.of("b", "vb")));
+        sleep(50);
+        cache.close();
+
+        assertThat(l2.get("k")).isNotNull();
+        assertThat(batched.join()).isEqualTo("vb");
+        assertThat(Thread.getAllStackTraces().keySet()).noneMatch(t -> t.getName().endsWith("-closing"));
+    }
+
+    @Test
+    void versionedEvict_makesL2RejectOlderLoads() {
+        var registry = new SimpleMeterRegistry();
+        var l2 = new VersionedMapCache();
+        var cache = new MultiLevelCache("price", new ConcurrentMapCache("price-l1"), l2, VERSIONED_PRICES, null,
+                new CacheMetricsFactory(registry));
+        var older = new PriceDto(1L, BigDecimal.ONE, BigDecimal.ONE, List.of(), 1L);
+        var newer = new PriceDto(1L, BigDecimal.TEN, BigDecimal.TEN, List.of(), 2L);
+
+        // The load read version 1 before the write that evicts for version 2 committed
+        assertThat(cache.get(1L, () -> {
+            cache.evict(1L, 2L);
+            return older;
+        })).isEqualTo(older);
+
+        assertThat(l2.get(1L)).isNull();
+        assertThat(cache.get(1L)).isNull();
+        assertThat(registry.get("omno.cache.writes.discarded").counter().count()).isEqualTo(1.0);
+
+        assertThat(cache.get(1L, () -> newer)).isEqualTo(newer);
+        assertThat(((CachedEntry) l2.get(1L).get()).getValue()).isEqualTo(newer);
+    }
+
+    // In-memory stand-in for the Redis compare-and-set with its version sidecar
+    private static final class VersionedMapCache extends ConcurrentMapCache implements VersionedCache {
+        final Map<Object, Long> versions = new ConcurrentHashMap<>();
+
+        VersionedMapCache() {
+            super("price-l2");
+        }
+
+        @Override
+        public synchronized boolean putIfNewer(Object key, CachedEntry entry) {
+            if (entry.getVersion() < versions.getOrDefault(key, 0L)) return false;
+            versions.put(key, entry.getVersion());
+            put(key, entry);
+            return true;
+        }
+
+        @Override
+        public synchronized void evictVersion(Object key, long version) {
+            evict(key);
+            versions.merge(key, version, Math::max);
+        }
+    }
+
+    @Test
+    void xfetch_estimatesRecomputeTimeFromSingleKeyLoadsOnly() throws Exception {
+        // A beta this large makes any measured recompute time refresh fresh entries right away
+        var options = MultiLevelCacheOptions.builder().refreshPolicy(RefreshPolicy.xfetch(Duration.ofSeconds(10), 1e7)).build();
+        var cache = new MultiLevelCache("price", new ConcurrentMapCache("price-l1"), new ConcurrentMapCache("price-l2"),
+                options, null, new CacheMetricsFactory(new SimpleMeterRegistry()));
+        cache.getAll(List.of("a", "b"), keys -> {
+            sleep(50);
+            return Map.of("a", "va", "b", "vb");
+        });
+
+        var refreshes = new AtomicInteger();
+        assertThat(cache.get("a", () -> "refreshed-" + refreshes.incrementAndGet())).isEqualTo("va");
+        assertThat(refreshes).hasValue(0);
+
+        cache.get("slow", () -> {
+            TimeUnit.MILLISECONDS.sleep(50);
+            return "v";
+        });
+        var refreshed = new CountDownLatch(1);
+        assertThat(cache.get("b", () -> {
+            refreshed.countDown();
+            return "fresh";
+        })).isEqualTo("vb");
+        assertThat(refreshed.await(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    private static final class HeldByPeerLease implements LoadLease {
+        volatile boolean heldByPeer = true;
+        final Set<Object> held = ConcurrentHashMap.newKeySet();
+
+        @Override
+        public boolean tryAcquire(String cacheName, Object key) {
+            return !heldByPeer && held.add(key);
+        }
+
+        @Override
+        public void release(String cacheName, Object key) {
+            held.remove(key);
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            TimeUnit.MILLISECONDS.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Test
+    void reportsL1EntriesAndEstimatedBytes() {
+        var registry = new SimpleMeterRegistry();
+        var l1 = new org.springframework.cache.caffeine.CaffeineCache("price", com.github.benmanes.caffeine.cache.Caffeine.newBuilder()
+                .maximumWeight(1_000_000)
+                .weigher(ge.imikhailov.omno.cache.config.L1Weigher.INSTANCE)
+                .executor(Runnable::run)
+                .build());
+        var cache = new MultiLevelCache("price", l1, new ConcurrentMapCache("price-l2"), Duration.ofMinutes(1), null,
+                new CacheMetricsFactory(registry));
+
+        cache.put(1L, new PriceDto(1L, new BigDecimal("10.00"), new BigDecimal("9.00"), List.of()));
+        cache.put(2L, new PriceDto(2L, new BigDecimal("20.00"), new BigDecimal("18.00"), List.of()));
+
+        assertThat(registry.get("omno.cache.l1.entries").tag("cache", "price").gauge().value()).isEqualTo(2.0d);
+        assertThat(registry.get("omno.cache.l1.weight").tag("cache", "price").gauge().value()).isGreaterThan(2 * 100.0d);
+    }
+
+    @Test
+    void bulkLoad_unregistersKeysBeforeWakingWaiters() {
+        var registry = new SimpleMeterRegistry();
+        var pool = Executors.newSingleThreadExecutor();
+        var options = MultiLevelCacheOptions.withSoftTtl(Duration.ofSeconds(5)).toBuilder()
+                .refreshExecutor(RefreshExecutor.of(pool))
+                .build();
+        var cache = new MultiLevelCache("price", new ConcurrentMapCache("price-l1"), new ConcurrentMapCache("price-l2"),
+                options, null, new CacheMetricsFactory(registry));
+
+        try {
+            for (int i = 0; i < 200; i++) {
+                // Nothing is cached for the key, so the next read must start a load of its own
+                var key = "missing-" + i;
+                assertThat(cache.getAll(List.of(key), keys -> Map.<String, String>of())).isEmpty();
+                assertThat(cache.get(key, () -> "loaded")).isEqualTo("loaded");
+            }
+            assertThat(registry.get("omno.cache.inflight").gauge().value()).isZero();
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void missBatching_loadsConcurrentMissesWithOneBulkCall() throws Exception {
+        var registry = new SimpleMeterRegistry();
+        var options = MultiLevelCacheOptions.builder()
+                .refreshPolicy(RefreshPolicy.fixed(Duration.ofSeconds(5)))
+                .missBatching(new MissBatchingPolicy(Duration.ofMillis(200), 3))
+                .build();
+        var cache = new MultiLevelCache("price", new ConcurrentMapCache("price-l1"), new ConcurrentMapCache("price-l2"),
+                options, null, new CacheMetricsFactory(registry));
+        final List<Set<String>> calls = new CopyOnWriteArrayList<>();
+        java.util.function.Function<Set<String>, Map<String, String>> bulkLoader = keys -> {
+            calls.add(Set.copyOf(keys));
+            Map<String, String> loaded = new HashMap<>();
+            keys.stream().filter(k -> !k.equals("missing")).forEach(k -> loaded.put(k, "v" + k));
+            return loaded;
+        };
+
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        Future<String> a = pool.submit(() -> cache.getBatched("a", bulkLoader));
+        Future<String> missing = pool.submit(() -> cache.getBatched("missing", bulkLoader));
+        assertThat(a.get(5, TimeUnit.SECONDS)).isEqualTo("va");
+        assertThat(missing.get(5, TimeUnit.SECONDS)).isNull();
+        pool.shutdownNow();
+        assertThat(calls).containsExactly(Set.of("a", "missing"));
+        assertThat(cache.getBatched("a", bulkLoader)).isEqualTo("va");
+
+        // An explicit getAll loads its own keys at once and is not a batch
+        long start = System.nanoTime();
+        assertThat(cache.getAll(List.of("x", "y"), bulkLoader)).hasSize(2);
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isLessThan(150);
+        assertThat(calls).hasSize(2);
+
+        // A full batch does not wait for the window
+        ExecutorService fullBatch = Executors.newFixedThreadPool(3);
+        try {
+            start = System.nanoTime();
+            var full = new ArrayList<Future<String>>();
+            for (String key : List.of("p", "q", "r")) {
+                full.add(fullBatch.submit(() -> cache.getBatched(key, bulkLoader)));
+            }
+            for (Future<String> f : full) {
+                assertThat(f.get(5, TimeUnit.SECONDS)).startsWith("v");
+            }
+            assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isLessThan(150);
+        } finally {
+            fullBatch.shutdownNow();
+        }
+        assertThat(calls).hasSize(3);
+
+        var size = registry.get("omno.cache.loader.batch.size").tag("cache", "price").summary();
+        assertThat(size.count()).isEqualTo(2);
+        assertThat(size.totalAmount()).isEqualTo(5.0d);
+        assertThat(registry.get("omno.cache.loader.batch.wait").tag("cache", "price").timer().max(TimeUnit.MILLISECONDS))
+                .isGreaterThanOrEqualTo(150.0d);
+    }
 }
@@ -0,0 +1,39 @@
+package ge.imikhailov.omno.cache.multilevel;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RefreshPolicyTest {
+
+    @Test
+    void fixed_isStaleExactlyAtSoftTtl() {
+        RefreshPolicy policy = RefreshPolicy.fixed(Duration.ofSeconds(10));
+        assertThat(policy.isStale(9_999, 50)).isFalse();
+        assertThat(policy.isStale(10_000, 50)).isTrue();
+        assertThat(RefreshPolicy.fixed(Duration.ZERO).isStale(Long.MAX_VALUE, 0)).isFalse();
+    }
+
+    @Test
+    void xfetch_withoutRecomputeTime_behavesLikeFixed() {
+        RefreshPolicy policy = RefreshPolicy.xfetch(Duration.ofSeconds(10), 1.0);
+        assertThat(policy.isStale(9_999, 0)).isFalse();
+        assertThat(policy.isStale(10_000, 0)).isTrue();
+    }
+
+    @Test
+    void xfetch_refreshProbabilityRisesWithAge() {
+        RefreshPolicy policy = RefreshPolicy.xfetch(Duration.ofSeconds(10), 1.0);
+        int young = 0;
+        int old = 0;
+        for (int i = 0; i < 10_000; i++) {
+            if (policy.isStale(1_000, 1_000)) young++;
+            if (policy.isStale(9_000, 1_000)) old++;
+        }
+        // P(stale) = exp(-(ttl - age) / recompute): ~0.0001 at 1s, ~0.37 at 9s
+        assertThat(young).isLessThan(50);
+        assertThat(old).isBetween(3_000, 4_400);
+    }
+}
@@ -0,0 +1,70 @@
+package ge.imikhailov.omno.cache.offheap;
+
+import ge.imikhailov.omno.cache.multilevel.CachedEntry;
+import ge.imikhailov.omno.cache.redis.PriceEntryRedisSerializer;
+import ge.imikhailov.omno.dto.PriceDto;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OffHeapCacheTest {
+
+    private static CachedEntry entry(long id) {
+        return new CachedEntry(new PriceDto(id, new BigDecimal("10.00"), new BigDecimal("9.00"), List.of()), 1L);
+    }
+
+    private static OffHeapCache cache(long capacity, Duration ttl) {
+        return new OffHeapCache("price", new PriceEntryRedisSerializer(RedisSerializer.json()), capacity, 1, ttl);
+    }
+
+    @Test
+    void storesAndEvictsSerializedEntries() {
+        OffHeapCache cache = cache(4096, Duration.ofMinutes(1));
+        cache.put(1L, entry(1));
+        cache.put(2L, entry(2));
+
+        assertThat(cache.get(1L).get()).isEqualTo(entry(1));
+        cache.put(1L, entry(11));
+        assertThat(cache.get(1L).get()).isEqualTo(entry(11));
+
+        cache.evict(1L);
+        assertThat(cache.get(1L)).isNull();
+        assertThat(cache.get(2L)).isNotNull();
+
+        cache.clear();
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    void wrapsAroundEvictingOldestEntries() {
+        int entrySize = new PriceEntryRedisSerializer(RedisSerializer.json()).serialize(entry(1000)).length;
+        OffHeapCache cache = cache(entrySize * 10L, Duration.ofMinutes(1));
+
+        for (long id = 1000; id < 1100; id++) {
+            cache.put(id, entry(id));
+        }
+
+        assertThat(cache.size()).isBetween(1L, 10L);
+        assertThat(cache.get(1099L).get()).isEqualTo(entry(1099));
+        assertThat(cache.get(1000L)).isNull();
+        // Whatever survived still decodes to its own value
+        for (long id = 1000; id < 1100; id++) {
+            var v = cache.get(id);
+            if (v != null) {
+                assertThat(v.get()).isEqualTo(entry(id));
+            }
+        }
+    }
+
+    @Test
+    void expiresAfterTtl() {
+        OffHeapCache cache = cache(4096, Duration.ZERO);
+        cache.put(1L, entry(1));
+        assertThat(cache.get(1L)).isNull();
+    }
+}
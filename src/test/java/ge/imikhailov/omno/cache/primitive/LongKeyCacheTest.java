@@ -0,0 +1,99 @@
+package ge.imikhailov.omno.cache.primitive;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LongKeyCacheTest {
+
+    @Test
+    void storesEvictsAndClears() {
+        LongKeyCache cache = new LongKeyCache("price", 100, Duration.ofMinutes(1));
+        cache.put(1L, "one");
+        cache.put(2L, null);
+
+        assertThat(cache.get(1L).get()).isEqualTo("one");
+        assertThat(cache.get(1, String.class)).isEqualTo("one");
+        assertThat(cache.get(2L)).isNotNull();
+        assertThat(cache.get(2L).get()).isNull();
+        assertThat(cache.putIfAbsent(1L, "uno").get()).isEqualTo("one");
+
+        cache.evict(1L);
+        assertThat(cache.get(1L)).isNull();
+        assertThat(cache.get(2L)).isNotNull();
+
+        cache.clear();
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    void removalKeepsCollidingKeysReachable() {
+        LongKeyCache cache = new LongKeyCache("price", 1000, Duration.ofMinutes(1));
+        for (long id = 0; id < 1000; id++) {
+            cache.put(id, id);
+        }
+        for (long id = 0; id < 1000; id += 2) {
+            cache.evict(id);
+        }
+
+        assertThat(cache.size()).isEqualTo(500);
+        for (long id = 0; id < 1000; id++) {
+            var v = cache.get(id);
+            if (id % 2 == 0) {
+                assertThat(v).isNull();
+            } else {
+                assertThat(v.get()).isEqualTo(id);
+            }
+        }
+    }
+
+    @Test
+    void evictsLeastFrequentlyUsedEntries() {
+        LongKeyCache cache = new LongKeyCache("price", 100, Duration.ofMinutes(1));
+        for (long id = 0; id < 10; id++) {
+            cache.put(id, id);
+            for (int i = 0; i < 5; i++) {
+                cache.get(id);
+            }
+        }
+        // One-hit wonders stream through without displacing the keys that keep being read
+        for (long id = 1_000; id < 11_000; id++) {
+            cache.put(id, id);
+            if (id % 50 == 0) {
+                for (long hot = 0; hot < 10; hot++) {
+                    cache.get(hot);
+                }
+            }
+        }
+
+        assertThat(cache.size()).isEqualTo(100);
+        for (long id = 0; id < 10; id++) {
+            assertThat(cache.get(id)).as("hot key %d", id).isNotNull();
+        }
+    }
+
+    @Test
+    void entriesExpireAfterTtl() throws InterruptedException {
+        LongKeyCache cache = new LongKeyCache("price", 10, Duration.ofMillis(20));
+        cache.put(1L, "one");
+        Thread.sleep(40);
+
+        assertThat(cache.get(1L)).isNull();
+        assertThat(cache.getNativeCache().putIfAbsent(1L, "uno")).isNull();
+        assertThat(cache.get(1L).get()).isEqualTo("uno");
+    }
+
+    @Test
+    void nonNumericKeysAreNeverPresent() {
+        LongKeyCache cache = new LongKeyCache("price", 10, Duration.ofMinutes(1));
+        cache.put(7L, "seven");
+
+        assertThat(cache.get("7")).isNull();
+        cache.evict("7");
+        assertThat(cache.get(7L)).isNotNull();
+        assertThatThrownBy(() -> cache.put("7", "seven")).isInstanceOf(IllegalArgumentException.class);
+    }
+}
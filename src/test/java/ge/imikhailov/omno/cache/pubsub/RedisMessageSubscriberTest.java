@@ -1,5 +1,6 @@
 package ge.imikhailov.omno.cache.pubsub;
 
+import ge.imikhailov.omno.cache.multilevel.CachedEntry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.cache.Cache;
@@ -41,6 +42,32 @@ class RedisMessageSubscriberTest {
         assertThat(price.get("k1")).isNull();
     }
 
+    @Test
+    void evictsNumericKeyStoredAsLong() {
+        Cache price = cacheManager.getCache("price");
+        price.put(42L, "v1");
+        subscriber.handleMessage("EVICT price 42");
+
+        assertThat(price.get(42L)).isNull();
+    }
+
+    @Test
+    void updateVersion_evictsOnlyOlderLocalVersions() {
+        Cache price = cacheManager.getCache("price");
+        // Write times deliberately disagree with versions: a peer's clock must not matter
+        price.put(1L, new CachedEntry("old", 900L, false, 1L));
+        price.put(2L, new CachedEntry("own write", 100L, false, 2L));
+        price.put(3L, new CachedEntry("unversioned", 900L));
+
+        subscriber.handleMessage("UPDATE price 1 2");
+        subscriber.handleMessage("UPDATE price 2 2");
+        subscriber.handleMessage("UPDATE price 3 2");
+
+        assertThat(price.get(1L)).isNull();
+        assertThat(price.get(2L)).isNotNull();
+        assertThat(price.get(3L)).isNull();
+    }
+
     @Test
     void clearsAllCaches() {
         cacheManager.getCache("price").put("k1", "v1");
@@ -0,0 +1,44 @@
+package ge.imikhailov.omno.cache.redis;
+
+import ge.imikhailov.omno.metrics.CacheMetricsFactory;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.util.zip.Deflater;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CompressingRedisSerializerTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final RedisSerializer<Object> json = RedisSerializer.json();
+    private final CompressingRedisSerializer serializer = new CompressingRedisSerializer(
+            json, 256, Deflater.BEST_SPEED, new CacheMetricsFactory(registry).createCompressionMetrics("price"));
+
+    @Test
+    void compressesLargeValues_andRoundTrips() {
+        String large = "adjustment ".repeat(100);
+        byte[] bytes = serializer.serialize(large);
+
+        assertThat(bytes[0]).isEqualTo(CompressingRedisSerializer.MAGIC);
+        assertThat(bytes.length).isLessThan(json.serialize(large).length);
+        assertThat(serializer.deserialize(bytes)).isEqualTo(large);
+        assertThat(registry.get("omno.cache.l2.compression.writes").tag("outcome", "compressed").counter().count()).isEqualTo(1.0);
+        assertThat(registry.get("omno.cache.l2.compression.ratio").summary().mean()).isGreaterThan(1.0);
+    }
+
+    @Test
+    void smallValuesStayPlain_andPlainEntriesAreReadable() {
+        byte[] bytes = serializer.serialize("small");
+
+        assertThat(bytes).isEqualTo(json.serialize("small"));
+        assertThat(serializer.deserialize(bytes)).isEqualTo("small");
+        assertThat(registry.get("omno.cache.l2.compression.writes").tag("outcome", "below_threshold").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void unknownCodecIsAMiss() {
+        assertThat(serializer.deserialize(new byte[]{CompressingRedisSerializer.MAGIC, 0x7F, 1, 0})).isNull();
+    }
+}
@@ -0,0 +1,95 @@
+package ge.imikhailov.omno.cache.redis;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import ge.imikhailov.omno.cache.multilevel.CachedEntry;
+import ge.imikhailov.omno.dto.AdjustmentDto;
+import ge.imikhailov.omno.dto.PriceDto;
+import ge.imikhailov.omno.enums.AdjustmentMode;
+import ge.imikhailov.omno.enums.AdjustmentType;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PriceEntryRedisSerializerTest {
+
+    private static final CachedEntry ENTRY = new CachedEntry(new PriceDto(
+            42L,
+            new BigDecimal("100.00"),
+            new BigDecimal("-7.50"),
+            List.of(
+                    new AdjustmentDto(new BigDecimal("10.00"), AdjustmentType.PROMO, AdjustmentMode.PERCENT),
+                    new AdjustmentDto(new BigDecimal("2.5"), AdjustmentType.FEE, AdjustmentMode.ABSOLUTE)
+            )), 1_700_000_000_000L);
+
+    private final RedisSerializer<Object> json = RedisSerializer.json();
+    private final PriceEntryRedisSerializer serializer = new PriceEntryRedisSerializer(json);
+
+    @Test
+    void roundTripsPriceEntry_andIsSmallerThanJson() {
+        byte[] bytes = serializer.serialize(ENTRY);
+
+        assertThat(bytes[0]).isEqualTo(PriceEntryRedisSerializer.FORMAT_V1);
+        assertThat(serializer.deserialize(bytes)).isEqualTo(ENTRY);
+        assertThat(bytes.length).isLessThan(json.serialize(ENTRY).length / 4);
+    }
+
+    @Test
+    void carriesProductVersion() {
+        CachedEntry versioned = new CachedEntry(new PriceDto(1L, BigDecimal.ONE, BigDecimal.ONE, List.of(), 7L), 1L, false, 7L);
+
+        CachedEntry decoded = (CachedEntry) serializer.deserialize(serializer.serialize(versioned));
+
+        assertThat(decoded).isEqualTo(versioned);
+        assertThat(decoded.getVersion()).isEqualTo(7L);
+    }
+
+    @Test
+    void roundTripsTombstone() {
+        CachedEntry tombstone = CachedEntry.tombstone(123L);
+        assertThat(serializer.deserialize(serializer.serialize(tombstone))).isEqualTo(tombstone);
+    }
+
+    @Test
+    void readsJsonWrittenByOlderNodes_andFallsBackToJsonForOtherValues() {
+        assertThat(serializer.deserialize(json.serialize(ENTRY))).isEqualTo(ENTRY);
+
+        CachedEntry other = new CachedEntry("plain", 1L);
+        byte[] bytes = serializer.serialize(other);
+        assertThat(bytes[0]).isEqualTo((byte) '{');
+        assertThat(serializer.deserialize(bytes)).isEqualTo(other);
+    }
+
+    @Test
+    void amountsBeyondALong_fallBackToJsonWithThePublicPriceShape() throws Exception {
+        BigDecimal huge = new BigDecimal("100000000000000000000.00");
+        CachedEntry entry = new CachedEntry(new PriceDto(42L, huge, BigDecimal.ONE, List.of(), 3L), 1L, false, 3L);
+
+        byte[] bytes = serializer.serialize(entry);
+
+        assertThat(bytes[0]).isEqualTo((byte) '{');
+        // The price keeps its API fields only; the version travels on the entry
+        JsonNode price = new ObjectMapper().readTree(bytes).get("value");
+        assertThat(price.fieldNames()).toIterable()
+                .containsExactly("@class", "productId", "basePrice", "finalPrice", "adjustments");
+        CachedEntry decoded = (CachedEntry) serializer.deserialize(bytes);
+        assertThat(decoded.getValue()).isEqualTo(new PriceDto(42L, huge, BigDecimal.ONE, List.of()));
+        assertThat(decoded.getVersion()).isEqualTo(3L);
+    }
+
+    @Test
+    void jsonWriterMode_stillReadsBinary() {
+        var jsonWriter = new PriceEntryRedisSerializer(json, false);
+        assertThat(jsonWriter.serialize(ENTRY)[0]).isEqualTo((byte) '{');
+        assertThat(jsonWriter.deserialize(serializer.serialize(ENTRY))).isEqualTo(ENTRY);
+    }
+
+    @Test
+    void unknownVersionIsAMiss() {
+        assertThat(serializer.deserialize(new byte[]{0x7F, 0, 0})).isNull();
+    }
+}
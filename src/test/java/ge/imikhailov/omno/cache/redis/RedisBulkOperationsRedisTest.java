@@ -0,0 +1,148 @@
+package ge.imikhailov.omno.cache.redis;
+
+import ge.imikhailov.omno.cache.multilevel.CachedEntry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.cache.RedisCache;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The versioned-write Lua scripts against a real Redis.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class RedisBulkOperationsRedisTest {
+
+    @Container
+    static GenericContainer<?> redis = new GenericContainer<>(DockerImageName.parse("redis:7-alpine"))
+            .withExposedPorts(6379);
+
+    private static LettuceConnectionFactory connectionFactory;
+    private RedisBulkOperations price;
+
+    @BeforeAll
+    static void connect() {
+        connectionFactory = new LettuceConnectionFactory(new RedisStandaloneConfiguration(redis.getHost(), redis.getMappedPort(6379)));
+        connectionFactory.afterPropertiesSet();
+        connectionFactory.start();
+    }
+
+    @AfterAll
+    static void disconnect() {
+        connectionFactory.destroy();
+    }
+
+    @BeforeEach
+    void setUp() {
+        redis(c -> {
+            c.serverCommands().flushAll();
+            return null;
+        });
+        final RedisCacheConfiguration config = RedisCacheConfiguration.defaultCacheConfig()
+                .prefixCacheNameWith("omno:")
+                .entryTtl(Duration.ofMinutes(5))
+                .serializeKeysWith(RedisSerializationContext.SerializationPair.fromSerializer(new StringRedisSerializer()))
+                .serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(RedisSerializer.json()));
+        final RedisCache cache = (RedisCache) RedisCacheManager.builder(connectionFactory).cacheDefaults(config).build().getCache("price");
+        price = new RedisBulkOperations(cache, connectionFactory);
+    }
+
+    @Test
+    void acceptsNewerVersions_andRejectsOlderOnes() {
+        assertThat(price.putIfNewer(1L, entry("v2", 2L))).isTrue();
+        assertThat(price.putIfNewer(1L, entry("v3", 3L))).isTrue();
+        assertThat(price.putIfNewer(1L, entry("v2", 2L))).isFalse();
+
+        assertThat(value(1L)).isEqualTo("v3");
+        assertThat(sidecar("{omno:price::1}:v")).isEqualTo("3");
+        assertThat(ttlSeconds("{omno:price::1}:v")).isPositive();
+    }
+
+    @Test
+    void versionedEvict_dropsTheValue_andRejectsOlderLoads() {
+        price.putIfNewer(1L, entry("v2", 2L));
+
+        price.evictVersion(1L, 3L);
+
+        assertThat(value(1L)).isNull();
+        assertThat(price.putIfNewer(1L, entry("v2", 2L))).isFalse();
+        assertThat(value(1L)).isNull();
+        assertThat(price.putIfNewer(1L, entry("v3", 3L))).isTrue();
+        assertThat(value(1L)).isEqualTo("v3");
+    }
+
+    @Test
+    void batchReportsDiscardedKeys() {
+        price.putIfNewer(2L, entry("newer", 5L));
+
+        assertThat(price.putAllIfNewer(Map.of(1L, entry("a", 1L), 2L, entry("older", 4L)))).containsExactly(2L);
+        assertThat(value(1L)).isEqualTo("a");
+        assertThat(value(2L)).isEqualTo("newer");
+    }
+
+    @Test
+    void scriptCacheFlush_isRecoveredFromNoScript() {
+        price.putIfNewer(1L, entry("v1", 1L));
+
+        flushScripts();
+        assertThat(price.putIfNewer(1L, entry("v2", 2L))).isTrue();
+        flushScripts();
+        price.evictVersion(1L, 3L);
+        assertThat(value(1L)).isNull();
+        flushScripts();
+        // Pipelined EVALSHAs fail together; the batch is replayed after loading the script
+        assertThat(price.putAllIfNewer(Map.of(1L, entry("old", 2L), 2L, entry("b", 1L)))).containsExactly(1L);
+        assertThat(value(2L)).isEqualTo("b");
+    }
+
+    private static CachedEntry entry(final String value, final long version) {
+        return new CachedEntry(value, System.currentTimeMillis(), false, version);
+    }
+
+    private Object value(final long key) {
+        final Object entry = price.getAll(List.of(key)).get(key);
+        return entry != null ? ((CachedEntry) entry).getValue() : null;
+    }
+
+    private static String sidecar(final String key) {
+        final byte[] raw = redis(c -> c.stringCommands().get(key.getBytes(StandardCharsets.UTF_8)));
+        return raw != null ? new String(raw, StandardCharsets.UTF_8) : null;
+    }
+
+    private static Long ttlSeconds(final String key) {
+        return redis(c -> c.keyCommands().ttl(key.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static void flushScripts() {
+        redis(c -> {
+            c.scriptingCommands().scriptFlush();
+            return null;
+        });
+    }
+
+    private static <T> T redis(final Function<RedisConnection, T> command) {
+        try (RedisConnection connection = connectionFactory.getConnection()) {
+            return command.apply(connection);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package ge.imikhailov.omno.cache.redis;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.ClusterSlotHashUtil;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RedisKeyEncoderTest {
+
+    private static final RedisCacheConfiguration CONFIG = RedisCacheConfiguration.defaultCacheConfig()
+            .serializeKeysWith(RedisSerializationContext.SerializationPair.fromSerializer(new StringRedisSerializer()));
+
+    private static String decode(byte[] key) {
+        return new String(key, StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void encodesLongKeysLikeRedisCache() {
+        RedisKeyEncoder encoder = new RedisKeyEncoder("price", CONFIG.prefixCacheNameWith("omno:"));
+
+        assertThat(decode(encoder.encode(0L))).isEqualTo("omno:price::0");
+        assertThat(decode(encoder.encode(12_345L))).isEqualTo("omno:price::12345");
+        assertThat(decode(encoder.encode(-42L))).isEqualTo("omno:price::-42");
+        assertThat(decode(encoder.encode(Long.MAX_VALUE))).isEqualTo("omno:price::" + Long.MAX_VALUE);
+        assertThat(decode(encoder.encode(Long.MIN_VALUE))).isEqualTo("omno:price::" + Long.MIN_VALUE);
+        assertThat(decode(encoder.encodeVersionKey(7L))).isEqualTo("{omno:price::7}:v");
+        assertThat(decode(encoder.encode("sku-1"))).isEqualTo("omno:price::sku-1");
+    }
+
+    @Test
+    void encodesWithoutPrefix() {
+        RedisKeyEncoder encoder = new RedisKeyEncoder("price", CONFIG.disableKeyPrefix());
+
+        assertThat(decode(encoder.encode(1_000_000L))).isEqualTo("1000000");
+        assertThat(decode(encoder.encodeVersionKey(9L))).isEqualTo("{9}:v");
+    }
+
+    @Test
+    void versionKeySharesTheClusterSlotOfItsValueKey() {
+        RedisKeyEncoder encoder = new RedisKeyEncoder("price", CONFIG.prefixCacheNameWith("omno:"));
+
+        for (Object key : new Object[]{7L, -42L, Long.MIN_VALUE, "sku-1", "{tenant}:sku-1", "a{b"}) {
+            assertThat(ClusterSlotHashUtil.calculateSlot(encoder.encodeVersionKey(key)))
+                    .as("slot of %s", key)
+                    .isEqualTo(ClusterSlotHashUtil.calculateSlot(encoder.encode(key)));
+        }
+        // An existing hash tag is reused rather than nested
+        assertThat(decode(encoder.encodeVersionKey("{tenant}:sku-1"))).isEqualTo("omno:price::{tenant}:sku-1:v");
+    }
+}
@@ -0,0 +1,94 @@
+package ge.imikhailov.omno.cache.snapshot;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import ge.imikhailov.omno.cache.multilevel.CachedEntry;
+import ge.imikhailov.omno.cache.primitive.LongKeyCache;
+import ge.imikhailov.omno.cache.primitive.LongKeyCacheManager;
+import ge.imikhailov.omno.cache.redis.PriceEntryRedisSerializer;
+import ge.imikhailov.omno.dto.PriceDto;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.support.CompositeCacheManager;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class L1SnapshotTest {
+
+    @TempDir
+    Path dir;
+
+    private static CaffeineCacheManager manager() {
+        CaffeineCacheManager manager = new CaffeineCacheManager();
+        manager.setCaffeine(Caffeine.newBuilder().maximumSize(100));
+        return manager;
+    }
+
+    private L1Snapshot snapshot(CacheManager manager) {
+        return new L1Snapshot(manager, new PriceEntryRedisSerializer(RedisSerializer.json()),
+                dir.resolve("l1.snapshot"), 100, name -> Duration.ofMinutes(1), Duration.ZERO);
+    }
+
+    private static CacheManager withLongKeyPrice(CaffeineCacheManager caffeine) {
+        return new CompositeCacheManager(
+                new LongKeyCacheManager(Map.of("price", new LongKeyCache("price", 100, Duration.ofMinutes(10)))), caffeine);
+    }
+
+    @Test
+    void restoresFreshEntries_andDropsOnesPastSoftTtl() throws Exception {
+        long now = System.currentTimeMillis();
+        CachedEntry fresh = new CachedEntry(new PriceDto(1L, BigDecimal.TEN, BigDecimal.ONE, List.of()), now);
+        CachedEntry old = new CachedEntry(new PriceDto(2L, BigDecimal.TEN, BigDecimal.ONE, List.of()), now - 120_000);
+        CaffeineCacheManager before = manager();
+        before.getCache("price").put(1L, fresh);
+        before.getCache("price").put(2L, old);
+        before.getCache("price").put(3L, CachedEntry.tombstone(now));
+        before.getCache("other").put("k", fresh);
+
+        assertThat(snapshot(before).save()).isEqualTo(3);
+
+        CaffeineCacheManager after = manager();
+        assertThat(snapshot(after).restore()).isEqualTo(2);
+        assertThat(after.getCache("price").get(1L).get()).isEqualTo(fresh);
+        assertThat(after.getCache("price").get(2L)).isNull();
+        assertThat(after.getCache("price").get(3L)).isNull();
+        assertThat(after.getCache("other").get("k").get()).isEqualTo(fresh);
+    }
+
+    @Test
+    void includesLongKeyCaches_andUsesEachCachesSoftTtl() throws Exception {
+        long now = System.currentTimeMillis();
+        CachedEntry recent = new CachedEntry(new PriceDto(1L, BigDecimal.TEN, BigDecimal.ONE, List.of()), now - 30_000);
+        CacheManager before = withLongKeyPrice(manager());
+        before.getCache("price").put(1L, recent);
+        before.getCache("other").put("k", recent);
+
+        assertThat(snapshot(before).save()).isEqualTo(2);
+
+        CacheManager after = withLongKeyPrice(manager());
+        L1Snapshot restoring = new L1Snapshot(after, new PriceEntryRedisSerializer(RedisSerializer.json()),
+                dir.resolve("l1.snapshot"), 100, name -> "price".equals(name) ? Duration.ofMinutes(1) : Duration.ofSeconds(10),
+                Duration.ZERO);
+        assertThat(restoring.restore()).isEqualTo(1);
+        assertThat(after.getCache("price")).isInstanceOf(LongKeyCache.class);
+        assertThat(after.getCache("price").get(1L).get()).isEqualTo(recent);
+        assertThat(after.getCache("other").get("k")).isNull();
+    }
+
+    @Test
+    void ignoresMissingOrForeignFile() throws Exception {
+        assertThat(snapshot(manager()).restore()).isZero();
+
+        Files.writeString(dir.resolve("l1.snapshot"), "not a snapshot");
+        assertThat(snapshot(manager()).restore()).isZero();
+    }
+}
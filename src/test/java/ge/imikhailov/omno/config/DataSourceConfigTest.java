@@ -0,0 +1,56 @@
+package ge.imikhailov.omno.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceTransactionManagerAutoConfiguration;
+import org.springframework.boot.autoconfigure.transaction.TransactionAutoConfiguration;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DataSourceConfigTest {
+
+    // Pools connect lazily, so no database is needed to check the wiring
+    private final ApplicationContextRunner runner = new ApplicationContextRunner()
+            .withConfiguration(AutoConfigurations.of(DataSourceAutoConfiguration.class,
+                    DataSourceTransactionManagerAutoConfiguration.class, TransactionAutoConfiguration.class))
+            .withUserConfiguration(DataSourceConfig.class)
+            .withPropertyValues("spring.datasource.url=jdbc:postgresql://primary:5432/pricing",
+                    "spring.datasource.username=app", "spring.datasource.hikari.maximum-pool-size=7");
+
+    @Test
+    void withoutReplica_keepsBootsSinglePool() {
+        runner.run(context -> {
+            assertThat(context).hasSingleBean(DataSource.class);
+            assertThat(context.getBean(DataSource.class)).isInstanceOf(HikariDataSource.class);
+            assertThat(context.getBean(TransactionOperations.class)).isInstanceOf(TransactionTemplate.class);
+            assertThat(context.getBean(DataSourceConfig.READ_ONLY_TRANSACTIONS, TransactionTemplate.class).isReadOnly()).isTrue();
+        });
+    }
+
+    @Test
+    void withReplica_routesThroughLazyProxyOverTwoPools() {
+        runner.withPropertyValues("db.replica.enabled=true", "db.replica.url=jdbc:postgresql://replica:5432/pricing",
+                        "db.replica.hikari.maximum-pool-size=3")
+                .run(context -> {
+                    assertThat(context.getBean(DataSource.class)).isInstanceOf(LazyConnectionDataSourceProxy.class);
+                    HikariDataSource primary = context.getBean("primaryDataSource", HikariDataSource.class);
+                    HikariDataSource replica = context.getBean("replicaDataSource", HikariDataSource.class);
+                    assertThat(primary.getJdbcUrl()).contains("//primary:");
+                    assertThat(primary.getMaximumPoolSize()).isEqualTo(7);
+                    assertThat(primary.getPoolName()).isEqualTo("primary");
+                    assertThat(replica.getJdbcUrl()).contains("//replica:");
+                    assertThat(replica.getMaximumPoolSize()).isEqualTo(3);
+                    assertThat(replica.getUsername()).isEqualTo("app");
+                    assertThat(replica.isReadOnly()).isTrue();
+                    assertThat(replica.getPoolName()).isEqualTo("replica");
+                });
+    }
+}
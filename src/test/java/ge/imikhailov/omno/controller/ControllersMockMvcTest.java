@@ -5,6 +5,7 @@ import ge.imikhailov.omno.dto.PriceDto;
 import ge.imikhailov.omno.enums.AdjustmentMode;
 import ge.imikhailov.omno.enums.AdjustmentType;
 import ge.imikhailov.omno.service.PriceService;
+import ge.imikhailov.omno.service.PriceSnapshotService;
 import ge.imikhailov.omno.service.SeedingService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -14,6 +15,7 @@ import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
 import java.math.BigDecimal;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -29,17 +31,19 @@ class ControllersMockMvcTest {
 
     private PriceService priceService;
     private SeedingService seedingService;
+    private PriceSnapshotService priceSnapshotService;
     private MockMvc mockMvc;
 
     @BeforeEach
     void setUp() {
         priceService = mock(PriceService.class);
         seedingService = mock(SeedingService.class);
+        priceSnapshotService = mock(PriceSnapshotService.class);
 
         mockMvc = MockMvcBuilders.standaloneSetup(
                         new PriceController(priceService),
                         new PriceDbController(priceService),
-                        new AdminController(priceService, seedingService),
+                        new AdminController(priceService, seedingService, priceSnapshotService),
                         new HealthController())
                 .build();
     }
@@ -57,6 +61,30 @@ class ControllersMockMvcTest {
         verify(priceService).getPrice(1L);
     }
 
+    @Test
+    void priceBatchReturnsFoundPricesAndMissingIds() throws Exception {
+        Map<Long, PriceDto> found = new LinkedHashMap<>();
+        found.put(1L, new PriceDto(1L, BigDecimal.TEN, BigDecimal.TEN, List.of()));
+        when(priceService.getPrices(List.of(1L, 404L))).thenReturn(found);
+
+        mockMvc.perform(post("/price/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"productIds\":[1,404]}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.prices[0].productId").value(1))
+                .andExpect(jsonPath("$.missing[0]").value(404));
+    }
+
+    @Test
+    void priceBatchRejectsEmptyRequest() throws Exception {
+        mockMvc.perform(post("/price/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"productIds\":[]}"))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(priceService);
+    }
+
     @Test
     void priceDbControllerUsesNoCachePath() throws Exception {
         when(priceService.getPriceNoCache(2L)).thenReturn(new PriceDto(2L, BigDecimal.ONE, BigDecimal.ONE, List.of()));
@@ -94,6 +122,7 @@ class ControllersMockMvcTest {
     void adminClearAndSeedEndpointsReturnBody() throws Exception {
         when(seedingService.clearDb()).thenReturn(5);
         when(seedingService.seed(10L, 0.5, true)).thenReturn(new SeedingService.SeedResult(10, 3, 123));
+        when(priceSnapshotService.backfill(anyInt())).thenReturn(new PriceSnapshotService.BackfillResult(10, 7));
 
         mockMvc.perform(post("/admin/clear"))
                 .andExpect(status().isOk())
@@ -107,7 +136,21 @@ class ControllersMockMvcTest {
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.status").value("ok"))
                 .andExpect(jsonPath("$.products").value(10))
-                .andExpect(jsonPath("$.adjustments").value(3));
+                .andExpect(jsonPath("$.adjustments").value(3))
+                .andExpect(jsonPath("$.snapshots").value(10));
+    }
+
+    @Test
+    void adminSnapshotVerifyReportsInconsistencies() throws Exception {
+        when(priceSnapshotService.verify(500)).thenReturn(new PriceSnapshotService.VerifyResult(100, 1, 2, List.of(4L, 9L, 12L), 40));
+
+        mockMvc.perform(get("/admin/snapshot/verify").param("chunkSize", "500"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("inconsistent"))
+                .andExpect(jsonPath("$.checked").value(100))
+                .andExpect(jsonPath("$.missing").value(1))
+                .andExpect(jsonPath("$.mismatched").value(2))
+                .andExpect(jsonPath("$.sampleIds[0]").value(4));
     }
 
     @Test
@@ -0,0 +1,94 @@
+package ge.imikhailov.omno.dto;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import ge.imikhailov.omno.enums.AdjustmentMode;
+import ge.imikhailov.omno.enums.AdjustmentType;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.lang.ref.WeakReference;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PriceDtoTest {
+
+    private static final List<AdjustmentDto> ADJUSTMENTS = List.of(
+            new AdjustmentDto(new BigDecimal("18.00"), AdjustmentType.TAX, AdjustmentMode.PERCENT),
+            new AdjustmentDto(new BigDecimal("-2.5"), AdjustmentType.PROMO, AdjustmentMode.ABSOLUTE),
+            new AdjustmentDto(new BigDecimal("0.99"), null, null));
+
+    @Test
+    void accessorsReturnWhatWasGiven() {
+        PriceDto dto = new PriceDto(42L, new BigDecimal("100.00"), new BigDecimal("-7.50"), ADJUSTMENTS, 9L);
+
+        assertThat(dto.productId()).isEqualTo(42L);
+        assertThat(dto.basePrice()).isEqualTo(new BigDecimal("100.00"));
+        assertThat(dto.finalPrice()).isEqualTo(new BigDecimal("-7.50"));
+        assertThat(dto.adjustments()).isEqualTo(ADJUSTMENTS);
+        assertThat(dto.version()).isEqualTo(9L);
+        assertThat(dto).isEqualTo(new PriceDto(42L, new BigDecimal("100.00"), new BigDecimal("-7.50"), new ArrayList<>(ADJUSTMENTS), 9L));
+        assertThat(dto).isNotEqualTo(new PriceDto(42L, new BigDecimal("100.0"), new BigDecimal("-7.50"), ADJUSTMENTS, 9L));
+
+        PriceDto empty = new PriceDto(null, null, null, null, null);
+        assertThat(Arrays.asList(empty.productId(), empty.basePrice(), empty.finalPrice(), empty.adjustments(), empty.version()))
+                .containsOnlyNulls();
+    }
+
+    @Test
+    void keepsAmountsAndAdjustmentsThatDoNotPack() {
+        BigDecimal huge = new BigDecimal("123456789012345678901234567890.12");
+        List<AdjustmentDto> wide = List.of(new AdjustmentDto(huge, AdjustmentType.FEE, AdjustmentMode.ABSOLUTE));
+
+        PriceDto dto = new PriceDto(1L, huge, BigDecimal.ONE, wide, 1L);
+
+        assertThat(dto.basePrice()).isEqualTo(huge);
+        assertThat(dto.finalPrice()).isEqualTo(BigDecimal.ONE);
+        assertThat(dto.adjustments()).isEqualTo(wide);
+        assertThat(dto).isEqualTo(new PriceDto(1L, huge, BigDecimal.ONE, wide, 1L));
+        assertThat(dto.retainedBytes()).isGreaterThan(new PriceDto(1L, BigDecimal.ONE, BigDecimal.ONE, ADJUSTMENTS, 1L).retainedBytes());
+    }
+
+    @Test
+    void pricesWithTheSameAdjustmentsShareThem() {
+        long[] first = PackedAdjustments.intern(PackedAdjustments.pack(ADJUSTMENTS));
+        long[] second = PackedAdjustments.intern(PackedAdjustments.pack(new ArrayList<>(ADJUSTMENTS)));
+
+        assertThat(second).isSameAs(first);
+        assertThat(new PriceDto(1L, BigDecimal.TEN, BigDecimal.TEN, ADJUSTMENTS, 1L).retainedBytes())
+                .isEqualTo(new PriceDto(1L, BigDecimal.TEN, BigDecimal.TEN, List.of(), 1L).retainedBytes());
+    }
+
+    @Test
+    void internedAdjustmentsAreDroppedOnceNoPriceUsesThem() throws Exception {
+        List<AdjustmentDto> unique = List.of(new AdjustmentDto(new BigDecimal("12.3456"), AdjustmentType.PROMO, AdjustmentMode.PERCENT));
+        var pooled = new WeakReference<>(PackedAdjustments.intern(PackedAdjustments.pack(unique)));
+
+        for (int i = 0; i < 50 && pooled.get() != null; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assertThat(pooled.get()).isNull();
+    }
+
+    @Test
+    void keepsTheRecordJsonShape() throws Exception {
+        PriceDto dto = new PriceDto(42L, new BigDecimal("100.00"), new BigDecimal("82.00"), ADJUSTMENTS.subList(0, 1), 3L);
+        PriceDto unversioned = new PriceDto(42L, new BigDecimal("100.00"), new BigDecimal("82.00"), ADJUSTMENTS.subList(0, 1));
+        ObjectMapper mapper = new ObjectMapper();
+
+        String json = mapper.writeValueAsString(dto);
+
+        // The version is internal to caching and snapshots
+        assertThat(json).isEqualTo("{\"productId\":42,\"basePrice\":100.00,\"finalPrice\":82.00,"
+                + "\"adjustments\":[{\"value\":18.00,\"type\":\"TAX\",\"mode\":\"PERCENT\"}]}");
+        assertThat(mapper.readValue(json, PriceDto.class)).isEqualTo(unversioned);
+        assertThat(mapper.readValue(json.replace("}]}", "}],\"version\":3}"), PriceDto.class)).isEqualTo(dto);
+
+        RedisSerializer<Object> typed = RedisSerializer.json();
+        assertThat(typed.deserialize(typed.serialize(dto))).isEqualTo(unversioned);
+    }
+}
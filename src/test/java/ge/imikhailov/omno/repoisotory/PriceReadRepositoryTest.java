@@ -0,0 +1,47 @@
+package ge.imikhailov.omno.repoisotory;
+
+import ge.imikhailov.omno.dto.AdjustmentDto;
+import ge.imikhailov.omno.enums.AdjustmentMode;
+import ge.imikhailov.omno.enums.AdjustmentType;
+import ge.imikhailov.omno.repoisotory.PriceReadRepository.PriceRow;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+class PriceReadRepositoryTest {
+
+    @Test
+    void groupsJoinedRowsPerProduct() throws Exception {
+        ResultSet rs = Mockito.mock(ResultSet.class);
+        // product 1 with two adjustments, product 2 without any (null adjustment columns)
+        when(rs.next()).thenReturn(true, true, true, false);
+        when(rs.getLong(1)).thenReturn(1L, 1L, 2L);
+        when(rs.getBigDecimal(2)).thenReturn(new BigDecimal("100.00"), new BigDecimal("50.00"));
+        when(rs.getLong(3)).thenReturn(4L, 9L);
+        when(rs.getBigDecimal(4)).thenReturn(new BigDecimal("18.00"), new BigDecimal("5.00"), null);
+        when(rs.getString(5)).thenReturn("TAX", "FEE");
+        when(rs.getString(6)).thenReturn("PERCENT", "ABSOLUTE");
+
+        List<PriceRow> rows = PriceReadRepository.groupRows(rs);
+
+        assertThat(rows).containsExactly(
+                new PriceRow(1L, new BigDecimal("100.00"), 4L, List.of(
+                        new AdjustmentDto(new BigDecimal("18.00"), AdjustmentType.TAX, AdjustmentMode.PERCENT),
+                        new AdjustmentDto(new BigDecimal("5.00"), AdjustmentType.FEE, AdjustmentMode.ABSOLUTE))),
+                new PriceRow(2L, new BigDecimal("50.00"), 9L, List.of()));
+    }
+
+    @Test
+    void returnsNothingForNoRows() throws Exception {
+        ResultSet rs = Mockito.mock(ResultSet.class);
+        when(rs.next()).thenReturn(false);
+
+        assertThat(PriceReadRepository.groupRows(rs)).isEmpty();
+    }
+}
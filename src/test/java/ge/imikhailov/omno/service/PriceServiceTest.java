@@ -1,25 +1,41 @@
 package ge.imikhailov.omno.service;
 
+import ge.imikhailov.omno.cache.multilevel.MissBatchingPolicy;
+import ge.imikhailov.omno.cache.multilevel.MultiLevelCache;
+import ge.imikhailov.omno.cache.multilevel.MultiLevelCacheOptions;
+import ge.imikhailov.omno.dto.AdjustmentDto;
 import ge.imikhailov.omno.dto.PriceDto;
-import ge.imikhailov.omno.entity.PriceAdjustment;
 import ge.imikhailov.omno.entity.Product;
 import ge.imikhailov.omno.enums.AdjustmentMode;
 import ge.imikhailov.omno.enums.AdjustmentType;
+import ge.imikhailov.omno.metrics.CacheMetricsFactory;
 import ge.imikhailov.omno.repoisotory.PriceAdjustmentRepository;
+import ge.imikhailov.omno.repoisotory.PriceReadRepository;
+import ge.imikhailov.omno.repoisotory.PriceReadRepository.PriceRow;
+import ge.imikhailov.omno.repoisotory.PriceSnapshotRepository;
 import ge.imikhailov.omno.repoisotory.ProductRepository;
 import ge.imikhailov.omno.web.error.ProductNotFoundException;
 import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.cache.support.SimpleCacheManager;
+import org.springframework.cache.support.NoOpCacheManager;
+import org.springframework.transaction.support.TransactionOperations;
 
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
-import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyIterable;
 import static org.mockito.Mockito.when;
 
 
@@ -27,6 +43,8 @@ class PriceServiceTest {
 
     private ProductRepository productRepository;
     private PriceAdjustmentRepository priceAdjustmentRepository;
+    private PriceReadRepository priceReadRepository;
+    private PriceSnapshotRepository priceSnapshotRepository;
     private AdjustmentMapper adjustmentMapper;
     private PriceService priceService;
 
@@ -34,8 +52,10 @@ class PriceServiceTest {
     void setUp() {
         productRepository = Mockito.mock(ProductRepository.class);
         priceAdjustmentRepository = Mockito.mock(PriceAdjustmentRepository.class);
+        priceReadRepository = Mockito.mock(PriceReadRepository.class);
+        priceSnapshotRepository = Mockito.mock(PriceSnapshotRepository.class);
         adjustmentMapper = new AdjustmentMapper();
-        priceService = new PriceService(productRepository, priceAdjustmentRepository, adjustmentMapper, new SimpleMeterRegistry());
+        priceService = new PriceService(productRepository, priceAdjustmentRepository, priceReadRepository, priceSnapshotRepository, adjustmentMapper, new SimpleMeterRegistry(), new NoOpCacheManager(), TransactionOperations.withoutTransaction(), TransactionOperations.withoutTransaction());
     }
 
     private static Product product(long id, BigDecimal base) {
@@ -47,20 +67,13 @@ class PriceServiceTest {
         return p;
     }
 
-    private static PriceAdjustment adj(Product p, AdjustmentType type, AdjustmentMode mode, BigDecimal value) {
-        PriceAdjustment a = new PriceAdjustment();
-        a.setProduct(p);
-        a.setType(type);
-        a.setMode(mode);
-        a.setValue(value);
-        return a;
+    private static PriceRow row(long id, String base, AdjustmentDto... adjustments) {
+        return new PriceRow(id, new BigDecimal(base), 1L, List.of(adjustments));
     }
 
     @Test
     void baseOnly_noAdjustments_returnsBasePrice() {
-        Product p = product(1L, new BigDecimal("100.00"));
-        when(productRepository.findById(1L)).thenReturn(Optional.of(p));
-        when(priceAdjustmentRepository.findByProduct(any())).thenReturn(List.of());
+        when(priceReadRepository.findPrice(1L)).thenReturn(Optional.of(row(1L, "100.00")));
 
         PriceDto dto = priceService.getPriceNoCache(1L);
 
@@ -71,12 +84,9 @@ class PriceServiceTest {
 
     @Test
     void absoluteAndPercent_mixed_applyAndRound() {
-        Product p = product(2L, new BigDecimal("100.00"));
-        when(productRepository.findById(2L)).thenReturn(Optional.of(p));
-        when(priceAdjustmentRepository.findByProduct(p)).thenReturn(List.of(
-                adj(p, AdjustmentType.PROMO, AdjustmentMode.ABSOLUTE, new BigDecimal("10.00")),
-                adj(p, AdjustmentType.TAX, AdjustmentMode.PERCENT, new BigDecimal("2.555"))
-        ));
+        when(priceReadRepository.findPrice(2L)).thenReturn(Optional.of(row(2L, "100.00",
+                new AdjustmentDto(new BigDecimal("10.00"), AdjustmentType.PROMO, AdjustmentMode.ABSOLUTE),
+                new AdjustmentDto(new BigDecimal("2.555"), AdjustmentType.TAX, AdjustmentMode.PERCENT))));
 
         PriceDto dto = priceService.getPriceNoCache(2L);
 
@@ -86,11 +96,8 @@ class PriceServiceTest {
 
     @Test
     void percentOnly_appliesOnBasePrice() {
-        Product p = product(3L, new BigDecimal("200.00"));
-        when(productRepository.findById(3L)).thenReturn(Optional.of(p));
-        when(priceAdjustmentRepository.findByProduct(p)).thenReturn(List.of(
-                adj(p, AdjustmentType.FEE, AdjustmentMode.PERCENT, new BigDecimal("10.00"))
-        ));
+        when(priceReadRepository.findPrice(3L)).thenReturn(Optional.of(row(3L, "200.00",
+                new AdjustmentDto(new BigDecimal("10.00"), AdjustmentType.FEE, AdjustmentMode.PERCENT))));
 
         PriceDto dto = priceService.getPriceNoCache(3L);
 
@@ -99,8 +106,82 @@ class PriceServiceTest {
 
     @Test
     void missingProduct_throwsNotFound() {
-        when(productRepository.findById(404L)).thenReturn(Optional.empty());
+        when(priceReadRepository.findPrice(404L)).thenReturn(Optional.empty());
         assertThatThrownBy(() -> priceService.getPriceNoCache(404L))
                 .isInstanceOf(ProductNotFoundException.class);
     }
+
+    @Test
+    void batch_loadsAllInOneQuery_andOmitsMissing() {
+        when(priceReadRepository.findPrices(anyCollection())).thenReturn(List.of(
+                row(5L, "100.00"),
+                row(6L, "50.00", new AdjustmentDto(new BigDecimal("5.00"), AdjustmentType.FEE, AdjustmentMode.ABSOLUTE))));
+
+        Map<Long, PriceDto> prices = priceService.getPrices(List.of(6L, 404L, 5L));
+
+        assertThat(prices.keySet()).containsExactly(6L, 5L);
+        assertThat(prices.get(5L).finalPrice()).isEqualByComparingTo("100.00");
+        assertThat(prices.get(6L).finalPrice()).isEqualByComparingTo("55.00");
+        assertThat(prices.get(6L).adjustments()).hasSize(1);
+        Mockito.verify(priceReadRepository, Mockito.times(1)).findPrices(anyCollection());
+        Mockito.verifyNoInteractions(productRepository, priceAdjustmentRepository);
+    }
+
+    @Test
+    void setAdjustments_writesRecomputedPriceThroughToCache() {
+        ConcurrentMapCacheManager cacheManager = new ConcurrentMapCacheManager("price");
+        PriceService service = new PriceService(productRepository, priceAdjustmentRepository, priceReadRepository, priceSnapshotRepository, adjustmentMapper,
+                new SimpleMeterRegistry(), cacheManager, TransactionOperations.withoutTransaction(), TransactionOperations.withoutTransaction());
+        Product p = product(7L, new BigDecimal("100.00"));
+        when(productRepository.findByIdForUpdate(7L)).thenReturn(Optional.of(p));
+        AdjustmentDto fee = new AdjustmentDto(new BigDecimal("5.00"), AdjustmentType.FEE, AdjustmentMode.ABSOLUTE);
+        when(priceReadRepository.findPrice(7L)).thenReturn(Optional.of(row(7L, "100.00", fee)));
+
+        service.setAdjustments(7L, List.of(fee));
+
+        PriceDto cached = cacheManager.getCache("price").get(7L, PriceDto.class);
+        assertThat(cached).isNotNull();
+        assertThat(cached.finalPrice()).isEqualByComparingTo("105.00");
+        Mockito.verify(priceAdjustmentRepository).saveAll(anyIterable());
+        Mockito.verify(priceSnapshotRepository).upsert(cached);
+    }
+
+    @Test
+    void snapshot_isServedWithoutRecomputing() {
+        PriceDto snapshot = new PriceDto(9L, new BigDecimal("10.00"), new BigDecimal("12.00"), List.of(), 3L);
+        when(priceSnapshotRepository.find(9L)).thenReturn(Optional.of(snapshot));
+
+        assertThat(priceService.getPriceNoCache(9L)).isEqualTo(snapshot);
+        Mockito.verifyNoInteractions(priceReadRepository);
+    }
+
+    @Test
+    void batch_computesOnlyProductsWithoutSnapshot() {
+        PriceDto snapshot = new PriceDto(5L, new BigDecimal("100.00"), new BigDecimal("90.00"), List.of(), 2L);
+        when(priceSnapshotRepository.findAll(anyCollection())).thenReturn(List.of(snapshot));
+        when(priceReadRepository.findPrices(Set.of(6L))).thenReturn(List.of(row(6L, "50.00")));
+
+        Map<Long, PriceDto> prices = priceService.getPrices(List.of(5L, 6L));
+
+        assertThat(prices.get(5L)).isEqualTo(snapshot);
+        assertThat(prices.get(6L).finalPrice()).isEqualByComparingTo("50.00");
+    }
+
+    @Test
+    void getPrice_withMissBatching_loadsThroughTheBulkQuery() {
+        MultiLevelCache cache = new MultiLevelCache("price", new ConcurrentMapCache("price-l1"), new ConcurrentMapCache("price-l2"),
+                MultiLevelCacheOptions.builder().missBatching(new MissBatchingPolicy(Duration.ofMillis(1), 64)).build(),
+                null, new CacheMetricsFactory(new SimpleMeterRegistry()));
+        SimpleCacheManager cacheManager = new SimpleCacheManager();
+        cacheManager.setCaches(List.of(cache));
+        cacheManager.afterPropertiesSet();
+        PriceService service = new PriceService(productRepository, priceAdjustmentRepository, priceReadRepository, priceSnapshotRepository, adjustmentMapper,
+                new SimpleMeterRegistry(), cacheManager, TransactionOperations.withoutTransaction(), TransactionOperations.withoutTransaction());
+        when(priceReadRepository.findPrices(anyCollection())).thenAnswer(inv ->
+                inv.<java.util.Collection<Long>>getArgument(0).contains(8L) ? List.of(row(8L, "30.00")) : List.of());
+
+        assertThat(service.getPrice(8L).finalPrice()).isEqualByComparingTo("30.00");
+        assertThatThrownBy(() -> service.getPrice(404L)).isInstanceOf(ProductNotFoundException.class);
+        Mockito.verify(priceReadRepository, Mockito.never()).findPrice(Mockito.anyLong());
+    }
 }
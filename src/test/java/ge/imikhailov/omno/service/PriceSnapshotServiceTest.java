@@ -0,0 +1,87 @@
+package ge.imikhailov.omno.service;
+
+import ge.imikhailov.omno.dto.AdjustmentDto;
+import ge.imikhailov.omno.dto.PriceDto;
+import ge.imikhailov.omno.enums.AdjustmentMode;
+import ge.imikhailov.omno.enums.AdjustmentType;
+import ge.imikhailov.omno.repoisotory.PriceReadRepository;
+import ge.imikhailov.omno.repoisotory.PriceReadRepository.PriceRow;
+import ge.imikhailov.omno.repoisotory.PriceSnapshotRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+class PriceSnapshotServiceTest {
+
+    private static final AdjustmentDto TAX = new AdjustmentDto(new BigDecimal("10.00"), AdjustmentType.TAX, AdjustmentMode.PERCENT);
+
+    private PriceReadRepository priceReadRepository;
+    private PriceSnapshotRepository priceSnapshotRepository;
+    private PriceSnapshotService service;
+
+    @BeforeEach
+    void setUp() {
+        priceReadRepository = Mockito.mock(PriceReadRepository.class);
+        priceSnapshotRepository = Mockito.mock(PriceSnapshotRepository.class);
+        service = new PriceSnapshotService(priceReadRepository, priceSnapshotRepository, TransactionOperations.withoutTransaction());
+        // Two chunks of two products, then the end of the catalogue
+        when(priceReadRepository.findProductIdsAfter(0L, 2)).thenReturn(List.of(1L, 2L));
+        when(priceReadRepository.findProductIdsAfter(2L, 2)).thenReturn(List.of(3L));
+        when(priceReadRepository.findProductIdsAfter(3L, 2)).thenReturn(List.of());
+        when(priceReadRepository.findPrices(List.of(1L, 2L))).thenReturn(List.of(
+                new PriceRow(1L, new BigDecimal("100.00"), 1L, List.of(TAX)),
+                new PriceRow(2L, new BigDecimal("50.00"), 4L, List.of())));
+        when(priceReadRepository.findPrices(List.of(3L))).thenReturn(List.of(
+                new PriceRow(3L, new BigDecimal("20.00"), 2L, List.of())));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void backfill_upsertsComputedPricesChunkByChunk() {
+        PriceSnapshotService.BackfillResult result = service.backfill(2);
+
+        assertThat(result.products()).isEqualTo(3);
+        ArgumentCaptor<List<PriceDto>> captor = ArgumentCaptor.forClass(List.class);
+        Mockito.verify(priceSnapshotRepository, Mockito.times(3)).upsertAll(captor.capture());
+        assertThat(captor.getAllValues().get(0)).hasSize(2);
+        assertThat(captor.getAllValues().get(0).get(0).finalPrice()).isEqualByComparingTo("110.00");
+        assertThat(captor.getAllValues().get(1)).hasSize(1);
+        assertThat(captor.getAllValues().get(2)).isEmpty();
+    }
+
+    @Test
+    void verify_countsMissingAndMismatchedSnapshots() {
+        when(priceSnapshotRepository.findAll(List.of(1L, 2L))).thenReturn(List.of(
+                // Same values at another scale: consistent
+                new PriceDto(1L, new BigDecimal("100"), new BigDecimal("110.0"),
+                        List.of(new AdjustmentDto(new BigDecimal("10"), AdjustmentType.TAX, AdjustmentMode.PERCENT)), 1L),
+                // Stale version
+                new PriceDto(2L, new BigDecimal("50.00"), new BigDecimal("50.00"), List.of(), 3L)));
+        when(priceSnapshotRepository.findAll(List.of(3L))).thenReturn(List.of());
+
+        PriceSnapshotService.VerifyResult result = service.verify(2);
+
+        assertThat(result.checked()).isEqualTo(3);
+        assertThat(result.missing()).isEqualTo(1);
+        assertThat(result.mismatched()).isEqualTo(1);
+        assertThat(result.sampleIds()).containsExactly(2L, 3L);
+    }
+
+    @Test
+    void matches_detectsChangedAdjustments() {
+        PriceDto live = new PriceDto(1L, new BigDecimal("100.00"), new BigDecimal("110.00"), List.of(TAX), 1L);
+        PriceDto fee = new PriceDto(1L, new BigDecimal("100.00"), new BigDecimal("110.00"),
+                List.of(new AdjustmentDto(new BigDecimal("10.00"), AdjustmentType.FEE, AdjustmentMode.PERCENT)), 1L);
+
+        assertThat(PriceSnapshotService.matches(live, live)).isTrue();
+        assertThat(PriceSnapshotService.matches(fee, live)).isFalse();
+    }
+}